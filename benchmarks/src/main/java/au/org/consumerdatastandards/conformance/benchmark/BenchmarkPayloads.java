@@ -0,0 +1,58 @@
+package au.org.consumerdatastandards.conformance.benchmark;
+
+import au.org.consumerdatastandards.api.banking.models.ResponseBankingProductList;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Benchmark inputs: the sample payloads shipped with the project and generated product lists of any size.
+ */
+public class BenchmarkPayloads {
+
+    public static final String API_BASE = "http://localhost/cds-au/v1";
+
+    public static final String LIST_PRODUCTS_URL = API_BASE + "/banking/products";
+
+    public static final String NON_MATCHING = "{\"unknownProperty\":{\"value\":1},\"anotherUnknownProperty\":[1, 2, 3]}";
+
+    public static byte[] load(String fileName) {
+        try {
+            return Files.readAllBytes(getPayloadsDirectory().resolve(fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the directory of the sample payloads, {@code payloads/products} of the project by default.
+     */
+    public static Path getPayloadsDirectory() {
+        String directory = System.getProperty("cds.benchmark.payloads");
+        if (directory != null) return Paths.get(directory);
+        Path path = Paths.get("payloads", "products");
+        return Files.isDirectory(path) ? path : Paths.get("..", "payloads", "products");
+    }
+
+    /**
+     * Returns a valid first page of a listProducts response with the given number of products.
+     */
+    public static byte[] productList(int productCount) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(productCount * 1024 + 1024);
+        try {
+            new PayloadGenerator()
+                .collectionSize("products", productCount)
+                .pagination(LIST_PRODUCTS_URL, productCount)
+                .seed(productCount)
+                .generate(ResponseBankingProductList.class, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,30 @@
+package au.org.consumerdatastandards.conformance.benchmark;
+
+import au.org.consumerdatastandards.api.banking.models.ResponseBankingProductById;
+import au.org.consumerdatastandards.api.banking.models.ResponseBankingProductList;
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expansion of allOf models into generated classes, which is cached after the first call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+    @Benchmark
+    public Class<?> expandProductById() {
+        return ConformanceUtil.expandModel(ResponseBankingProductById.class);
+    }
+
+    @Benchmark
+    public Class<?> expandProductList() {
+        return ConformanceUtil.expandModel(ResponseBankingProductList.class);
+    }
+}
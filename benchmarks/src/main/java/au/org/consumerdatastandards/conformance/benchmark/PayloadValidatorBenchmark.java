@@ -0,0 +1,65 @@
+package au.org.consumerdatastandards.conformance.benchmark;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.util.ModelConformanceConverter;
+import au.org.consumerdatastandards.support.model.ModelBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model building, validator construction and payload validation through model discovery.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PayloadValidatorBenchmark {
+
+    @Param({"xyzbank-deposit-account.json", "deposit-rate.json", "bundles.json"})
+    public String payloadFile;
+
+    private PayloadValidator payloadValidator;
+
+    private byte[] payload;
+
+    private byte[] nonMatchingPayload;
+
+    @Setup
+    public void setUp() {
+        payloadValidator = new PayloadValidator();
+        payload = BenchmarkPayloads.load(payloadFile);
+        nonMatchingPayload = BenchmarkPayloads.NON_MATCHING.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ConformanceModel buildConformanceModel() {
+        return ModelConformanceConverter.convert(new ModelBuilder().build());
+    }
+
+    @Benchmark
+    public PayloadValidator createPayloadValidator() {
+        return new PayloadValidator();
+    }
+
+    @Benchmark
+    public List<ConformanceError> validateMatchingPayload() {
+        return payloadValidator.validatePayload(payload);
+    }
+
+    @Benchmark
+    public List<ConformanceError> validateMatchingPayloadStreaming() {
+        return payloadValidator.validatePayloadStreaming(payload);
+    }
+
+    @Benchmark
+    public List<ConformanceError> validateNonMatchingPayload() {
+        return payloadValidator.validatePayload(nonMatchingPayload);
+    }
+}
@@ -0,0 +1,80 @@
+package au.org.consumerdatastandards.conformance.benchmark;
+
+import au.org.consumerdatastandards.api.banking.models.ResponseBankingProductList;
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of generated listProducts responses from 10 to 100k products.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ProductListBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int productCount;
+
+    private PayloadValidator payloadValidator;
+
+    private String requestUrl;
+
+    private byte[] payload;
+
+    private ResponseBankingProductList response;
+
+    @Setup
+    public void setUp() throws IOException {
+        payloadValidator = new PayloadValidator();
+        requestUrl = BenchmarkPayloads.LIST_PRODUCTS_URL;
+        payload = BenchmarkPayloads.productList(productCount);
+        response = ObjectMapperRegistry.getReader(ResponseBankingProductList.class).readValue(payload);
+        List<ConformanceError> errors = payloadValidator.validateResponse(requestUrl, response, "listProducts", 200);
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Synthetic product list is not valid: " + errors.get(0).getDescription());
+        }
+    }
+
+    @Benchmark
+    public List<ConformanceError> validatePayload() {
+        return payloadValidator.validatePayload(payload);
+    }
+
+    @Benchmark
+    public List<ConformanceError> validatePayloadStreaming() {
+        return payloadValidator.validatePayloadStreaming(payload);
+    }
+
+    @Benchmark
+    public ResponseBankingProductList bindResponse() throws IOException {
+        return ObjectMapperRegistry.getReader(ResponseBankingProductList.class).readValue(payload);
+    }
+
+    @Benchmark
+    public List<ConformanceError> validateResponse() {
+        return payloadValidator.validateResponse(requestUrl, response, "listProducts", 200);
+    }
+
+    @Benchmark
+    public List<ConformanceError> checkAgainstModel() {
+        List<ConformanceError> errors = new ArrayList<>();
+        ConformanceUtil.checkAgainstModel(response, ResponseBankingProductList.class, errors);
+        return errors;
+    }
+
+    @Benchmark
+    public String toJson() {
+        return ConformanceUtil.toJson(response);
+    }
+}
@@ -9,7 +9,7 @@ import java.lang.reflect.Field;
 
 public class ConformanceError {
 
-    private String dataJson;
+    private DataJson dataJson;
 
     private Type errorType;
 
@@ -21,7 +21,14 @@ public class ConformanceError {
 
     private String message;
 
+    private String description;
+
     public ConformanceError dataJson(String dataJson) {
+        this.dataJson = DataJson.rendered(dataJson);
+        return this;
+    }
+
+    public ConformanceError dataJson(DataJson dataJson) {
         this.dataJson = dataJson;
         return this;
     }
@@ -51,35 +58,97 @@ public class ConformanceError {
         return this;
     }
 
+    /**
+     * Sets a description rendered earlier, which is returned as is instead of being rendered from the error details.
+     */
+    public ConformanceError description(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public Type getErrorType() {
+        return errorType;
+    }
+
+    public Field getErrorField() {
+        return errorField;
+    }
+
+    public Object getErrorFieldValue() {
+        return errorFieldValue;
+    }
+
+    public CDSDataType getCdsDataType() {
+        return cdsDataType;
+    }
+
+    public String getErrorMessage() {
+        return message;
+    }
+
     public String getDescription() {
+        if (description != null) {
+            return description;
+        }
+        if (errorType == null) {
+            return StringUtils.isBlank(message) ? "Unknown error" : message;
+        }
         switch (errorType) {
             case MISSING_VALUE:
                 return String.format("Required field '%s' has null value in\n%s",
-                    errorField.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""), dataJson);
+                    errorField.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""), getDataJson());
             case MISSING_PROPERTY:
                 return String.format("Required field '%s' is missing in\n%s",
-                    errorField.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""), dataJson);
+                    errorField.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""), getDataJson());
             case PATTERN_NOT_MATCHED:
                 CustomDataType customDataType = cdsDataType.value();
                 return String.format("%s '%s' does not conform to CDS type %s. See below:\n%s",
                     errorField.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""),
-                    errorFieldValue, customDataType.getName(), dataJson);
+                    errorFieldValue, customDataType.getName(), getDataJson());
             case NUMBER_TOO_SMALL:
                 CustomDataType customType = cdsDataType.value();
                 return String.format("%s '%s' is smaller than CDS type %s minimum value %s. See below:\n%s",
                     errorField.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""),
-                    errorFieldValue, customType.getName(), customType.getMin(), dataJson);
+                    errorFieldValue, customType.getName(), customType.getMin(), getDataJson());
             case NUMBER_TOO_BIG:
                 CustomDataType dataType = cdsDataType.value();
                 return String.format("%s '%s' is bigger than CDS type %s max value %s. See below:\n%s",
                     errorField.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""),
-                    errorFieldValue, dataType.getName(), dataType.getMax(), dataJson);
+                    errorFieldValue, dataType.getName(), dataType.getMax(), getDataJson());
             default:
                 if (!StringUtils.isBlank(message)) return message;
                 else return "Unknown error";
         }
     }
 
+    /**
+     * Returns a copy of this error sharing its data json, which is still rendered on first use.
+     */
+    public ConformanceError copy() {
+        ConformanceError error = new ConformanceError();
+        error.dataJson = dataJson;
+        error.errorType = errorType;
+        error.errorField = errorField;
+        error.errorFieldValue = errorFieldValue;
+        error.cdsDataType = cdsDataType;
+        error.message = message;
+        error.description = description;
+        return error;
+    }
+
+    /**
+     * Returns a copy of this error which no longer references the validated data, its json rendered.
+     */
+    public ConformanceError detach() {
+        ConformanceError error = copy();
+        error.dataJson = dataJson == null ? null : dataJson.detach();
+        return error;
+    }
+
+    public String getDataJson() {
+        return dataJson == null ? null : dataJson.get();
+    }
+
     public enum Type {
 
         MISSING_PROPERTY,
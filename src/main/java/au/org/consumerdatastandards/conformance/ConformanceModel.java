@@ -3,20 +3,32 @@ package au.org.consumerdatastandards.conformance;
 import au.org.consumerdatastandards.support.EndpointResponse;
 import au.org.consumerdatastandards.support.ResponseCode;
 
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class ConformanceModel {
 
     private Map<String, Map<ResponseCode, EndpointResponse>> responseMap;
     private Map<Class<?>, Payload> payloadMap;
+    private Map<String, Set<Class<?>>> propertyIndex;
 
     public void setResponseMap(Map<String, Map<ResponseCode, EndpointResponse>> responseMap) {
-        this.responseMap = responseMap;
+        this.responseMap = Collections.unmodifiableMap(responseMap);
     }
 
     public void setPayloadMap(Map<Class<?>, Payload> payloadMap) {
-        this.payloadMap = payloadMap;
+        this.payloadMap = Collections.unmodifiableMap(payloadMap);
+    }
+
+    public void setPropertyIndex(Map<String, Set<Class<?>>> propertyIndex) {
+        this.propertyIndex = Collections.unmodifiableMap(propertyIndex);
+    }
+
+    public Map<String, Map<ResponseCode, EndpointResponse>> getResponseMap() {
+        return responseMap;
+    }
+
+    public Map<String, Set<Class<?>>> getPropertyIndex() {
+        return propertyIndex;
     }
 
     public EndpointResponse getResponse(String operationId, ResponseCode responseCode) {
@@ -30,4 +42,40 @@ public class ConformanceModel {
     public Set<Class<?>> getPayloadModels() {
         return payloadMap.keySet();
     }
+
+    /**
+     * Returns the models a payload with the given top level property names (or, for an array payload,
+     * the property names of its first item) can be bound to, best fit first.
+     */
+    public List<Class<?>> getCandidateModels(Set<String> propertyNames, boolean array) {
+        Set<Class<?>> candidates = null;
+        for (String propertyName : propertyNames) {
+            Set<Class<?>> models = propertyIndex.get(propertyName);
+            if (models == null) return Collections.emptyList();
+            if (candidates == null) {
+                candidates = new HashSet<>(models);
+            } else {
+                candidates.retainAll(models);
+            }
+            if (candidates.isEmpty()) return Collections.emptyList();
+        }
+        List<Class<?>> result = new ArrayList<>();
+        for (Class<?> model : candidates == null ? payloadMap.keySet() : candidates) {
+            if (payloadMap.get(model).isArray() == array) {
+                result.add(model);
+            }
+        }
+        result.sort(Comparator.<Class<?>>comparingInt(model -> countMissing(payloadMap.get(model).getRequiredPropertyNames(), propertyNames))
+            .thenComparingInt(model -> payloadMap.get(model).getPropertyNames().size())
+            .thenComparing(Class::getName));
+        return result;
+    }
+
+    private static int countMissing(Set<String> requiredPropertyNames, Set<String> propertyNames) {
+        int missing = 0;
+        for (String requiredPropertyName : requiredPropertyNames) {
+            if (!propertyNames.contains(requiredPropertyName)) missing++;
+        }
+        return missing;
+    }
 }
@@ -0,0 +1,48 @@
+package au.org.consumerdatastandards.conformance;
+
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+
+/**
+ * Json rendering of the data object a {@link ConformanceError} refers to, produced on first use and shared
+ * by all errors raised against the same object.
+ */
+public class DataJson {
+
+    private final Object data;
+
+    private volatile String json;
+
+    private DataJson(Object data, String json) {
+        this.data = data;
+        this.json = json;
+    }
+
+    public static DataJson of(Object data) {
+        return new DataJson(data, null);
+    }
+
+    public static DataJson rendered(String json) {
+        return new DataJson(null, json);
+    }
+
+    public String get() {
+        String rendered = json;
+        if (rendered == null && data != null) {
+            rendered = ConformanceUtil.toJson(data);
+            json = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * Returns this rendering without the reference to the data object, rendering it if not done yet.
+     */
+    public DataJson detach() {
+        return data == null ? this : rendered(get());
+    }
+
+    @Override
+    public String toString() {
+        return get();
+    }
+}
@@ -1,15 +1,28 @@
 package au.org.consumerdatastandards.conformance;
 
 
+import au.org.consumerdatastandards.support.Endpoint;
 import au.org.consumerdatastandards.support.model.EndpointModel;
 
+import java.util.Set;
+
 public class Payload {
 
     private Type payloadType;
 
     private Class<?> dataClass;
 
-    private EndpointModel endpointModel;
+    private Endpoint endpoint;
+
+    private Set<String> propertyNames;
+
+    private Set<String> requiredPropertyNames;
+
+    private boolean array;
+
+    public Type getPayloadType() {
+        return payloadType;
+    }
 
     public void setPayloadType(Type payloadType) {
         this.payloadType = payloadType;
@@ -24,13 +37,45 @@ public class Payload {
     }
 
     public void setEndpointModel(EndpointModel endpointModel) {
-        this.endpointModel = endpointModel;
+        this.endpoint = endpointModel.getEndpoint();
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public Set<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+    public void setPropertyNames(Set<String> propertyNames) {
+        this.propertyNames = propertyNames;
+    }
+
+    public Set<String> getRequiredPropertyNames() {
+        return requiredPropertyNames;
+    }
+
+    public void setRequiredPropertyNames(Set<String> requiredPropertyNames) {
+        this.requiredPropertyNames = requiredPropertyNames;
+    }
+
+    public boolean isArray() {
+        return array;
+    }
+
+    public void setArray(boolean array) {
+        this.array = array;
     }
 
     public String getDescription() {
         return payloadType.toString() +
-            " in endpoint (" + endpointModel.getEndpoint().operationId()  + ") "
-            + endpointModel.getEndpoint().path();
+            " in endpoint (" + endpoint.operationId()  + ") "
+            + endpoint.path();
     }
 
     public enum Type {
@@ -1,11 +1,22 @@
 package au.org.consumerdatastandards.conformance;
 
+import au.org.consumerdatastandards.conformance.cache.ValidationCache;
+import au.org.consumerdatastandards.conformance.metrics.Metrics;
+import au.org.consumerdatastandards.conformance.metrics.ValidationEvents;
+import au.org.consumerdatastandards.conformance.metrics.ValidationMetrics;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelRegistry;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelSnapshot;
 import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
-import au.org.consumerdatastandards.conformance.util.ModelConformanceConverter;
+import au.org.consumerdatastandards.conformance.util.JsonSource;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import au.org.consumerdatastandards.conformance.util.PayloadTokens;
+import au.org.consumerdatastandards.conformance.util.StreamingValidator;
 import au.org.consumerdatastandards.support.EndpointResponse;
 import au.org.consumerdatastandards.support.ResponseCode;
-import au.org.consumerdatastandards.support.model.ModelBuilder;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.slf4j.Logger;
@@ -14,30 +25,64 @@ import org.springframework.util.ReflectionUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
-import static au.org.consumerdatastandards.conformance.util.ConformanceUtil.createObjectMapper;
-
+/**
+ * Validates payloads and responses against a {@link ConformanceModel}. Validators hold no mutable state, are
+ * cheap to create and can be shared between threads; by default they use the process wide model of
+ * {@link ConformanceModelRegistry}. Validators given a {@link ValidationCache} look results up in it before
+ * validating payloads, and responses given with their body.
+ */
 public class PayloadValidator {
 
     private static Logger LOGGER = LoggerFactory.getLogger(PayloadValidator.class);
 
-    private ConformanceModel conformanceModel;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    private static final String PAYLOAD = "payload";
+
+    private static final String RESPONSE = "response";
+
+    private final ConformanceModel conformanceModel;
+
+    private final ValidationCache validationCache;
+
+    private final String modelVersion;
 
     public PayloadValidator() {
-        ModelBuilder modelBuilder = new ModelBuilder();
-        conformanceModel = ModelConformanceConverter.convert(modelBuilder.build());
+        this(ConformanceModelRegistry.getConformanceModel());
+    }
+
+    public PayloadValidator(ConformanceModel conformanceModel) {
+        this(conformanceModel, null);
+    }
+
+    public PayloadValidator(ConformanceModel conformanceModel, ValidationCache validationCache) {
+        this.conformanceModel = ConformanceModelRegistry.prepare(conformanceModel);
+        this.validationCache = validationCache;
+        this.modelVersion = validationCache == null ? null
+            : ConformanceModelSnapshot.getModelVersion(conformanceModel);
+    }
+
+    public ConformanceModel getConformanceModel() {
+        return conformanceModel;
     }
 
     public List<ConformanceError> validateFile(File jsonFile) {
-        LOGGER.info("Validating " + jsonFile.getAbsolutePath());
-        byte[] jsonData;
+        LOGGER.debug("Validating " + jsonFile.getAbsolutePath());
         try {
-            jsonData = Files.readAllBytes(Paths.get(jsonFile.getCanonicalPath()));
-            return validatePayload(jsonData);
+            return validate(jsonFile.toPath()).getErrors();
         } catch (IOException e) {
             return Collections.singletonList(new ConformanceError().errorMessage(
                 "Failed to load file " + jsonFile.getAbsolutePath()
@@ -50,49 +95,321 @@ public class PayloadValidator {
             return Collections.singletonList(
                 new ConformanceError().errorMessage("Blank json text... Ignored."));
         }
-        return validatePayload(json.getBytes());
+        return validatePayload(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public List<ConformanceError> validatePayload(byte[] jsonData) {
+        return validate(JsonSource.of(jsonData)).getErrors();
+    }
+
+    public List<ConformanceError> validatePayload(byte[] jsonData, int offset, int length) {
+        return validate(JsonSource.of(jsonData, offset, length)).getErrors();
+    }
+
+    public List<ConformanceError> validatePayload(ByteBuffer jsonData) {
+        return validate(JsonSource.of(jsonData)).getErrors();
     }
 
-    private List<ConformanceError> validatePayload(byte[] jsonData) {
-        for (Class<?> modelClass : conformanceModel.getPayloadModels()) {
+    public List<ConformanceError> validatePayload(InputStream inputStream) {
+        try {
+            return validate(readPooled(inputStream)).getErrors();
+        } catch (IOException e) {
+            return Collections.singletonList(new ConformanceError().errorMessage(
+                "Failed to read payload: " + e.getMessage()
+            ));
+        }
+    }
+
+    public ValidationResult validate(byte[] jsonData) {
+        return validate(JsonSource.of(jsonData));
+    }
+
+    /**
+     * Validates a payload file, memory mapping it if it is larger than the pooled read buffers.
+     */
+    public ValidationResult validate(Path jsonFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(jsonFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_POOLED_BUFFER_SIZE) {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("File too large: " + jsonFile);
+                }
+                return validate(JsonSource.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, size)));
+            }
+            byte[] buffer = borrowBuffer((int) size);
+            ByteBuffer target = ByteBuffer.wrap(buffer, 0, (int) size);
+            while (target.hasRemaining() && channel.read(target) != -1) {
+                // keep reading
+            }
+            return validate(JsonSource.of(buffer, 0, target.position()));
+        }
+    }
+
+    public ValidationResult validate(JsonSource jsonSource) {
+        if (validationCache == null) {
+            return doValidate(jsonSource);
+        }
+        long start = System.nanoTime();
+        ValidationCache.Key key = validationCache.key(jsonSource, PAYLOAD, modelVersion);
+        ValidationResult result = validationCache.get(key);
+        if (result == null) {
+            result = validationCache.put(key, doValidate(jsonSource));
+        } else {
+            Metrics.get().recordCacheHit(result.getMatchedModel(), System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private ValidationResult doValidate(JsonSource jsonSource) {
+        Object event = ValidationEvents.begin(ValidationEvents.Kind.PAYLOAD_VALIDATION);
+        ValidationMetrics metrics = Metrics.get();
+        long start = System.nanoTime();
+        List<Class<?>> candidateModels = findCandidateModels(jsonSource);
+        long matchingStart = System.nanoTime();
+        metrics.recordStage(ValidationMetrics.Stage.PARSE, matchingStart - start);
+        // the best candidate is bound straight from the payload, which is tokenized once if more are needed
+        PayloadTokens tokens = null;
+        int candidatesTried = 0;
+        for (Class<?> modelClass : candidateModels) {
+            candidatesTried++;
             try {
-                ObjectMapper objectMapper = createObjectMapper();
-                Payload payload = conformanceModel.getPlayload(modelClass);
-                Object data = objectMapper.readValue(jsonData, payload.getDataClass());
+                ObjectReader reader = ObjectMapperRegistry.getMatchingReader(
+                    conformanceModel.getPlayload(modelClass).getDataClass());
+                long bindStart = System.nanoTime();
+                Object data;
+                if (candidatesTried == 1) {
+                    data = jsonSource.read(reader);
+                } else {
+                    if (tokens == null) {
+                        tokens = PayloadTokens.of(jsonSource, JSON_FACTORY);
+                    }
+                    data = tokens.read(reader);
+                }
+                long bindEnd = System.nanoTime();
+                metrics.recordStage(ValidationMetrics.Stage.BIND, bindEnd - bindStart);
+                metrics.recordStage(ValidationMetrics.Stage.MODEL_MATCHING, bindEnd - matchingStart);
+                metrics.recordCandidatesTried(candidatesTried);
                 List<ConformanceError> errors = new ArrayList<>();
                 ConformanceUtil.checkAgainstModel(data, modelClass, errors);
-                LOGGER.info("Found matching model " + modelClass.getSimpleName());
-                return errors;
+                metrics.recordValidation(modelClass, System.nanoTime() - start);
+                Metrics.recordErrors(errors);
+                ValidationEvents.commit(event, modelClass, null, jsonSource.length(), errors.size());
+                LOGGER.debug("Found matching model " + modelClass.getSimpleName());
+                return new ValidationResult(modelClass, errors);
             } catch (IOException e) {
                 // ignored
             }
         }
-        return Collections.singletonList(new ConformanceError()
+        metrics.recordStage(ValidationMetrics.Stage.MODEL_MATCHING, System.nanoTime() - matchingStart);
+        metrics.recordCandidatesTried(candidatesTried);
+        return noMatchingModel(jsonSource, event, metrics, start);
+    }
+
+    private ValidationResult noMatchingModel(JsonSource jsonSource, Object event, ValidationMetrics metrics,
+                                             long start) {
+        ConformanceError error = new ConformanceError()
             .errorType(ConformanceError.Type.NO_MATCHING_MODEL)
-            .errorMessage("No matching model found"));
+            .errorMessage("No matching model found");
+        metrics.recordValidation(null, System.nanoTime() - start);
+        metrics.recordError(error);
+        ValidationEvents.commit(event, null, null, jsonSource.length(), 1);
+        return new ValidationResult(null, Collections.singletonList(error));
     }
 
-    public List<ConformanceError> validateResponse(String requestUrl, Object response, String operationId, ResponseCode responseCode) {
+    public List<ConformanceError> validatePayloadStreaming(byte[] jsonData) {
+        return validatePayloadStreaming(JsonSource.of(jsonData));
+    }
+
+    /**
+     * Finding the candidate models needs the top level property names before the payload is validated, so the
+     * payload is read into memory first. Use {@link #validatePayloadStreaming(InputStream, Class)} when the model
+     * is known to validate the payload as it is read.
+     */
+    public List<ConformanceError> validatePayloadStreaming(InputStream inputStream) {
+        try {
+            return validatePayloadStreaming(readPooled(inputStream));
+        } catch (IOException e) {
+            return Collections.singletonList(new ConformanceError().errorMessage(
+                "Failed to read payload: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Validates the payload against the given model in a single pass over the stream, without buffering it.
+     */
+    public List<ConformanceError> validatePayloadStreaming(InputStream inputStream, Class<?> model) {
+        Object event = ValidationEvents.begin(ValidationEvents.Kind.PAYLOAD_VALIDATION);
+        ValidationMetrics metrics = Metrics.get();
+        long start = System.nanoTime();
         List<ConformanceError> errors = new ArrayList<>();
+        try {
+            if (!StreamingValidator.validate(inputStream, model, errors)) {
+                errors = Collections.singletonList(new ConformanceError()
+                    .errorType(ConformanceError.Type.NO_MATCHING_MODEL)
+                    .errorMessage("Payload does not match model " + model.getSimpleName()));
+            }
+        } catch (IOException e) {
+            errors = Collections.singletonList(new ConformanceError().errorMessage(
+                "Failed to read payload: " + e.getMessage()
+            ));
+        }
+        metrics.recordValidation(model, System.nanoTime() - start);
+        Metrics.recordErrors(errors);
+        ValidationEvents.commit(event, model, null, -1, errors.size());
+        return errors;
+    }
+
+    public List<ConformanceError> validatePayloadStreaming(JsonSource jsonSource) {
+        Object event = ValidationEvents.begin(ValidationEvents.Kind.PAYLOAD_VALIDATION);
+        ValidationMetrics metrics = Metrics.get();
+        long start = System.nanoTime();
+        List<Class<?>> candidateModels = findCandidateModels(jsonSource);
+        long matchingStart = System.nanoTime();
+        metrics.recordStage(ValidationMetrics.Stage.PARSE, matchingStart - start);
+        int candidatesTried = 0;
+        for (Class<?> modelClass : candidateModels) {
+            candidatesTried++;
+            List<ConformanceError> errors = new ArrayList<>();
+            try {
+                if (StreamingValidator.validate(jsonSource, modelClass, errors)) {
+                    long end = System.nanoTime();
+                    metrics.recordStage(ValidationMetrics.Stage.MODEL_MATCHING, end - matchingStart);
+                    metrics.recordCandidatesTried(candidatesTried);
+                    metrics.recordValidation(modelClass, end - start);
+                    Metrics.recordErrors(errors);
+                    ValidationEvents.commit(event, modelClass, null, jsonSource.length(), errors.size());
+                    LOGGER.debug("Found matching model " + modelClass.getSimpleName());
+                    return errors;
+                }
+            } catch (IOException e) {
+                break;
+            }
+        }
+        metrics.recordStage(ValidationMetrics.Stage.MODEL_MATCHING, System.nanoTime() - matchingStart);
+        metrics.recordCandidatesTried(candidatesTried);
+        return noMatchingModel(jsonSource, event, metrics, start).getErrors();
+    }
+
+    private static byte[] borrowBuffer(int minSize) {
+        byte[] buffer = BUFFERS.get();
+        if (buffer.length < minSize) {
+            buffer = new byte[Math.max(minSize, buffer.length * 2)];
+            if (buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+                BUFFERS.set(buffer);
+            }
+        }
+        return buffer;
+    }
+
+    private static JsonSource readPooled(InputStream inputStream) throws IOException {
+        byte[] buffer = borrowBuffer(0);
+        int length = 0;
+        int read;
+        while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+                if (buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+                    BUFFERS.set(buffer);
+                }
+            }
+        }
+        return JsonSource.of(buffer, 0, length);
+    }
+
+    private List<Class<?>> findCandidateModels(JsonSource jsonSource) {
+        try (JsonParser parser = jsonSource.createParser(JSON_FACTORY)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                return conformanceModel.getCandidateModels(readPropertyNames(parser), false);
+            } else if (token == JsonToken.START_ARRAY) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    return conformanceModel.getCandidateModels(readPropertyNames(parser), true);
+                }
+                return conformanceModel.getCandidateModels(Collections.emptySet(), true);
+            }
+        } catch (IOException e) {
+            // not well-formed json, nothing can match
+        }
+        return Collections.emptyList();
+    }
+
+    private Set<String> readPropertyNames(JsonParser parser) throws IOException {
+        Set<String> propertyNames = new HashSet<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            propertyNames.add(parser.getCurrentName());
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return propertyNames;
+    }
+
+    public List<ConformanceError> validateResponse(String requestUrl, Object response, String operationId, ResponseCode responseCode) {
+        return validateResponse(requestUrl, null, response, operationId, responseCode);
+    }
+
+    private List<ConformanceError> validateResponse(String requestUrl, JsonSource body, Object response,
+                                                    String operationId, ResponseCode responseCode) {
         EndpointResponse endpointResponse = conformanceModel.getResponse(operationId, responseCode);
         if (endpointResponse == null) {
             return Collections.singletonList(new ConformanceError().errorMessage(
                 String.format("No response model found for operation %s with response code %s", operationId, responseCode)));
         }
         Class<?> responseModel = endpointResponse.content();
+        if (validationCache == null || body == null) {
+            return checkResponse(requestUrl, response, operationId, responseModel);
+        }
+        long start = System.nanoTime();
+        ValidationCache.Key key = validationCache.key(body, RESPONSE, operationId, responseCode.name(), requestUrl,
+            modelVersion);
+        ValidationResult result = validationCache.get(key);
+        if (result == null) {
+            List<ConformanceError> errors = checkResponse(requestUrl, response, operationId, responseModel);
+            result = validationCache.put(key, new ValidationResult(responseModel, errors));
+        } else {
+            Metrics.get().recordCacheHit(responseModel, System.nanoTime() - start);
+        }
+        return result.getErrors();
+    }
+
+    private List<ConformanceError> checkResponse(String requestUrl, Object response, String operationId,
+                                                 Class<?> responseModel) {
+        List<ConformanceError> errors = new ArrayList<>();
+        Object event = ValidationEvents.begin(ValidationEvents.Kind.RESPONSE_VALIDATION);
+        ValidationMetrics metrics = Metrics.get();
+        long start = System.nanoTime();
         ConformanceUtil.checkAgainstModel(response, responseModel, errors);
-        errors.addAll(checkMetaAndLinks(requestUrl, response));
+        Object linkCheckEvent = ValidationEvents.begin(ValidationEvents.Kind.LINK_CHECK);
+        long linkCheckStart = System.nanoTime();
+        List<ConformanceError> linkErrors = checkMetaAndLinks(requestUrl, response);
+        long end = System.nanoTime();
+        ValidationEvents.commit(linkCheckEvent, responseModel, operationId, -1, linkErrors.size());
+        errors.addAll(linkErrors);
+        metrics.recordStage(ValidationMetrics.Stage.LINK_CHECK, end - linkCheckStart);
+        metrics.recordValidation(responseModel, end - start);
+        Metrics.recordErrors(errors);
+        ValidationEvents.commit(event, responseModel, operationId, -1, errors.size());
         return errors;
     }
 
     public List<ConformanceError> validateResponse(String requestUrl, Object response, String operationId, int httpResponseCode) {
+        return validateResponse(requestUrl, null, response, operationId, httpResponseCode);
+    }
+
+    /**
+     * Validates a response bound from the given body. Validators with a {@link ValidationCache} key the result on
+     * the body as received, responses validated without their body are not cached.
+     */
+    public List<ConformanceError> validateResponse(String requestUrl, JsonSource body, Object response,
+                                                   String operationId, int httpResponseCode) {
         ResponseCode responseCode = ResponseCode.fromCode(httpResponseCode);
         if (responseCode == null) {
             return Collections.singletonList(new ConformanceError().errorMessage(
                 String.format("No response defined with code %d", httpResponseCode)
             ));
         }
-        return validateResponse(requestUrl, response, operationId, responseCode);
+        return validateResponse(requestUrl, body, response, operationId, responseCode);
     }
 
     private List<ConformanceError> checkMetaAndLinks(String requestUrl, Object response) {
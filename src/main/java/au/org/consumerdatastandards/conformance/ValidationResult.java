@@ -0,0 +1,23 @@
+package au.org.consumerdatastandards.conformance;
+
+import java.util.List;
+
+public class ValidationResult {
+
+    private final Class<?> matchedModel;
+
+    private final List<ConformanceError> errors;
+
+    public ValidationResult(Class<?> matchedModel, List<ConformanceError> errors) {
+        this.matchedModel = matchedModel;
+        this.errors = errors;
+    }
+
+    public Class<?> getMatchedModel() {
+        return matchedModel;
+    }
+
+    public List<ConformanceError> getErrors() {
+        return errors;
+    }
+}
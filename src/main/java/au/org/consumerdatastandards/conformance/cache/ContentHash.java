@@ -0,0 +1,72 @@
+package au.org.consumerdatastandards.conformance.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 128 bit MurmurHash3 (x64 variant) of a byte buffer, reading 16 bytes per round straight from the buffer.
+ */
+class ContentHash {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    static long[] hash(ByteBuffer data, long seed) {
+        ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        int length = buffer.remaining();
+        long h1 = seed;
+        long h2 = seed;
+        int blockEnd = start + (length & ~15);
+        for (int i = start; i < blockEnd; i += 16) {
+            long k1 = buffer.getLong(i);
+            long k2 = buffer.getLong(i + 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tailLength = length & 15;
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = tailLength - 1; i >= 0; i--) {
+            long b = buffer.get(blockEnd + i) & 0xffL;
+            if (i >= 8) {
+                k2 ^= b << ((i - 8) * 8);
+            } else {
+                k1 ^= b << (i * 8);
+            }
+        }
+        if (tailLength > 8) h2 ^= mixK2(k2);
+        if (tailLength > 0) h1 ^= mixK1(k1);
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,526 @@
+package au.org.consumerdatastandards.conformance.cache;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ValidationResult;
+import au.org.consumerdatastandards.conformance.util.AnnotationProxy;
+import au.org.consumerdatastandards.conformance.util.JsonSource;
+import au.org.consumerdatastandards.support.data.CDSDataType;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content addressed cache of validation results, keyed by a 128 bit hash of the payload bytes and of the context
+ * the payload was validated in (operation, response code, request url, model version). Results are kept in a
+ * bounded in-memory LRU tier and, if a directory is given, in a persistent on-disk tier which survives restarts.
+ * <p>
+ * Without a directory, the data json of cached errors is still rendered on first use, so a result holds on to the
+ * validated data until then or until it is evicted. Results written to disk are rendered and no longer reference
+ * the validated data; there the error field is stored by name and error field values other than strings,
+ * booleans and numbers are stored in their string form.
+ * <p>
+ * The on-disk tier is bounded by its total file size (1 GiB by default). When a write takes it past the bound,
+ * the least recently used results are deleted until it is back to three quarters of it; results read from disk
+ * count as used. Caches are thread safe and can be shared by any number of validators, but a directory must only
+ * be used by one cache at a time.
+ */
+public class ValidationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationCache.class);
+
+    private static final int MAGIC = 0x43445652;
+
+    private static final int FORMAT_VERSION = 2;
+
+    public static final long DEFAULT_MAXIMUM_DISK_SIZE = 1L << 30;
+
+    private final Path directory;
+
+    private final long maximumDiskSize;
+
+    // total size of the files in the directory, -1 until first needed
+    private long diskSize = -1;
+
+    private final Map<Key, ValidationResult> entries;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder diskHitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder diskEvictionCount = new LongAdder();
+
+    public ValidationCache(int maximumSize) {
+        this(maximumSize, null);
+    }
+
+    public ValidationCache(int maximumSize, Path directory) {
+        this(maximumSize, directory, DEFAULT_MAXIMUM_DISK_SIZE);
+    }
+
+    /**
+     * Creates a cache holding up to the given number of results in memory and, if the directory is not null,
+     * results of up to the given total size in bytes in the directory.
+     */
+    public ValidationCache(int maximumSize, Path directory, long maximumDiskSize) {
+        this.directory = directory;
+        this.maximumDiskSize = maximumDiskSize;
+        this.entries = new LinkedHashMap<Key, ValidationResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ValidationResult> eldest) {
+                if (size() > maximumSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Key key(JsonSource content, String... context) {
+        long[] contentHash = ContentHash.hash(content.asByteBuffer(), 0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(contentHash[0]);
+            out.writeLong(contentHash[1]);
+            for (String value : context) {
+                writeString(out, value);
+            }
+        } catch (IOException e) {
+            throw new Error(e); // should never happen
+        }
+        long[] hash = ContentHash.hash(ByteBuffer.wrap(bytes.toByteArray()), 0);
+        return new Key(hash[0], hash[1]);
+    }
+
+    /**
+     * Returns the cached result, from memory or else from disk, or null if there is none.
+     */
+    public ValidationResult get(Key key) {
+        ValidationResult result;
+        synchronized (entries) {
+            result = entries.get(key);
+        }
+        if (result == null && directory != null) {
+            result = read(key);
+            if (result != null) {
+                diskHitCount.increment();
+                synchronized (entries) {
+                    entries.put(key, result);
+                }
+            }
+        }
+        if (result == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Stores a copy of the result and returns it, the same unmodifiable form {@link #get} returns.
+     */
+    public ValidationResult put(Key key, ValidationResult result) {
+        List<ConformanceError> errors = new ArrayList<>(result.getErrors().size());
+        for (ConformanceError error : result.getErrors()) {
+            errors.add(directory == null ? error.copy() : error.detach());
+        }
+        ValidationResult cached = new ValidationResult(result.getMatchedModel(), Collections.unmodifiableList(errors));
+        synchronized (entries) {
+            entries.put(key, cached);
+        }
+        if (directory != null) {
+            write(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Discards the in-memory results; the on-disk ones are kept.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hitCount.sum(), diskHitCount.sum(), missCount.sum(), evictionCount.sum(),
+            diskEvictionCount.sum(), size);
+    }
+
+    private Path getFile(Key key) {
+        String name = key.toString();
+        return directory.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private ValidationResult read(Key key) {
+        Path file = getFile(key);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                || in.readLong() != key.high || in.readLong() != key.low) {
+                return null;
+            }
+            String modelName = readString(in);
+            Class<?> matchedModel = modelName == null ? null : Class.forName(modelName);
+            int errorCount = in.readInt();
+            List<ConformanceError> errors = new ArrayList<>(errorCount);
+            for (int i = 0; i < errorCount; i++) {
+                errors.add(readError(in));
+            }
+            touch(file);
+            return new ValidationResult(matchedModel, Collections.unmodifiableList(errors));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Failed to read cached validation result " + file + ": " + e);
+            return null;
+        }
+    }
+
+    private void write(Key key, ValidationResult result) {
+        Path file = getFile(key);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(key.high);
+                out.writeLong(key.low);
+                writeString(out, result.getMatchedModel() == null ? null : result.getMatchedModel().getName());
+                out.writeInt(result.getErrors().size());
+                for (ConformanceError error : result.getErrors()) {
+                    writeError(out, error);
+                }
+            }
+            long replacedSize = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            addDiskSize(Files.size(file) - replacedSize);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save cached validation result " + file + ": " + e);
+            try {
+                if (tempFile != null) Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // nothing else to do
+            }
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // only makes the result look older
+        }
+    }
+
+    private synchronized void addDiskSize(long delta) throws IOException {
+        if (diskSize < 0) {
+            diskSize = listFiles().stream().mapToLong(CacheFile::getSize).sum();
+        } else {
+            diskSize += delta;
+        }
+        if (diskSize > maximumDiskSize) {
+            trimDisk();
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the directory is back to three quarters of its maximum size.
+     */
+    private void trimDisk() throws IOException {
+        List<CacheFile> files = listFiles();
+        files.sort(Comparator.comparingLong(CacheFile::getLastModified));
+        long size = files.stream().mapToLong(CacheFile::getSize).sum();
+        long targetSize = maximumDiskSize / 4 * 3;
+        for (Iterator<CacheFile> iterator = files.iterator(); iterator.hasNext() && size > targetSize; ) {
+            CacheFile file = iterator.next();
+            try {
+                Files.deleteIfExists(file.path);
+                size -= file.size;
+                diskEvictionCount.increment();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete cached validation result " + file.path + ": " + e);
+            }
+        }
+        diskSize = size;
+    }
+
+    private List<CacheFile> listFiles() throws IOException {
+        List<CacheFile> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        Files.walkFileTree(directory, Collections.emptySet(), 2, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && !file.getFileName().toString().endsWith(".tmp")) {
+                    files.add(new CacheFile(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // deleted by a concurrent trim
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    private static void writeError(DataOutputStream out, ConformanceError error) throws IOException {
+        writeString(out, error.getErrorType() == null ? null : error.getErrorType().name());
+        writeString(out, error.getDescription());
+        writeString(out, error.getErrorMessage());
+        writeString(out, error.getDataJson());
+        Field errorField = error.getErrorField();
+        writeString(out, errorField == null ? null : errorField.getDeclaringClass().getName());
+        writeString(out, errorField == null ? null : errorField.getName());
+        writeValue(out, error.getErrorFieldValue());
+        writeString(out, error.getCdsDataType() == null ? null : error.getCdsDataType().value().name());
+    }
+
+    private static ConformanceError readError(DataInputStream in) throws IOException, ReflectiveOperationException {
+        String errorType = readString(in);
+        ConformanceError error = new ConformanceError()
+            .errorType(errorType == null ? null : ConformanceError.Type.valueOf(errorType))
+            .description(readString(in))
+            .errorMessage(readString(in));
+        String dataJson = readString(in);
+        if (dataJson != null) {
+            error.dataJson(dataJson);
+        }
+        String className = readString(in);
+        String fieldName = readString(in);
+        if (className != null) {
+            error.errorField(Class.forName(className, false, ValidationCache.class.getClassLoader())
+                .getDeclaredField(fieldName));
+        }
+        error.errorFieldValue(readValue(in));
+        String customDataType = readString(in);
+        if (customDataType != null) {
+            error.cdsDataType(AnnotationProxy.of(CDSDataType.class,
+                Collections.<String, Object>singletonMap("value", CustomDataType.valueOf(customDataType))));
+        }
+        return error;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte('N');
+        } else if (value instanceof Boolean) {
+            out.writeByte('Z');
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte('I');
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte('J');
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte('D');
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte('d');
+            writeString(out, value.toString());
+        } else if (value instanceof BigInteger) {
+            out.writeByte('i');
+            writeString(out, value.toString());
+        } else {
+            out.writeByte('s');
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case 'N':
+                return null;
+            case 'Z':
+                return in.readBoolean();
+            case 'I':
+                return in.readInt();
+            case 'J':
+                return in.readLong();
+            case 'D':
+                return in.readDouble();
+            case 'd':
+                return new BigDecimal(readString(in));
+            case 'i':
+                return new BigInteger(readString(in));
+            case 's':
+                return readString(in);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        if (length > in.available()) throw new EOFException("String of " + length + " bytes past the end");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class CacheFile {
+
+        private final Path path;
+
+        private final long size;
+
+        private final long lastModified;
+
+        CacheFile(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    public static final class Key {
+
+        private final long high;
+
+        private final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high ^ low);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+    }
+
+    public static class Stats {
+
+        private final long hitCount;
+
+        private final long diskHitCount;
+
+        private final long missCount;
+
+        private final long evictionCount;
+
+        private final long diskEvictionCount;
+
+        private final int size;
+
+        Stats(long hitCount, long diskHitCount, long missCount, long evictionCount, long diskEvictionCount,
+              int size) {
+            this.hitCount = hitCount;
+            this.diskHitCount = diskHitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.diskEvictionCount = diskEvictionCount;
+            this.size = size;
+        }
+
+        /**
+         * Returns the number of lookups which found a result, in memory or on disk.
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getDiskHitCount() {
+            return diskHitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * Returns the number of results deleted from disk to keep the directory within its maximum size.
+         */
+        public long getDiskEvictionCount() {
+            return diskEvictionCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long lookupCount = hitCount + missCount;
+            return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hits (%d from disk), %d misses, %.1f%% hit rate, %d evictions (%d from disk), "
+                + "%d in memory", hitCount, diskHitCount, missCount, getHitRate() * 100, evictionCount,
+                diskEvictionCount, size);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package au.org.consumerdatastandards.conformance.cli;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.ValidationResult;
+import au.org.consumerdatastandards.conformance.cache.ValidationCache;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelRegistry;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Validates every payload file under a directory tree on a bounded pool of workers. One NDJSON record
+ * (file, matched model, errors, elapsed time) is written per file as soon as it is validated, and a summary
+ * of throughput and the slowest files is printed to stderr at the end.
+ * <p>
+ * Usage: {@code java -jar cds-conformance-<version>-cli.jar <directory> [--threads n] [--glob pattern]
+ * [--output file] [--slowest n] [--snapshot file] [--cache-size n] [--cache-dir directory]}
+ */
+public class BulkValidator {
+
+    private static final String USAGE = "Usage: java -jar cds-conformance-cli.jar <directory> "
+        + "[--threads n] [--glob pattern] [--output file] [--slowest n] [--snapshot file] "
+        + "[--cache-size n] [--cache-dir directory]";
+
+    private final PayloadValidator payloadValidator;
+
+    private final int threads;
+
+    private final int slowestCount;
+
+    private final JsonGenerator generator;
+
+    private final PriorityQueue<FileResult> slowest = new PriorityQueue<>(Comparator.comparingLong(r -> r.elapsedNanos));
+
+    private final AtomicInteger fileCount = new AtomicInteger();
+
+    private final AtomicInteger failedFileCount = new AtomicInteger();
+
+    private final AtomicLong byteCount = new AtomicLong();
+
+    public BulkValidator(PayloadValidator payloadValidator, int threads, int slowestCount, OutputStream output) throws IOException {
+        this.payloadValidator = payloadValidator;
+        this.threads = threads;
+        this.slowestCount = slowestCount;
+        this.generator = new JsonFactory().createGenerator(output, JsonEncoding.UTF8);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // keep stdout for the NDJSON records, must be set before any logger is created
+        System.setProperty("CONSOLE_LOG_TARGET", "System.err");
+        Path root = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int slowestCount = 10;
+        String glob = "*.json";
+        String output = null;
+        int cacheSize = 0;
+        Path cacheDirectory = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 == args.length) {
+                exitWithUsage();
+            }
+            try {
+                switch (args[i]) {
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--glob":
+                        glob = args[++i];
+                        break;
+                    case "--output":
+                        output = args[++i];
+                        break;
+                    case "--slowest":
+                        slowestCount = Integer.parseInt(args[++i]);
+                        break;
+                    case "--snapshot":
+                        System.setProperty(ConformanceModelRegistry.SNAPSHOT_PROPERTY, args[++i]);
+                        break;
+                    case "--cache-size":
+                        cacheSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--cache-dir":
+                        cacheDirectory = Paths.get(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || root != null) {
+                            exitWithUsage();
+                        }
+                        root = Paths.get(args[i]);
+                }
+            } catch (NumberFormatException | InvalidPathException e) {
+                exitWithUsage();
+            }
+        }
+        if (root == null || !Files.isDirectory(root) || threads < 1 || slowestCount < 0) {
+            exitWithUsage();
+        }
+        PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+        ValidationCache validationCache = cacheSize > 0 || cacheDirectory != null
+            ? new ValidationCache(cacheSize > 0 ? cacheSize : 10_000, cacheDirectory) : null;
+        try (OutputStream out = output == null ? new FileOutputStream(FileDescriptor.out) : new FileOutputStream(output)) {
+            PayloadValidator payloadValidator = new PayloadValidator(ConformanceModelRegistry.getConformanceModel(),
+                validationCache);
+            BulkValidator bulkValidator = new BulkValidator(payloadValidator, threads, slowestCount,
+                new BufferedOutputStream(out));
+            Summary summary = bulkValidator.validate(root, matcher);
+            summary.print(System.err);
+            if (validationCache != null) {
+                System.err.println("Cache: " + validationCache.getStats());
+            }
+            System.exit(summary.failedFileCount > 0 ? 1 : 0);
+        }
+    }
+
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    public Summary validate(Path root, PathMatcher matcher) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);
+        long start = System.nanoTime();
+        try (Stream<Path> paths = Files.walk(root)) {
+            Iterator<Path> iterator = paths
+                .filter(path -> Files.isRegularFile(path) && matcher.matches(path.getFileName()))
+                .iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        write(validate(path));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            synchronized (generator) {
+                generator.flush();
+            }
+        }
+        List<FileResult> slowestFiles = new ArrayList<>(slowest);
+        slowestFiles.sort(Comparator.comparingLong((FileResult r) -> r.elapsedNanos).reversed());
+        return new Summary(fileCount.get(), failedFileCount.get(), byteCount.get(),
+            System.nanoTime() - start, slowestFiles);
+    }
+
+    private FileResult validate(Path path) {
+        long start = System.nanoTime();
+        ValidationResult result;
+        try {
+            byteCount.addAndGet(Files.size(path));
+            result = payloadValidator.validate(path);
+        } catch (IOException e) {
+            result = new ValidationResult(null, Collections.singletonList(
+                new ConformanceError().errorMessage("Failed to load file " + path + ": " + e.getMessage())));
+        } catch (RuntimeException e) {
+            result = new ValidationResult(null, Collections.singletonList(
+                new ConformanceError().errorMessage("Failed to validate file " + path + ": " + e)));
+        }
+        FileResult fileResult = new FileResult(path, result, System.nanoTime() - start);
+        fileCount.incrementAndGet();
+        if (!result.getErrors().isEmpty()) {
+            failedFileCount.incrementAndGet();
+        }
+        synchronized (slowest) {
+            slowest.add(fileResult);
+            if (slowest.size() > slowestCount) slowest.poll();
+        }
+        return fileResult;
+    }
+
+    private void write(FileResult fileResult) {
+        synchronized (generator) {
+            try {
+                generator.writeStartObject();
+                generator.writeStringField("file", fileResult.path.toString());
+                Class<?> matchedModel = fileResult.result.getMatchedModel();
+                generator.writeStringField("model", matchedModel == null ? null : matchedModel.getSimpleName());
+                generator.writeNumberField("elapsedMillis", fileResult.elapsedNanos / 1_000_000.0);
+                generator.writeArrayFieldStart("errors");
+                for (ConformanceError error : fileResult.result.getErrors()) {
+                    generator.writeStartObject();
+                    ConformanceError.Type errorType = error.getErrorType();
+                    generator.writeStringField("type", errorType == null ? null : errorType.name());
+                    generator.writeStringField("description", error.getDescription());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class FileResult {
+
+        private final Path path;
+
+        private final ValidationResult result;
+
+        private final long elapsedNanos;
+
+        FileResult(Path path, ValidationResult result, long elapsedNanos) {
+            this.path = path;
+            this.result = result;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    public static class Summary {
+
+        private final int fileCount;
+
+        private final int failedFileCount;
+
+        private final long byteCount;
+
+        private final long elapsedNanos;
+
+        private final List<FileResult> slowestFiles;
+
+        Summary(int fileCount, int failedFileCount, long byteCount, long elapsedNanos, List<FileResult> slowestFiles) {
+            this.fileCount = fileCount;
+            this.failedFileCount = failedFileCount;
+            this.byteCount = byteCount;
+            this.elapsedNanos = elapsedNanos;
+            this.slowestFiles = slowestFiles;
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        public int getFailedFileCount() {
+            return failedFileCount;
+        }
+
+        public void print(PrintStream out) {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            out.println(String.format("Validated %d files (%d with errors, %.1f MB) in %.2f s: %.1f files/s, %.1f MB/s",
+                fileCount, failedFileCount, byteCount / 1_048_576.0, seconds,
+                fileCount / seconds, byteCount / 1_048_576.0 / seconds));
+            if (!slowestFiles.isEmpty()) {
+                out.println("Slowest files:");
+                for (FileResult fileResult : slowestFiles) {
+                    out.println(String.format("  %10.1f ms  %s", fileResult.elapsedNanos / 1_000_000.0, fileResult.path));
+                }
+            }
+        }
+    }
+}
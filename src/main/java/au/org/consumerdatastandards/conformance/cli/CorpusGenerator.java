@@ -0,0 +1,106 @@
+package au.org.consumerdatastandards.conformance.cli;
+
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a corpus of generated payloads for an operation's response or a model class to a directory.
+ * <p>
+ * Usage: {@code java -cp cds-conformance-<version>-cli.jar au.org.consumerdatastandards.conformance.cli.CorpusGenerator
+ * <directory> (--operation id | --model class) [--files n] [--size n] [--collection property=n]...
+ * [--mutation-rate r] [--mutations type,...] [--seed n]}
+ */
+public class CorpusGenerator {
+
+    private static final String USAGE = "Usage: CorpusGenerator <directory> (--operation id | --model class) "
+        + "[--files n] [--size n] [--collection property=n]... [--mutation-rate r] [--mutations type,...] [--seed n]";
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("CONSOLE_LOG_TARGET", "System.err");
+        Path directory = null;
+        String operationId = null;
+        String modelName = null;
+        int fileCount = 1;
+        double mutationRate = 0;
+        List<PayloadGenerator.Mutation> mutations = new ArrayList<>();
+        PayloadGenerator payloadGenerator = new PayloadGenerator();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--operation":
+                    operationId = args[++i];
+                    break;
+                case "--model":
+                    modelName = args[++i];
+                    break;
+                case "--files":
+                    fileCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--size":
+                    payloadGenerator.defaultCollectionSize(Integer.parseInt(args[++i]));
+                    break;
+                case "--collection":
+                    String[] collection = args[++i].split("=");
+                    payloadGenerator.collectionSize(collection[0], Integer.parseInt(collection[1]));
+                    break;
+                case "--mutation-rate":
+                    mutationRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--mutations":
+                    for (String mutation : args[++i].split(",")) {
+                        mutations.add(PayloadGenerator.Mutation.valueOf(mutation.trim()));
+                    }
+                    break;
+                case "--seed":
+                    payloadGenerator.seed(Long.parseLong(args[++i]));
+                    break;
+                default:
+                    directory = Paths.get(args[i]);
+            }
+        }
+        if (directory == null || (operationId == null) == (modelName == null)) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Class<?> model;
+        if (operationId != null) {
+            ConformanceModel conformanceModel = ConformanceModelRegistry.getConformanceModel();
+            model = PayloadGenerator.getResponseModel(conformanceModel, operationId);
+            if (model == null) {
+                System.err.println("No response model found for operation " + operationId);
+                System.exit(2);
+            }
+        } else {
+            model = Class.forName(modelName);
+        }
+        if (mutationRate > 0) {
+            payloadGenerator.mutations(mutationRate, mutations.toArray(new PayloadGenerator.Mutation[0]));
+        }
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        long byteCount = 0;
+        for (int i = 1; i <= fileCount; i++) {
+            Path file = directory.resolve(String.format("%s-%06d.json", model.getSimpleName(), i));
+            write(payloadGenerator, model, file);
+            byteCount += Files.size(file);
+        }
+        System.err.println(String.format("Generated %d %s files (%.1f MB) in %.2f s, mutations: %s",
+            fileCount, model.getSimpleName(), byteCount / 1_048_576.0, (System.nanoTime() - start) / 1_000_000_000.0,
+            payloadGenerator.getMutationCounts()));
+    }
+
+    private static void write(PayloadGenerator payloadGenerator, Class<?> model, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+            payloadGenerator.generate(model, out);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the most recent request/response exchanges of the transports it wraps in a bounded ring buffer, so they
+ * can be written out when something goes wrong instead of logging every exchange as it happens. At most the given
+ * number of exchanges are kept, the oldest are dropped first, and of each response body only the first bytes up
+ * to the given size, as the body is read by its consumer. Thread safe.
+ */
+public class ExchangeCapture {
+
+    private final int maxExchanges;
+
+    private final int maxBodyBytes;
+
+    private final Deque<Exchange> exchanges;
+
+    private long droppedCount;
+
+    public ExchangeCapture(int maxExchanges, int maxBodyBytes) {
+        if (maxExchanges < 1) {
+            throw new IllegalArgumentException("maxExchanges must be at least 1, got " + maxExchanges);
+        }
+        this.maxExchanges = maxExchanges;
+        this.maxBodyBytes = maxBodyBytes;
+        this.exchanges = new ArrayDeque<>(maxExchanges);
+    }
+
+    /**
+     * Returns a transport sending requests through the given one and capturing its exchanges here.
+     */
+    public Transport wrap(Transport transport) {
+        return new CapturingTransport(transport);
+    }
+
+    /**
+     * Removes and returns the captured exchanges, oldest first.
+     */
+    public List<Exchange> drain() {
+        synchronized (exchanges) {
+            List<Exchange> drained = new ArrayList<>(exchanges);
+            exchanges.clear();
+            return drained;
+        }
+    }
+
+    /**
+     * Removes and returns the captured exchanges of the given urls, oldest first, and leaves the others.
+     */
+    public List<Exchange> drain(Collection<String> urls) {
+        Set<String> urlSet = new HashSet<>(urls);
+        List<Exchange> drained = new ArrayList<>();
+        synchronized (exchanges) {
+            Iterator<Exchange> iterator = exchanges.iterator();
+            while (iterator.hasNext()) {
+                Exchange exchange = iterator.next();
+                if (urlSet.contains(exchange.request.getUrl())) {
+                    drained.add(exchange);
+                    iterator.remove();
+                }
+            }
+        }
+        return drained;
+    }
+
+    public void clear() {
+        synchronized (exchanges) {
+            exchanges.clear();
+        }
+    }
+
+    /**
+     * Returns the number of exchanges dropped so far to make room for newer ones.
+     */
+    public long getDroppedCount() {
+        synchronized (exchanges) {
+            return droppedCount;
+        }
+    }
+
+    private Exchange capture(TransportRequest request, TransportResponse response) {
+        Exchange exchange = new Exchange(request, response.getStatusCode(), response.getHeaders(),
+            response.getTiming(), maxBodyBytes);
+        synchronized (exchanges) {
+            if (exchanges.size() == maxExchanges) {
+                exchanges.removeFirst();
+                droppedCount++;
+            }
+            exchanges.addLast(exchange);
+        }
+        return exchange;
+    }
+
+    private class CapturingTransport implements Transport {
+
+        private final Transport transport;
+
+        CapturingTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        @Override
+        public CompletableFuture<TransportResponse> send(TransportRequest request) {
+            return transport.send(request).thenApply(response -> capturing(request, response));
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request) throws IOException {
+            return capturing(request, transport.execute(request));
+        }
+
+        private TransportResponse capturing(TransportRequest request, TransportResponse response) {
+            Exchange exchange = capture(request, response);
+            InputStream body = new FilterInputStream(response.getBody()) {
+
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) exchange.appendBody(b);
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int count = super.read(buffer, offset, length);
+                    if (count > 0) exchange.appendBody(buffer, offset, count);
+                    return count;
+                }
+            };
+            return new TransportResponse(response.getStatusCode(), response.getHeaders(), body,
+                response.getTiming());
+        }
+
+        @Override
+        public void close() throws IOException {
+            transport.close();
+        }
+    }
+
+    public static class Exchange {
+
+        private final TransportRequest request;
+
+        private final int statusCode;
+
+        private final Map<String, List<String>> headers;
+
+        private final TransportTiming timing;
+
+        private final int maxBodyBytes;
+
+        private byte[] body = new byte[0];
+
+        private int bodyLength;
+
+        private long totalBodyLength;
+
+        Exchange(TransportRequest request, int statusCode, Map<String, List<String>> headers,
+                 TransportTiming timing, int maxBodyBytes) {
+            this.request = request;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.timing = timing;
+            this.maxBodyBytes = Math.max(0, maxBodyBytes);
+        }
+
+        synchronized void appendBody(int b) {
+            if (ensureCapacity(1) > 0) {
+                body[bodyLength++] = (byte) b;
+            }
+            totalBodyLength++;
+        }
+
+        synchronized void appendBody(byte[] buffer, int offset, int length) {
+            int count = ensureCapacity(length);
+            System.arraycopy(buffer, offset, body, bodyLength, count);
+            bodyLength += count;
+            totalBodyLength += length;
+        }
+
+        /**
+         * Grows the body buffer for up to the given number of bytes more, within the size cap, and returns the
+         * number of bytes that fit.
+         */
+        private int ensureCapacity(int length) {
+            int count = Math.min(length, maxBodyBytes - bodyLength);
+            if (bodyLength + count > body.length) {
+                body = Arrays.copyOf(body, Math.min(maxBodyBytes, Math.max(bodyLength + count, body.length * 2)));
+            }
+            return count;
+        }
+
+        public TransportRequest getRequest() {
+            return request;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        public TransportTiming getTiming() {
+            return timing;
+        }
+
+        /**
+         * Returns the captured start of the body, as far as it has been read.
+         */
+        public synchronized String getBody() {
+            return new String(body, 0, bodyLength, StandardCharsets.UTF_8);
+        }
+
+        public synchronized boolean isBodyTruncated() {
+            return totalBodyLength > bodyLength;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(request).append('\n');
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                sb.append(header.getKey()).append(": ").append(header.getValue()).append('\n');
+            }
+            sb.append('\n').append("HTTP ").append(statusCode).append(" (").append(timing).append(")\n");
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                for (String value : header.getValue()) {
+                    sb.append(header.getKey()).append(": ").append(value).append('\n');
+                }
+            }
+            sb.append('\n').append(getBody());
+            synchronized (this) {
+                if (isBodyTruncated()) {
+                    sb.append("\n... ").append(totalBodyLength - bodyLength).append(" more bytes");
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a data holder at a fixed rate of requests per endpoint for a given time and validates every response the
+ * way {@link ProductCatalogueCrawler} and {@link ProductDetailFanOut} do. The load is an open model: requests are
+ * sent on schedule whether or not earlier ones have been answered, and latency is measured from the time a request
+ * was due rather than from the time it was sent, so a slow data holder cannot hide its queueing delay by slowing
+ * the generator down. Responses are validated on a pool of their own, so validation never delays a request.
+ * Latency, failures and conformance errors are counted per endpoint, for the whole run and per interval.
+ * <p>
+ * Requests are sent with {@link Transport#send}, which must not block, e.g. through a {@link PooledTransport} with
+ * enough connections for the rate times the expected latency.
+ */
+public class LoadGenerator {
+
+    static final int MAX_ERROR_SAMPLES = 100;
+
+    private final Transport transport;
+
+    private final ProductCatalogueCrawler crawler;
+
+    private final ProductDetailFanOut fanOut;
+
+    private final int validationThreads;
+
+    private final List<Load> loads = new ArrayList<>();
+
+    private Ticker ticker = Ticker.SYSTEM;
+
+    public LoadGenerator(Transport transport, String apiBasePath, PayloadValidator payloadValidator,
+                         int validationThreads) {
+        if (validationThreads < 1) {
+            throw new IllegalArgumentException("validationThreads must be at least 1, got " + validationThreads);
+        }
+        this.transport = transport;
+        this.crawler = new ProductCatalogueCrawler(transport, apiBasePath, payloadValidator, 1);
+        this.fanOut = new ProductDetailFanOut(transport, apiBasePath, payloadValidator, 1, 0);
+        this.validationThreads = validationThreads;
+    }
+
+    /**
+     * Requests the given /banking/products pages, in turn, at the given rate per second.
+     */
+    public LoadGenerator listProducts(double requestsPerSecond, List<String> pageUrls) {
+        Class<?> responseModel = crawler.getResponseModel();
+        return endpoint(ProductCatalogueCrawler.LIST_PRODUCTS, requestsPerSecond, pageUrls,
+            (index, httpResponse, errors) -> crawler.validatePage(responseModel, index + 1, pageUrls.get(index),
+                httpResponse, errors));
+    }
+
+    /**
+     * Requests the details of the given products, in turn, at the given rate per second.
+     */
+    public LoadGenerator productDetails(double requestsPerSecond, List<String> productIds) {
+        Class<?> responseModel = fanOut.getResponseModel();
+        List<String> urls = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            urls.add(fanOut.productDetailUrl(productId));
+        }
+        return endpoint(ProductDetailFanOut.GET_PRODUCT_DETAIL, requestsPerSecond, urls,
+            (index, httpResponse, errors) -> fanOut.validate(responseModel, productIds.get(index), urls.get(index),
+                httpResponse, errors));
+    }
+
+    /**
+     * Requests the given urls, in turn, at the given rate per second and validates the responses with the given
+     * check, which is passed the index of the url.
+     */
+    LoadGenerator endpoint(String operationId, double requestsPerSecond, List<String> urls, ResponseCheck check) {
+        loads.add(new Load(operationId, requestsPerSecond, urls, check));
+        return this;
+    }
+
+    /**
+     * Uses the given time source instead of the system's.
+     */
+    LoadGenerator ticker(Ticker ticker) {
+        this.ticker = ticker;
+        return this;
+    }
+
+    /**
+     * Runs the load for the given duration, then waits for the outstanding responses and their validation.
+     */
+    public Report run(long durationMillis, long intervalMillis) throws InterruptedException {
+        if (loads.isEmpty()) {
+            throw new IllegalStateException("No endpoint to load");
+        }
+        if (durationMillis <= 0) {
+            throw new IllegalArgumentException("durationMillis must be positive, got " + durationMillis);
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive, got " + intervalMillis);
+        }
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        long durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        Report report = new Report(loads, intervalNanos, (int) ((durationNanos + intervalNanos - 1) / intervalNanos));
+        ExecutorService schedulers = Executors.newFixedThreadPool(loads.size());
+        ExecutorService validators = Executors.newFixedThreadPool(validationThreads);
+        Outstanding outstanding = new Outstanding();
+        long start = ticker.nanoTime();
+        try {
+            List<Future<Void>> scheduled = new ArrayList<>(loads.size());
+            for (Load load : loads) {
+                scheduled.add(schedulers.submit(() -> {
+                    drive(load, start, durationNanos, report, validators, outstanding);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : scheduled) {
+                future.get();
+            }
+            outstanding.awaitNone();
+            report.elapsedNanos = ticker.nanoTime() - start;
+            return report;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InterruptedException) {
+                throw (InterruptedException) e.getCause();
+            }
+            throw new Error(e.getCause()); // should never happen, every failure is counted as an error
+        } finally {
+            schedulers.shutdownNow();
+            validators.shutdownNow();
+        }
+    }
+
+    private void drive(Load load, long start, long durationNanos, Report report, ExecutorService validators,
+                       Outstanding outstanding) throws InterruptedException {
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * 1_000_000_000.0 / load.requestsPerSecond);
+            if (due - start >= durationNanos) {
+                return;
+            }
+            ticker.waitUntil(due);
+            int index = (int) (i % load.urls.size());
+            EndpointStats total = report.totals.get(load.operationId);
+            EndpointStats interval = report.intervals.get((int) ((due - start) / report.intervalNanos))
+                .endpoints.get(load.operationId);
+            total.requests.increment();
+            interval.requests.increment();
+            outstanding.add();
+            CompletableFuture<TransportResponse> response;
+            try {
+                response = transport.send(TransportRequest.getJson(load.urls.get(index), 1));
+            } catch (RuntimeException e) {
+                response = new CompletableFuture<>();
+                response.completeExceptionally(e);
+            }
+            response.whenComplete((httpResponse, failure) -> {
+                long completed = ticker.nanoTime();
+                total.latency.record(completed - due);
+                interval.latency.record(completed - due);
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                    total.failures.increment();
+                    interval.failures.increment();
+                    report.addErrorSamples(Collections.singletonList(new ConformanceError().errorMessage(
+                        String.format("Failed to fetch %s: %s", load.urls.get(index), cause.getMessage()))));
+                    outstanding.done();
+                    return;
+                }
+                validators.execute(() -> {
+                    try {
+                        report.validationDelay.record(ticker.nanoTime() - completed);
+                        validate(load, index, httpResponse, total, interval, report);
+                    } finally {
+                        outstanding.done();
+                    }
+                });
+            });
+        }
+    }
+
+    private static void validate(Load load, int index, TransportResponse httpResponse, EndpointStats total,
+                                 EndpointStats interval, Report report) {
+        List<ConformanceError> errors = new ArrayList<>();
+        try (TransportResponse closing = httpResponse) {
+            load.check.validate(index, closing, errors);
+        } catch (IOException e) {
+            errors.add(new ConformanceError().errorMessage(
+                String.format("Failed to read %s: %s", load.urls.get(index), e.getMessage())));
+        } catch (RuntimeException e) {
+            errors.add(new ConformanceError().errorMessage(
+                String.format("Failed to validate %s: %s", load.urls.get(index), e)));
+        }
+        total.validated.increment();
+        interval.validated.increment();
+        if (!errors.isEmpty()) {
+            total.nonConformant.increment();
+            interval.nonConformant.increment();
+            report.addErrorSamples(errors);
+        }
+    }
+
+    /**
+     * The time source of a run, {@link #SYSTEM} unless replaced in tests.
+     */
+    interface Ticker {
+
+        Ticker SYSTEM = new Ticker() {
+
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void waitUntil(long nanoTime) throws InterruptedException {
+                long delay;
+                while ((delay = nanoTime - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+        };
+
+        long nanoTime();
+
+        /**
+         * Returns once {@link #nanoTime()} has reached the given time.
+         */
+        void waitUntil(long nanoTime) throws InterruptedException;
+    }
+
+    /**
+     * Counts the requests sent and not yet done with, without keeping anything per request.
+     */
+    private static class Outstanding {
+
+        private long count;
+
+        synchronized void add() {
+            count++;
+        }
+
+        synchronized void done() {
+            if (--count == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized void awaitNone() throws InterruptedException {
+            while (count > 0) {
+                wait();
+            }
+        }
+    }
+
+    interface ResponseCheck {
+
+        void validate(int index, TransportResponse httpResponse, List<ConformanceError> errors) throws IOException;
+    }
+
+    private static class Load {
+
+        private final String operationId;
+
+        private final double requestsPerSecond;
+
+        private final List<String> urls;
+
+        private final ResponseCheck check;
+
+        Load(String operationId, double requestsPerSecond, List<String> urls, ResponseCheck check) {
+            if (requestsPerSecond <= 0) {
+                throw new IllegalArgumentException("requestsPerSecond must be positive, got " + requestsPerSecond);
+            }
+            if (urls.isEmpty()) {
+                throw new IllegalArgumentException("No url to request for " + operationId);
+            }
+            this.operationId = operationId;
+            this.requestsPerSecond = requestsPerSecond;
+            this.urls = urls;
+            this.check = check;
+        }
+    }
+
+    /**
+     * The outcome of the requests to one endpoint, for the whole run or for one interval.
+     */
+    public static class EndpointStats {
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder validated = new LongAdder();
+
+        private final LongAdder nonConformant = new LongAdder();
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getRequestCount() {
+            return requests.sum();
+        }
+
+        /**
+         * Returns the number of requests that got no response.
+         */
+        public long getFailureCount() {
+            return failures.sum();
+        }
+
+        public long getValidatedCount() {
+            return validated.sum();
+        }
+
+        public long getNonConformantCount() {
+            return nonConformant.sum();
+        }
+
+        /**
+         * Returns the share of the validated responses that have conformance errors, from 0 to 1.
+         */
+        public double getErrorRate() {
+            long validatedCount = getValidatedCount();
+            return validatedCount == 0 ? 0 : (double) getNonConformantCount() / validatedCount;
+        }
+
+        /**
+         * Returns the latency in nanoseconds from the time each request was due to the time its response arrived.
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+
+    public static class Interval {
+
+        private final long startNanos;
+
+        private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+
+        Interval(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Returns the start of the interval in nanoseconds from the start of the run.
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        /**
+         * Returns the outcome of the requests due in this interval, by operation id.
+         */
+        public Map<String, EndpointStats> getEndpoints() {
+            return endpoints;
+        }
+    }
+
+    public static class Report {
+
+        private final Map<String, Double> targetRates = new LinkedHashMap<>();
+
+        private final Map<String, EndpointStats> totals = new LinkedHashMap<>();
+
+        private final List<Interval> intervals;
+
+        private final long intervalNanos;
+
+        private final LatencyHistogram validationDelay = new LatencyHistogram();
+
+        private final List<ConformanceError> errorSamples = new ArrayList<>();
+
+        private long elapsedNanos;
+
+        Report(List<Load> loads, long intervalNanos, int intervalCount) {
+            this.intervalNanos = intervalNanos;
+            this.intervals = new ArrayList<>(intervalCount);
+            for (int i = 0; i < intervalCount; i++) {
+                intervals.add(new Interval(i * intervalNanos));
+            }
+            for (Load load : loads) {
+                targetRates.put(load.operationId, load.requestsPerSecond);
+                totals.put(load.operationId, new EndpointStats());
+                for (Interval interval : intervals) {
+                    interval.endpoints.put(load.operationId, new EndpointStats());
+                }
+            }
+        }
+
+        private void addErrorSamples(List<ConformanceError> errors) {
+            synchronized (errorSamples) {
+                for (ConformanceError error : errors) {
+                    if (errorSamples.size() == MAX_ERROR_SAMPLES) return;
+                    errorSamples.add(error);
+                }
+            }
+        }
+
+        /**
+         * Returns the outcome of the whole run, by operation id.
+         */
+        public Map<String, EndpointStats> getTotals() {
+            return totals;
+        }
+
+        public List<Interval> getIntervals() {
+            return intervals;
+        }
+
+        /**
+         * Returns the time in nanoseconds responses waited for validation, which grows if the validation threads
+         * cannot keep up with the load.
+         */
+        public LatencyHistogram getValidationDelay() {
+            return validationDelay;
+        }
+
+        /**
+         * Returns the first errors found, at most {@value #MAX_ERROR_SAMPLES}.
+         */
+        public List<ConformanceError> getErrorSamples() {
+            synchronized (errorSamples) {
+                return new ArrayList<>(errorSamples);
+            }
+        }
+
+        public boolean hasErrors() {
+            for (EndpointStats stats : totals.values()) {
+                if (stats.getFailureCount() > 0 || stats.getNonConformantCount() > 0) return true;
+            }
+            return false;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public void print(PrintStream out) {
+            double intervalSeconds = intervalNanos / 1_000_000_000.0;
+            for (Map.Entry<String, Double> entry : targetRates.entrySet()) {
+                out.println(String.format("Target %s %.1f req/s", entry.getKey(), entry.getValue()));
+            }
+            out.println("Latency in ms from the time each request was due, errors in % of the validated responses");
+            out.println(String.format("%8s  %-18s %8s %8s %7s %8s %8s %8s %8s %8s %8s",
+                "from s", "operation", "requests", "req/s", "failed", "errors %", "p50", "p90", "p99", "p99.9",
+                "max"));
+            for (Interval interval : intervals) {
+                for (Map.Entry<String, EndpointStats> entry : interval.endpoints.entrySet()) {
+                    print(out, String.format("%8.1f", interval.startNanos / 1_000_000_000.0), entry.getKey(),
+                        entry.getValue(), intervalSeconds);
+                }
+            }
+            for (Map.Entry<String, EndpointStats> entry : totals.entrySet()) {
+                print(out, String.format("%8s", "total"), entry.getKey(), entry.getValue(),
+                    intervals.size() * intervalSeconds);
+            }
+            out.println(String.format("Validation delay p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                millis(validationDelay.getValueAtPercentile(50)), millis(validationDelay.getValueAtPercentile(99)),
+                millis(validationDelay.getMax())));
+        }
+
+        private static void print(PrintStream out, String from, String operationId, EndpointStats stats,
+                                  double seconds) {
+            LatencyHistogram latency = stats.latency;
+            out.println(String.format("%s  %-18s %8d %8.1f %7d %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f", from,
+                operationId, stats.getRequestCount(), stats.getRequestCount() / seconds, stats.getFailureCount(),
+                stats.getErrorRate() * 100, millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(90)), millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)), millis(latency.getMax())));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport keeping a pool of persistent connections, up to the given number per host. Responses compressed with
+ * gzip or deflate are requested and decoded transparently. {@link #execute} runs on the calling thread and streams
+ * the body from the connection. {@link #send} runs on the transport's own threads (virtual threads on Java 21 and
+ * later) and reads the whole body before completing, so that responses waiting to be consumed never hold on to
+ * the pooled connections other requests are waiting for.
+ */
+public class PooledTransport implements Transport {
+
+    private final CloseableHttpClient httpClient;
+
+    private final ExecutorService executor;
+
+    public PooledTransport(int maxConnections) {
+        this(maxConnections, 10_000, 60_000);
+    }
+
+    public PooledTransport(int maxConnections, int connectTimeoutMillis, int socketTimeoutMillis) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(connectTimeoutMillis)
+            .setConnectionRequestTimeout(socketTimeoutMillis)
+            .setSocketTimeout(socketTimeoutMillis)
+            .build();
+        // keep-alive and gzip/deflate decoding are on by default
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .evictIdleConnections(30, TimeUnit.SECONDS)
+            .build();
+        this.executor = TaskExecutors.newExecutor("transport", maxConnections);
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> send(TransportRequest request) {
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                TransportResponse response = execute(request, start);
+                response.getBodyAsBytes();
+                return response;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        return execute(request, System.nanoTime());
+    }
+
+    private TransportResponse execute(TransportRequest request, long start) throws IOException {
+        HttpGet httpGet = new HttpGet(request.getUrl());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            httpGet.setHeader(header.getKey(), header.getValue());
+        }
+        long sent = System.nanoTime();
+        CloseableHttpResponse response = httpClient.execute(httpGet);
+        TransportTiming timing = new TransportTiming(start, sent, System.nanoTime());
+        Map<String, List<String>> headers = new HashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>(1)).add(header.getValue());
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            response.close();
+            return new TransportResponse(response.getStatusLine().getStatusCode(), headers,
+                new ByteArrayInputStream(new byte[0]), timing);
+        }
+        // closing the content hands the connection back to the pool
+        return new TransportResponse(response.getStatusLine().getStatusCode(), headers, entity.getContent(),
+            timing);
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        httpClient.close();
+    }
+}
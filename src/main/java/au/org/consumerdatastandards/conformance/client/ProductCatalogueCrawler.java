@@ -0,0 +1,417 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import au.org.consumerdatastandards.conformance.util.JsonSource;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import au.org.consumerdatastandards.support.EndpointResponse;
+import au.org.consumerdatastandards.support.ResponseCode;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Walks every page of /banking/products. The first page is fetched to learn the number of pages, the others are
+ * fetched concurrently with at most the given number of requests in flight, and each page is validated with
+ * {@link PayloadValidator#validateResponse} as soon as it arrives. The pages are then checked together: they must
+ * agree on totalRecords and totalPages, hold exactly page-size products each except the last one, add up to
+ * totalRecords and list every product only once.
+ */
+public class ProductCatalogueCrawler {
+
+    public static final String LIST_PRODUCTS = "listProducts";
+
+    static final int DEFAULT_PAGE_SIZE = 25;
+
+    private final Transport transport;
+
+    private final String apiBasePath;
+
+    private final PayloadValidator payloadValidator;
+
+    private final int maxInFlight;
+
+    public ProductCatalogueCrawler(Transport transport, String apiBasePath, PayloadValidator payloadValidator,
+                                   int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1, got " + maxInFlight);
+        }
+        this.transport = transport;
+        this.apiBasePath = apiBasePath;
+        this.payloadValidator = payloadValidator;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Returns the url of a /banking/products request, with the query parameters in the order they are listed in
+     * the standard. Blank and null parameters are left out.
+     */
+    public static String listProductsUrl(String apiBasePath, String effective, String updatedSince, String brand,
+                                         String productCategory, Integer page, Integer pageSize) {
+        StringBuilder url = new StringBuilder(apiBasePath).append("/banking/products");
+        appendParameter(url, "effective", effective);
+        appendParameter(url, "updated-since", updatedSince);
+        appendParameter(url, "brand", brand);
+        appendParameter(url, "product-category", productCategory);
+        appendParameter(url, "page", page == null ? null : page.toString());
+        appendParameter(url, "page-size", pageSize == null ? null : pageSize.toString());
+        return url.toString();
+    }
+
+    private static void appendParameter(StringBuilder url, String name, String value) {
+        if (!StringUtils.isBlank(value)) {
+            url.append(url.indexOf("?") < 0 ? '?' : '&').append(name).append('=').append(value);
+        }
+    }
+
+    /**
+     * Crawls the catalogue. No more pages are fetched than totalRecords needs, whatever totalPages claims; the
+     * pages left out are reported along with the mismatch.
+     */
+    public Result crawl(String effective, String updatedSince, String brand, String productCategory,
+                        Integer pageSize) throws InterruptedException {
+        if (pageSize != null && pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1, got " + pageSize);
+        }
+        int effectivePageSize = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        Class<?> responseModel = getResponseModel();
+        long start = System.nanoTime();
+        Page firstPage = fetch(responseModel, 1,
+            listProductsUrl(apiBasePath, effective, updatedSince, brand, productCategory, 1, pageSize));
+        List<Page> pages = new ArrayList<>();
+        pages.add(firstPage);
+        int lastPage = firstPage.totalRecords == null || firstPage.totalPages == null ? 1
+            : Math.max(1, Math.min(firstPage.totalPages,
+                expectedTotalPages(firstPage.totalRecords, effectivePageSize)));
+        if (lastPage > 1) {
+            ExecutorService executor = TaskExecutors.newExecutor("product-catalogue", maxInFlight);
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            try {
+                List<Future<Page>> futures = new ArrayList<>(lastPage - 1);
+                for (int i = 2; i <= lastPage; i++) {
+                    int pageNumber = i;
+                    String url = listProductsUrl(apiBasePath, effective, updatedSince, brand, productCategory,
+                        pageNumber, pageSize);
+                    inFlight.acquire();
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return fetch(responseModel, pageNumber, url);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+                for (Future<Page> future : futures) {
+                    pages.add(future.get());
+                }
+            } catch (ExecutionException e) {
+                throw new Error(e.getCause()); // should never happen, fetch reports every failure as an error
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        List<ConformanceError> errors = checkCatalogue(pages, effectivePageSize);
+        if (firstPage.totalPages != null && lastPage < firstPage.totalPages) {
+            errors.add(catalogueError(String.format("Pages %d to %d were not fetched, %d records of %d per page "
+                + "need only %d", lastPage + 1, firstPage.totalPages, firstPage.totalRecords, effectivePageSize,
+                lastPage)));
+        }
+        return new Result(pages, errors, System.nanoTime() - start);
+    }
+
+    static int expectedTotalPages(int totalRecords, int pageSize) {
+        return totalRecords <= 0 ? 0 : (totalRecords - 1) / pageSize + 1;
+    }
+
+    Class<?> getResponseModel() {
+        EndpointResponse endpointResponse = payloadValidator.getConformanceModel()
+            .getResponse(LIST_PRODUCTS, ResponseCode.OK);
+        if (endpointResponse == null) {
+            throw new IllegalStateException("No response model found for operation " + LIST_PRODUCTS);
+        }
+        return endpointResponse.content();
+    }
+
+    private Page fetch(Class<?> responseModel, int pageNumber, String url) {
+        long start = System.nanoTime();
+        List<ConformanceError> errors = new ArrayList<>();
+        int statusCode = -1;
+        Object response = null;
+        try (TransportResponse httpResponse = transport.execute(TransportRequest.getJson(url, 1))) {
+            statusCode = httpResponse.getStatusCode();
+            response = validatePage(responseModel, pageNumber, url, httpResponse, errors);
+        } catch (IOException e) {
+            errors.add(new ConformanceError().errorMessage(
+                String.format("Failed to fetch page %d from %s: %s", pageNumber, url, e.getMessage())));
+        } catch (RuntimeException e) {
+            errors.add(new ConformanceError().errorMessage(
+                String.format("Failed to validate page %d from %s: %s", pageNumber, url, e)));
+        }
+        try {
+            return new Page(pageNumber, url, statusCode, response, errors, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            errors.add(new ConformanceError().errorMessage(
+                String.format("Failed to read meta and products of page %d from %s: %s", pageNumber, url, e)));
+            return new Page(pageNumber, url, statusCode, null, errors, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Validates a page, adding the errors found to the given list, and returns the bound response, or null if
+     * the page was not successful.
+     */
+    Object validatePage(Class<?> responseModel, int pageNumber, String url, TransportResponse httpResponse,
+                        List<ConformanceError> errors) throws IOException {
+        int statusCode = httpResponse.getStatusCode();
+        if (statusCode != ResponseCode.OK.getCode()) {
+            errors.add(new ConformanceError().errorType(ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA)
+                .errorMessage(String.format("Page %d returned status %d, expected %d",
+                    pageNumber, statusCode, ResponseCode.OK.getCode())));
+            return null;
+        }
+        String contentType = httpResponse.getContentType();
+        if (contentType == null || !contentType.startsWith("application/json")) {
+            errors.add(new ConformanceError().errorType(ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA)
+                .errorMessage(String.format("Page %d has content-type %s instead of application/json",
+                    pageNumber, contentType)));
+        }
+        byte[] body;
+        try (InputStream content = httpResponse.getBody()) {
+            body = StreamUtils.copyToByteArray(content);
+        }
+        Object response = ObjectMapperRegistry.getReader(responseModel).readValue(body);
+        errors.addAll(payloadValidator.validateResponse(url, JsonSource.of(body), response, LIST_PRODUCTS, statusCode));
+        return response;
+    }
+
+    /**
+     * Checks the pages, in page order, together. Pages that could not be fetched are left out.
+     */
+    static List<ConformanceError> checkCatalogue(List<Page> pages, int pageSize) {
+        List<ConformanceError> errors = new ArrayList<>();
+        Page firstPage = pages.get(0);
+        if (firstPage.response == null) {
+            return errors;
+        }
+        Integer totalRecords = firstPage.totalRecords;
+        Integer totalPages = firstPage.totalPages;
+        if (totalRecords == null || totalPages == null) {
+            errors.add(catalogueError("Missing meta.totalRecords or meta.totalPages on page 1, "
+                + "the remaining pages were not fetched"));
+            return errors;
+        }
+        int expectedTotalPages = expectedTotalPages(totalRecords, pageSize);
+        if (totalPages != expectedTotalPages) {
+            errors.add(catalogueError(String.format("totalPages is %d, expected %d for %d records of %d per page",
+                totalPages, expectedTotalPages, totalRecords, pageSize)));
+        }
+        Map<String, Integer> productPages = new HashMap<>();
+        int productCount = 0;
+        for (Page page : pages) {
+            if (page.response == null) {
+                continue;
+            }
+            if (!totalRecords.equals(page.totalRecords) || !totalPages.equals(page.totalPages)) {
+                errors.add(catalogueError(String.format(
+                    "Page %d has totalRecords %s and totalPages %s, page 1 has totalRecords %d and totalPages %d",
+                    page.number, page.totalRecords, page.totalPages, totalRecords, totalPages)));
+            }
+            int expectedSize;
+            if (page.number < totalPages) {
+                expectedSize = pageSize;
+            } else if (page.number == totalPages) {
+                expectedSize = Math.max(0, totalRecords - (totalPages - 1) * pageSize);
+            } else {
+                // page 1 of an empty catalogue, which has no pages
+                expectedSize = 0;
+            }
+            if (page.productIds.size() != expectedSize) {
+                errors.add(catalogueError(String.format("Page %d has %d products, expected %d",
+                    page.number, page.productIds.size(), expectedSize)));
+            }
+            productCount += page.productIds.size();
+            for (String productId : page.productIds) {
+                Integer otherPage = productPages.putIfAbsent(productId, page.number);
+                if (otherPage != null) {
+                    errors.add(catalogueError(String.format("Product %s is listed on page %d and on page %d",
+                        productId, otherPage, page.number)));
+                }
+            }
+        }
+        boolean allPagesFetched = pages.stream().allMatch(page -> page.response != null);
+        if (allPagesFetched && productCount != totalRecords) {
+            errors.add(catalogueError(String.format("The %d pages list %d products, totalRecords is %d",
+                pages.size(), productCount, totalRecords)));
+        }
+        return errors;
+    }
+
+    private static ConformanceError catalogueError(String message) {
+        return new ConformanceError().errorType(ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA)
+            .errorMessage(message);
+    }
+
+    private static Object getFieldValue(Object o, String fieldName) {
+        if (o == null) return null;
+        Field field = FieldUtils.getField(o.getClass(), ConformanceUtil.getFieldName(o, fieldName), true);
+        return field == null ? null : ReflectionUtils.getField(field, o);
+    }
+
+    private static Integer getIntegerValue(Object o, String fieldName) {
+        Object value = getFieldValue(o, fieldName);
+        return value == null ? null : Integer.valueOf(value.toString());
+    }
+
+    public static class Page {
+
+        private final int number;
+
+        private final String url;
+
+        private final int statusCode;
+
+        private final Object response;
+
+        private final List<ConformanceError> errors;
+
+        private final long elapsedNanos;
+
+        private final Integer totalRecords;
+
+        private final Integer totalPages;
+
+        private final List<String> productIds;
+
+        Page(int number, String url, int statusCode, Object response, List<ConformanceError> errors,
+             long elapsedNanos) {
+            this(number, url, statusCode, response, errors, elapsedNanos,
+                getIntegerValue(getFieldValue(response, "meta"), "totalRecords"),
+                getIntegerValue(getFieldValue(response, "meta"), "totalPages"), getProductIds(response));
+        }
+
+        Page(int number, String url, int statusCode, Object response, List<ConformanceError> errors,
+             long elapsedNanos, Integer totalRecords, Integer totalPages, List<String> productIds) {
+            this.number = number;
+            this.url = url;
+            this.statusCode = statusCode;
+            this.response = response;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.totalRecords = totalRecords;
+            this.totalPages = totalPages;
+            this.productIds = productIds;
+        }
+
+        private static List<String> getProductIds(Object response) {
+            List<String> productIds = new ArrayList<>();
+            Object products = getFieldValue(getFieldValue(response, "data"), "products");
+            if (products != null) {
+                for (Object product : (List<?>) products) {
+                    Object productId = getFieldValue(product, "productId");
+                    productIds.add(productId == null ? null : productId.toString());
+                }
+            }
+            return productIds;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the HTTP status code, or -1 if the page could not be fetched.
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Returns the bound response, or null if the page could not be fetched or was not successful.
+         */
+        public Object getResponse() {
+            return response;
+        }
+
+        public List<ConformanceError> getErrors() {
+            return errors;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public List<String> getProductIds() {
+            return productIds;
+        }
+    }
+
+    public static class Result {
+
+        private final List<Page> pages;
+
+        private final List<ConformanceError> catalogueErrors;
+
+        private final long elapsedNanos;
+
+        Result(List<Page> pages, List<ConformanceError> catalogueErrors, long elapsedNanos) {
+            this.pages = pages;
+            this.catalogueErrors = catalogueErrors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the fetched pages in page order.
+         */
+        public List<Page> getPages() {
+            return pages;
+        }
+
+        /**
+         * Returns the errors found by checking the pages together.
+         */
+        public List<ConformanceError> getCatalogueErrors() {
+            return catalogueErrors;
+        }
+
+        /**
+         * Returns the errors of every page followed by the catalogue errors.
+         */
+        public List<ConformanceError> getErrors() {
+            List<ConformanceError> errors = new ArrayList<>();
+            for (Page page : pages) {
+                errors.addAll(page.errors);
+            }
+            errors.addAll(catalogueErrors);
+            return errors;
+        }
+
+        /**
+         * Returns the ids of the listed products in page order, without duplicates.
+         */
+        public List<String> getProductIds() {
+            Set<String> productIds = new LinkedHashSet<>();
+            for (Page page : pages) {
+                for (String productId : page.productIds) {
+                    if (productId != null) productIds.add(productId);
+                }
+            }
+            return new ArrayList<>(productIds);
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import au.org.consumerdatastandards.conformance.util.CustomDataTypeMatchers;
+import au.org.consumerdatastandards.conformance.util.JsonSource;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import au.org.consumerdatastandards.support.EndpointResponse;
+import au.org.consumerdatastandards.support.ResponseCode;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Fetches and validates the details of many products concurrently, with at most the given number of requests in
+ * flight and, if a rate is given, at most that many requests per second to each host. Each detail is validated the
+ * way {@code BankingProductsAPISteps.validateGetProductDetailResponse} does it, and the outcomes are collected into
+ * one {@link Report}. Requests run on virtual threads on Java 21 and later, see {@link TaskExecutors}.
+ */
+public class ProductDetailFanOut {
+
+    public static final String GET_PRODUCT_DETAIL = "getProductDetail";
+
+    private final Transport transport;
+
+    private final String apiBasePath;
+
+    private final PayloadValidator payloadValidator;
+
+    private final int parallelism;
+
+    private final double requestsPerSecondPerHost;
+
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a fan-out with the given parallelism cap and rate limit per host, no rate limit if not positive.
+     */
+    public ProductDetailFanOut(Transport transport, String apiBasePath, PayloadValidator payloadValidator,
+                               int parallelism, double requestsPerSecondPerHost) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        this.transport = transport;
+        this.apiBasePath = apiBasePath;
+        this.payloadValidator = payloadValidator;
+        this.parallelism = parallelism;
+        this.requestsPerSecondPerHost = requestsPerSecondPerHost;
+    }
+
+    public Report fetchAll(Collection<String> productIds) throws InterruptedException {
+        Class<?> responseModel = getResponseModel();
+        long start = System.nanoTime();
+        List<Future<ProductResult>> futures = new ArrayList<>(productIds.size());
+        ExecutorService executor = TaskExecutors.newExecutor("product-detail", parallelism);
+        Semaphore inFlight = new Semaphore(parallelism);
+        try {
+            for (String productId : productIds) {
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return fetch(responseModel, productId);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            List<ProductResult> results = new ArrayList<>(futures.size());
+            for (Future<ProductResult> future : futures) {
+                results.add(future.get());
+            }
+            return new Report(results, System.nanoTime() - start);
+        } catch (ExecutionException e) {
+            throw new Error(e.getCause()); // should never happen, fetch reports every failure as an error
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    Class<?> getResponseModel() {
+        EndpointResponse endpointResponse = payloadValidator.getConformanceModel()
+            .getResponse(GET_PRODUCT_DETAIL, ResponseCode.OK);
+        if (endpointResponse == null) {
+            throw new IllegalStateException("No response model found for operation " + GET_PRODUCT_DETAIL);
+        }
+        return ConformanceUtil.expandModel(endpointResponse.content());
+    }
+
+    /**
+     * Returns the url of the detail of the given product, with the product id encoded as a path segment.
+     */
+    String productDetailUrl(String productId) {
+        try {
+            return apiBasePath + "/banking/products/" + URLEncoder.encode(productId, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new Error(e); // should never happen
+        }
+    }
+
+    private ProductResult fetch(Class<?> responseModel, String productId) throws InterruptedException {
+        String url = productDetailUrl(productId);
+        List<ConformanceError> errors = new ArrayList<>();
+        int statusCode = -1;
+        acquirePermit(url);
+        long start = System.nanoTime();
+        try (TransportResponse httpResponse = transport.execute(TransportRequest.getJson(url, 1))) {
+            statusCode = httpResponse.getStatusCode();
+            validate(responseModel, productId, url, httpResponse, errors);
+        } catch (IOException e) {
+            errors.add(new ConformanceError().errorMessage(
+                String.format("Failed to fetch product %s from %s: %s", productId, url, e.getMessage())));
+        } catch (RuntimeException e) {
+            errors.add(new ConformanceError().errorMessage(
+                String.format("Failed to validate product %s from %s: %s", productId, url, e)));
+        }
+        return new ProductResult(productId, url, statusCode, errors, System.nanoTime() - start);
+    }
+
+    /**
+     * Validates the detail of a product, adding the errors found to the given list. Product ids that are not
+     * ASCII must be rejected with status 400.
+     */
+    void validate(Class<?> responseModel, String productId, String url, TransportResponse httpResponse,
+                  List<ConformanceError> errors) throws IOException {
+        int statusCode = httpResponse.getStatusCode();
+        ResponseCode expectedCode = CustomDataTypeMatchers.matches(CustomDataType.ASCII, productId)
+            ? ResponseCode.OK : ResponseCode.BAD_REQUEST;
+        if (statusCode != expectedCode.getCode()) {
+            errors.add(new ConformanceError().errorType(ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA)
+                .errorMessage(String.format("Product %s returned status %d, expected %d",
+                    productId, statusCode, expectedCode.getCode())));
+        } else if (expectedCode == ResponseCode.OK) {
+            String contentType = httpResponse.getContentType();
+            if (contentType == null || !contentType.startsWith("application/json")) {
+                errors.add(new ConformanceError().errorType(ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA)
+                    .errorMessage(String.format("Product %s has content-type %s instead of application/json",
+                        productId, contentType)));
+            }
+            byte[] body;
+            try (InputStream content = httpResponse.getBody()) {
+                body = StreamUtils.copyToByteArray(content);
+            }
+            Object response = ObjectMapperRegistry.getReader(responseModel).readValue(body);
+            errors.addAll(payloadValidator.validateResponse(url, JsonSource.of(body), response, GET_PRODUCT_DETAIL, statusCode));
+            Object responseProductId = getFieldValue(getFieldValue(response, "data"), "productId");
+            if (!productId.equals(responseProductId)) {
+                errors.add(new ConformanceError().errorType(ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA)
+                    .dataJson(ConformanceUtil.toJson(response)).errorMessage(String.format(
+                        "Response productId %s does not match request productId %s",
+                        responseProductId, productId)));
+            }
+        }
+    }
+
+    private void acquirePermit(String url) throws InterruptedException {
+        if (requestsPerSecondPerHost > 0) {
+            String host;
+            try {
+                host = URI.create(url).getAuthority();
+            } catch (IllegalArgumentException e) {
+                host = null;
+            }
+            rateLimiters.computeIfAbsent(host == null ? "" : host, h -> new RateLimiter(requestsPerSecondPerHost))
+                .acquire();
+        }
+    }
+
+    private static Object getFieldValue(Object o, String fieldName) {
+        if (o == null) return null;
+        Field field = FieldUtils.getField(o.getClass(), ConformanceUtil.getFieldName(o, fieldName), true);
+        return field == null ? null : ReflectionUtils.getField(field, o);
+    }
+
+    public static class ProductResult {
+
+        private final String productId;
+
+        private final String url;
+
+        private final int statusCode;
+
+        private final List<ConformanceError> errors;
+
+        private final long elapsedNanos;
+
+        ProductResult(String productId, String url, int statusCode, List<ConformanceError> errors,
+                      long elapsedNanos) {
+            this.productId = productId;
+            this.url = url;
+            this.statusCode = statusCode;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the HTTP status code, or -1 if the detail could not be fetched.
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public List<ConformanceError> getErrors() {
+            return errors;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    public static class Report {
+
+        private final List<ProductResult> results;
+
+        private final long elapsedNanos;
+
+        Report(List<ProductResult> results, long elapsedNanos) {
+            this.results = results;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the results in the order of the product ids.
+         */
+        public List<ProductResult> getResults() {
+            return results;
+        }
+
+        public List<ProductResult> getFailedResults() {
+            List<ProductResult> failedResults = new ArrayList<>();
+            for (ProductResult result : results) {
+                if (!result.errors.isEmpty()) failedResults.add(result);
+            }
+            return failedResults;
+        }
+
+        public List<ConformanceError> getErrors() {
+            List<ConformanceError> errors = new ArrayList<>();
+            for (ProductResult result : results) {
+                errors.addAll(result.errors);
+            }
+            return errors;
+        }
+
+        /**
+         * Returns the number of errors per error type, errors without a type are counted under null.
+         */
+        public Map<ConformanceError.Type, Integer> getErrorCounts() {
+            Map<ConformanceError.Type, Integer> errorCounts = new HashMap<>();
+            for (ProductResult result : results) {
+                for (ConformanceError error : result.errors) {
+                    errorCounts.merge(error.getErrorType(), 1, Integer::sum);
+                }
+            }
+            return errorCounts;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public void print(PrintStream out) {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            List<ProductResult> failedResults = getFailedResults();
+            out.println(String.format("Fetched %d product details (%d with errors) in %.2f s: %.1f products/s",
+                results.size(), failedResults.size(), seconds, results.size() / seconds));
+            for (Map.Entry<ConformanceError.Type, Integer> entry : getErrorCounts().entrySet()) {
+                out.println(String.format("  %6d  %s", entry.getValue(), entry.getKey()));
+            }
+            for (ProductResult result : failedResults) {
+                out.println(String.format("  %s: %d errors, status %d", result.productId, result.errors.size(),
+                    result.statusCode));
+            }
+        }
+    }
+}
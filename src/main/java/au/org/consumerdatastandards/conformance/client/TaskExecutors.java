@@ -0,0 +1,26 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors running blocking client tasks, such as requests to a data holder. Up to Java 20 these are
+ * pools of daemon platform threads; the Java 21 version of this class, packaged under {@code META-INF/versions/21},
+ * starts a virtual thread per task instead, so callers must bound the number of tasks in flight themselves.
+ */
+public class TaskExecutors {
+
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    public static ExecutorService newExecutor(String name, int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
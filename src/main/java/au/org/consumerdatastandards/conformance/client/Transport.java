@@ -0,0 +1,33 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Sends requests to a data holder. Implementations are thread safe. Responses must be closed, or their body read
+ * to the end, to release the connection they were received on.
+ */
+public interface Transport extends Closeable {
+
+    CompletableFuture<TransportResponse> send(TransportRequest request);
+
+    /**
+     * Sends the request and waits for the response.
+     */
+    default TransportResponse execute(TransportRequest request) throws IOException {
+        try {
+            return send(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.getUrl());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
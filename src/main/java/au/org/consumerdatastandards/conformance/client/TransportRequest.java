@@ -0,0 +1,48 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A GET request of a url, with the query string included in the url.
+ */
+public class TransportRequest {
+
+    private final String url;
+
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    private TransportRequest(String url) {
+        this.url = url;
+    }
+
+    public static TransportRequest get(String url) {
+        return new TransportRequest(url);
+    }
+
+    /**
+     * Returns a GET request of a url with the headers every CDS API request carries.
+     */
+    public static TransportRequest getJson(String url, int version) {
+        return get(url).header("Accept", "application/json").header("x-v", Integer.toString(version));
+    }
+
+    public TransportRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    @Override
+    public String toString() {
+        return "GET " + url;
+    }
+}
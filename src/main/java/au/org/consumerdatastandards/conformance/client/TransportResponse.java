@@ -0,0 +1,119 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The status, headers and body of a response. The body is streamed from the connection by {@link #getBody()}, or
+ * read whole and kept by {@link #getBodyAsBytes()}; closing the response releases the connection.
+ */
+public class TransportResponse implements Closeable {
+
+    private final int statusCode;
+
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    private final InputStream body;
+
+    private final TransportTiming timing;
+
+    private boolean bodyTaken;
+
+    private byte[] bodyBytes;
+
+    public TransportResponse(int statusCode, Map<String, List<String>> headers, InputStream body,
+                             TransportTiming timing) {
+        this.statusCode = statusCode;
+        this.headers.putAll(headers);
+        this.timing = timing;
+        this.body = new FilterInputStream(body) {
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b < 0) timing.bodyEnd();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count < 0) timing.bodyEnd();
+                return count;
+            }
+
+            @Override
+            public void close() throws IOException {
+                timing.bodyEnd();
+                super.close();
+            }
+        };
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Returns the first value of the header, or null if it is missing.
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public String getContentType() {
+        return getHeader("Content-Type");
+    }
+
+    /**
+     * Returns the body as it arrives, decoded if it was compressed. It can only be streamed once, after
+     * {@link #getBodyAsBytes()} it is read from memory.
+     */
+    public synchronized InputStream getBody() {
+        if (bodyBytes != null) {
+            return new ByteArrayInputStream(bodyBytes);
+        }
+        if (bodyTaken) {
+            throw new IllegalStateException("The body has already been read");
+        }
+        bodyTaken = true;
+        return body;
+    }
+
+    public synchronized byte[] getBodyAsBytes() throws IOException {
+        if (bodyBytes == null) {
+            try (InputStream in = getBody()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, count);
+                }
+                bodyBytes = out.toByteArray();
+            }
+        }
+        return bodyBytes;
+    }
+
+    public String getBodyAsString() throws IOException {
+        return new String(getBodyAsBytes(), StandardCharsets.UTF_8);
+    }
+
+    public TransportTiming getTiming() {
+        return timing;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
@@ -0,0 +1,59 @@
+package au.org.consumerdatastandards.conformance.client;
+
+/**
+ * The timing of one exchange: time spent queued before the request was sent, time until the status and headers
+ * were received, and time reading the body, which is known once the body has been read to its end or closed.
+ */
+public class TransportTiming {
+
+    private final long startNanos;
+
+    private final long sentNanos;
+
+    private final long headersNanos;
+
+    private volatile long bodyEndNanos;
+
+    public TransportTiming(long startNanos, long sentNanos, long headersNanos) {
+        this.startNanos = startNanos;
+        this.sentNanos = sentNanos;
+        this.headersNanos = headersNanos;
+    }
+
+    void bodyEnd() {
+        if (bodyEndNanos == 0) {
+            bodyEndNanos = System.nanoTime();
+        }
+    }
+
+    public long getQueuedNanos() {
+        return sentNanos - startNanos;
+    }
+
+    public long getTimeToHeadersNanos() {
+        return headersNanos - sentNanos;
+    }
+
+    /**
+     * Returns the time spent reading the body, or -1 if it has not been read yet.
+     */
+    public long getBodyNanos() {
+        long end = bodyEndNanos;
+        return end == 0 ? -1 : end - headersNanos;
+    }
+
+    /**
+     * Returns the time from sending the request to the end of the body, or to the headers if the body has not
+     * been read yet.
+     */
+    public long getTotalNanos() {
+        long end = bodyEndNanos;
+        return (end == 0 ? headersNanos : end) - startNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queued %.1f ms, headers %.1f ms, body %.1f ms, total %.1f ms",
+            getQueuedNanos() / 1e6, getTimeToHeadersNanos() / 1e6, getBodyNanos() / 1e6, getTotalNanos() / 1e6);
+    }
+}
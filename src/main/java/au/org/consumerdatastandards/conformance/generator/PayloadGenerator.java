@@ -0,0 +1,634 @@
+package au.org.consumerdatastandards.conformance.generator;
+
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.util.CustomDataTypeMatchers;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import au.org.consumerdatastandards.reflection.ReflectionUtil;
+import au.org.consumerdatastandards.support.EndpointResponse;
+import au.org.consumerdatastandards.support.ResponseCode;
+import au.org.consumerdatastandards.support.data.*;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates payloads for CDS models by walking their {@link Property}, {@link CDSDataType} and
+ * {@link DataDefinition} annotations, writing straight to a {@link JsonGenerator} so payloads of any size can be
+ * streamed to disk. Generated payloads are valid unless mutations are enabled, in which case each eligible
+ * property is broken with the mutation rate probability.
+ * <p>
+ * Paginated responses are generated as the page of the pagination request url, their products (or other
+ * collection under data) sized to match the links and meta. Without a total record count the response is the
+ * only page of a collection of the configured size.
+ * <p>
+ * Generators are not thread safe.
+ */
+public class PayloadGenerator {
+
+    public enum Mutation {
+
+        MISSING_REQUIRED,
+
+        PATTERN_NOT_MATCHED,
+
+        NUMBER_OUT_OF_RANGE,
+
+        BROKEN_PAGINATION
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int PAGE_SIZE = 25;
+
+    private static final String DEFAULT_REQUEST_URL = "http://localhost/cds-au/v1/banking/products";
+
+    private static final String[] INVALID_STRINGS = {"not valid", "\u00e9", "-", "0"};
+
+    private static final String[] INVALID_NUMBERS = {"1.5", "-1"};
+
+    private static final Map<Class<?>, List<PropertySpec>> PROPERTY_SPECS = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, Optional<PropertySpec>> PAGED_COLLECTIONS = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, String[]> ENUM_VALUES = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> collectionSizes = new HashMap<>();
+
+    private final Set<Mutation> mutations = EnumSet.noneOf(Mutation.class);
+
+    private final Map<Mutation, Integer> mutationCounts = new EnumMap<>(Mutation.class);
+
+    private int defaultCollectionSize = 2;
+
+    private double mutationRate;
+
+    private String requestUrl = DEFAULT_REQUEST_URL;
+
+    private String pageBaseUrl = DEFAULT_REQUEST_URL;
+
+    private int requestedPage = 1;
+
+    private Integer requestedPageSize;
+
+    private Integer totalRecords;
+
+    private Random random = new Random();
+
+    private PropertySpec pagedCollection;
+
+    private String pageRequestUrl;
+
+    private int page;
+
+    private int pageSize;
+
+    private int pageTotalRecords;
+
+    private int pageRecordCount;
+
+    private boolean brokenLinks;
+
+    private long counter;
+
+    public PayloadGenerator collectionSize(String propertyName, int size) {
+        collectionSizes.put(propertyName, size);
+        return this;
+    }
+
+    public PayloadGenerator defaultCollectionSize(int size) {
+        this.defaultCollectionSize = size;
+        return this;
+    }
+
+    public PayloadGenerator mutations(double mutationRate, Mutation... mutations) {
+        this.mutationRate = mutationRate;
+        this.mutations.clear();
+        this.mutations.addAll(mutations.length == 0 ? EnumSet.allOf(Mutation.class) : Arrays.asList(mutations));
+        return this;
+    }
+
+    /**
+     * Sets the request url and total record count the pagination links and meta of responses are generated for.
+     * The page and page size are read from the page and page-size parameters of the url, 1 and 25 if missing.
+     */
+    public PayloadGenerator pagination(String requestUrl, int totalRecords) {
+        if (totalRecords < 0) {
+            throw new IllegalArgumentException("totalRecords must not be negative, got " + totalRecords);
+        }
+        StringBuilder baseUrl = new StringBuilder(requestUrl.split("\\?")[0]);
+        Integer page = null;
+        Integer pageSize = null;
+        int queryStart = requestUrl.indexOf('?');
+        if (queryStart >= 0) {
+            for (String parameter : requestUrl.substring(queryStart + 1).split("&")) {
+                String[] nameValue = parameter.split("=", 2);
+                if (nameValue[0].equals("page")) {
+                    page = parsePageParameter(requestUrl, nameValue);
+                } else if (nameValue[0].equals("page-size")) {
+                    pageSize = parsePageParameter(requestUrl, nameValue);
+                } else if (!parameter.isEmpty()) {
+                    baseUrl.append(baseUrl.indexOf("?") < 0 ? '?' : '&').append(parameter);
+                }
+            }
+        }
+        this.requestUrl = requestUrl;
+        this.pageBaseUrl = baseUrl.toString();
+        this.requestedPage = page == null ? 1 : page;
+        this.requestedPageSize = pageSize;
+        this.totalRecords = totalRecords;
+        return this;
+    }
+
+    private static int parsePageParameter(String requestUrl, String[] nameValue) {
+        try {
+            int value = Integer.parseInt(nameValue.length > 1 ? nameValue[1] : "");
+            if (value >= 1) return value;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid " + nameValue[0] + " parameter in " + requestUrl);
+    }
+
+    public PayloadGenerator seed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    public Map<Mutation, Integer> getMutationCounts() {
+        return Collections.unmodifiableMap(mutationCounts);
+    }
+
+    /**
+     * Returns the model of the 200 response of an operation, or null if the operation has no such response.
+     */
+    public static Class<?> getResponseModel(ConformanceModel conformanceModel, String operationId) {
+        Map<ResponseCode, EndpointResponse> responses = conformanceModel.getResponseMap().get(operationId);
+        EndpointResponse response = responses == null ? null : responses.get(ResponseCode.fromCode(200));
+        return response == null || response.content().equals(Void.class) ? null : response.content();
+    }
+
+    public void generate(Class<?> model, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generate(model, generator);
+        }
+    }
+
+    public void generate(Class<?> model, JsonGenerator generator) throws IOException {
+        pagedCollection = null;
+        if (model.isArray()) {
+            writeArray(model.getComponentType(), defaultCollectionSize, generator);
+        } else {
+            writeObject(model, generator);
+        }
+    }
+
+    private void writeObject(Class<?> model, JsonGenerator generator) throws IOException {
+        List<PropertySpec> propertySpecs = PROPERTY_SPECS.computeIfAbsent(model, PropertySpec::of);
+        PropertySpec collection = PAGED_COLLECTIONS.computeIfAbsent(model, PayloadGenerator::findPagedCollection)
+            .orElse(null);
+        if (collection != null) {
+            startPage(collection);
+        }
+        // scalars first, so conditionally typed values can see the values they depend on
+        Map<String, Object> scalarValues = new HashMap<>();
+        for (PropertySpec propertySpec : propertySpecs) {
+            if (propertySpec.kind == Kind.SCALAR && propertySpec.condition == null) {
+                scalarValues.put(propertySpec.fieldName, generateScalar(propertySpec, propertySpec.cdsDataType));
+            }
+        }
+        for (PropertySpec propertySpec : propertySpecs) {
+            if (propertySpec.kind == Kind.SCALAR && propertySpec.condition != null) {
+                scalarValues.put(propertySpec.fieldName, generateConditionalScalar(propertySpec, scalarValues));
+            }
+        }
+        generator.writeStartObject();
+        for (PropertySpec propertySpec : propertySpecs) {
+            if (propertySpec.required && mutate(Mutation.MISSING_REQUIRED)) continue;
+            switch (propertySpec.kind) {
+                case OBJECT:
+                    generator.writeFieldName(propertySpec.name);
+                    writeObject(propertySpec.type, generator);
+                    break;
+                case ARRAY:
+                    generator.writeFieldName(propertySpec.name);
+                    writeArray(propertySpec.type,
+                        propertySpec == pagedCollection ? pageRecordCount : getCollectionSize(propertySpec.name),
+                        generator);
+                    break;
+                case MAP:
+                    generator.writeFieldName(propertySpec.name);
+                    generator.writeStartObject();
+                    generator.writeEndObject();
+                    break;
+                default:
+                    Object value = scalarValues.get(propertySpec.fieldName);
+                    if (value != null) {
+                        generator.writeFieldName(propertySpec.name);
+                        writeScalar(value, generator);
+                    }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeArray(Class<?> itemType, int size, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        Kind itemKind = Kind.of(itemType);
+        for (int i = 0; i < size; i++) {
+            if (itemKind == Kind.OBJECT) {
+                writeObject(itemType, generator);
+            } else if (itemKind == Kind.SCALAR) {
+                writeScalar(generateValue(itemType, null), generator);
+            } else {
+                generator.writeStartObject();
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Sets up the links and meta of a paginated response and the number of records its collection holds.
+     */
+    private void startPage(PropertySpec collection) {
+        pagedCollection = collection;
+        int collectionSize = getCollectionSize(collection.name);
+        page = requestedPage;
+        pageSize = requestedPageSize == null ? PAGE_SIZE : requestedPageSize;
+        pageRequestUrl = requestUrl;
+        if (totalRecords == null) {
+            page = 1;
+            pageTotalRecords = collectionSize;
+            if (collectionSize > pageSize) {
+                pageSize = collectionSize;
+                pageRequestUrl = pageUrl(1);
+            }
+        } else {
+            pageTotalRecords = totalRecords;
+        }
+        pageRecordCount = Math.max(0, Math.min(pageSize, pageTotalRecords - (page - 1) * pageSize));
+        brokenLinks = mutate(Mutation.BROKEN_PAGINATION);
+    }
+
+    private int getCollectionSize(String propertyName) {
+        Integer size = collectionSizes.get(propertyName);
+        return size == null ? defaultCollectionSize : size;
+    }
+
+    private Object generateConditionalScalar(PropertySpec propertySpec, Map<String, Object> scalarValues) {
+        Condition condition = propertySpec.condition;
+        Object relatedValue = scalarValues.get(condition.propertyName());
+        CDSDataType cdsDataType = propertySpec.cdsDataType;
+        if (relatedValue != null) {
+            for (ConditionalCDSDataType conditionalCDSDataType : condition.conditionalCDSDataTypes()) {
+                if (conditionalCDSDataType.value().equals(relatedValue.toString())) {
+                    cdsDataType = conditionalCDSDataType.cdsDataType();
+                }
+            }
+        }
+        return generateScalar(propertySpec, cdsDataType);
+    }
+
+    private Object generateScalar(PropertySpec propertySpec, CDSDataType cdsDataType) {
+        if (propertySpec.type == String.class && propertySpec.name.equals("self")) {
+            return pagedCollection == null ? requestUrl : pageRequestUrl;
+        } else if (pagedCollection != null && propertySpec.type == String.class) {
+            int totalPages = getTotalPages();
+            switch (propertySpec.name) {
+                case "first":
+                    // broken links are flagged on the next link if it is checked, on the first link otherwise
+                    if (brokenLinks && page > totalPages) return pageUrl(totalPages == 0 ? 1 : 2);
+                    return totalPages == 0 ? null : pageUrl(1);
+                case "last":
+                    return totalPages == 0 ? null : pageUrl(totalPages);
+                case "prev":
+                    return page > 1 ? pageUrl(page - 1) : null;
+                case "next":
+                    if (brokenLinks && page <= totalPages) return pageUrl(page < totalPages ? page + 2 : page + 1);
+                    return page < totalPages ? pageUrl(page + 1) : null;
+            }
+        } else if (pagedCollection != null && isNumeric(propertySpec.type)) {
+            switch (propertySpec.name) {
+                case "totalRecords":
+                    return pageTotalRecords;
+                case "totalPages":
+                    return getTotalPages();
+            }
+        }
+        CustomDataType customDataType = cdsDataType == null ? null : cdsDataType.value();
+        if (customDataType != null) {
+            if (canMutate(Mutation.PATTERN_NOT_MATCHED)) {
+                Object invalidValue = getInvalidValue(customDataType, propertySpec.type);
+                if (invalidValue != null && mutate(Mutation.PATTERN_NOT_MATCHED)) {
+                    return invalidValue;
+                }
+            }
+            if ((customDataType.getMin() != null || customDataType.getMax() != null)
+                && mutate(Mutation.NUMBER_OUT_OF_RANGE)) {
+                return getOutOfRange(customDataType, propertySpec.type);
+            }
+        }
+        return generateValue(propertySpec.type, customDataType);
+    }
+
+    private Object generateValue(Class<?> type, CustomDataType customDataType) {
+        long n = ++counter;
+        if (type.isEnum()) {
+            String[] values = ENUM_VALUES.computeIfAbsent(type, PayloadGenerator::getEnumValues);
+            return values.length == 0 ? null : values[(int) (n % values.length)];
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return Boolean.TRUE;
+        }
+        if (customDataType != null) {
+            String sample = getSample(customDataType, n);
+            if (sample != null) {
+                return isNumeric(type) ? new BigDecimal(sample) : sample;
+            }
+        }
+        if (isNumeric(type)) {
+            return type == BigDecimal.class || type == Double.class || type == double.class
+                || type == Float.class || type == float.class ? new BigDecimal("1.5") : BigDecimal.ONE;
+        }
+        if (type == LocalDate.class) {
+            return "2019-05-01";
+        }
+        if (type == LocalDateTime.class) {
+            return "2019-05-01T10:00:00";
+        }
+        if (type.getName().startsWith("java.time.") || type == Date.class) {
+            return "2019-05-01T10:00:00Z";
+        }
+        return "string-" + n;
+    }
+
+    private static String getSample(CustomDataType customDataType, long n) {
+        String sample;
+        switch (customDataType.getName()) {
+            case "AmountString":
+                sample = (n % 1000) + ".50";
+                break;
+            case "RateString":
+                sample = "0.0" + (100 + n % 900);
+                break;
+            case "DateTimeString":
+                sample = "2019-05-01T10:00:00.000Z";
+                break;
+            case "DateString":
+                sample = "2019-05-01";
+                break;
+            case "TimeString":
+                sample = "10:00:00Z";
+                break;
+            case "CurrencyString":
+                sample = "AUD";
+                break;
+            case "DurationString":
+                sample = "P1M";
+                break;
+            case "URIString":
+                sample = "https://example.com/products/" + n;
+                break;
+            case "EmailString":
+                sample = "someone" + n + "@example.com";
+                break;
+            case "MaskedAccountString":
+            case "MaskedPANString":
+                sample = "xxxx xxxx xxxx " + (1000 + n % 9000);
+                break;
+            case "Boolean":
+                sample = "true";
+                break;
+            case "NaturalNumber":
+            case "PositiveInteger":
+            case "Integer":
+                sample = String.valueOf(1 + n % 100);
+                break;
+            case "NegativeInteger":
+                sample = String.valueOf(-1 - n % 100);
+                break;
+            default:
+                sample = null;
+        }
+        if (sample != null && customDataType.getMin() != null
+            && new BigDecimal(sample).compareTo(new BigDecimal(customDataType.getMin().toString())) < 0) {
+            sample = customDataType.getMin().toString();
+        }
+        if (customDataType.getPattern() == null || sample != null && isValid(customDataType, sample)) {
+            return sample;
+        }
+        for (String fallback : new String[] {"string-" + n, "S" + n, String.valueOf(n)}) {
+            if (isValid(customDataType, fallback)) {
+                return fallback;
+            }
+        }
+        throw new IllegalArgumentException("Cannot generate a value of CDS type " + customDataType.getName()
+            + " matching " + customDataType.getPattern());
+    }
+
+    private static boolean isValid(CustomDataType customDataType, String value) {
+        return CustomDataType.URI.equals(customDataType) ? CustomDataTypeMatchers.isUri(value)
+            : CustomDataTypeMatchers.matches(customDataType, value);
+    }
+
+    /**
+     * Returns a value of the given type which does not match the pattern of the data type, or null if there is
+     * none among the invalid values tried.
+     */
+    private static Object getInvalidValue(CustomDataType customDataType, Class<?> type) {
+        if (customDataType.getPattern() == null && !CustomDataType.URI.equals(customDataType)) {
+            return null;
+        }
+        if (isNumeric(type)) {
+            for (String invalid : INVALID_NUMBERS) {
+                // fractions bound to integer properties are truncated rather than rejected
+                if (invalid.contains(".") && isIntegral(type)) continue;
+                if (!isValid(customDataType, invalid)) {
+                    return new BigDecimal(invalid);
+                }
+            }
+            return null;
+        }
+        if (type != String.class) {
+            return null;
+        }
+        for (String invalid : INVALID_STRINGS) {
+            if (!isValid(customDataType, invalid)) {
+                return invalid;
+            }
+        }
+        return null;
+    }
+
+    private static Object getOutOfRange(CustomDataType customDataType, Class<?> type) {
+        BigDecimal value = customDataType.getMin() != null
+            ? new BigDecimal(customDataType.getMin().toString()).subtract(BigDecimal.ONE)
+            : new BigDecimal(customDataType.getMax().toString()).add(BigDecimal.ONE);
+        return isNumeric(type) ? value : value.toPlainString();
+    }
+
+    private int getTotalPages() {
+        return pageTotalRecords / pageSize + (pageTotalRecords % pageSize > 0 ? 1 : 0);
+    }
+
+    private String pageUrl(int pageNumber) {
+        return pageBaseUrl + (pageBaseUrl.contains("?") ? "&" : "?") + "page=" + pageNumber + "&page-size=" + pageSize;
+    }
+
+    private boolean canMutate(Mutation mutation) {
+        return mutationRate > 0 && mutations.contains(mutation);
+    }
+
+    private boolean mutate(Mutation mutation) {
+        if (!canMutate(mutation) || random.nextDouble() >= mutationRate) {
+            return false;
+        }
+        mutationCounts.merge(mutation, 1, Integer::sum);
+        return true;
+    }
+
+    private static void writeScalar(Object value, JsonGenerator generator) throws IOException {
+        if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+            || type == BigInteger.class || type == int.class || type == long.class || type == short.class
+            || type == byte.class;
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return Number.class.isAssignableFrom(type)
+            || type == int.class || type == long.class || type == short.class || type == byte.class
+            || type == double.class || type == float.class;
+    }
+
+    /**
+     * Returns the collection under the data of a paginated response model, one with links and a meta holding
+     * totalRecords.
+     */
+    private static Optional<PropertySpec> findPagedCollection(Class<?> model) {
+        PropertySpec data = null;
+        boolean paginated = false;
+        for (PropertySpec propertySpec : PROPERTY_SPECS.computeIfAbsent(model, PropertySpec::of)) {
+            if (propertySpec.kind != Kind.OBJECT) continue;
+            if (propertySpec.name.equals("data")) {
+                data = propertySpec;
+            } else if (propertySpec.name.equals("meta")) {
+                for (PropertySpec metaSpec : PROPERTY_SPECS.computeIfAbsent(propertySpec.type, PropertySpec::of)) {
+                    paginated |= metaSpec.name.equals("totalRecords");
+                }
+            }
+        }
+        if (data != null && paginated) {
+            for (PropertySpec propertySpec : PROPERTY_SPECS.computeIfAbsent(data.type, PropertySpec::of)) {
+                if (propertySpec.kind == Kind.ARRAY) return Optional.of(propertySpec);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String[] getEnumValues(Class<?> enumType) {
+        Object[] constants = enumType.getEnumConstants();
+        String[] values = new String[constants.length];
+        for (int i = 0; i < constants.length; i++) {
+            values[i] = ObjectMapperRegistry.getObjectMapper().convertValue(constants[i], String.class);
+        }
+        return values;
+    }
+
+    private enum Kind {
+
+        SCALAR,
+
+        OBJECT,
+
+        ARRAY,
+
+        MAP;
+
+        static Kind of(Class<?> type) {
+            if (type.isArray() || ReflectionUtil.isSetOrList(type)) return ARRAY;
+            if (Map.class.isAssignableFrom(type) || type == Object.class) return MAP;
+            if (!type.isEnum() && type.isAnnotationPresent(DataDefinition.class)) return OBJECT;
+            return SCALAR;
+        }
+    }
+
+    private static class PropertySpec {
+
+        private final String fieldName;
+
+        private final String name;
+
+        private final Kind kind;
+
+        private final Class<?> type;
+
+        private final boolean required;
+
+        private final CDSDataType cdsDataType;
+
+        private final Condition condition;
+
+        PropertySpec(Field field) {
+            fieldName = field.getName();
+            JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+            name = jsonProperty != null && !jsonProperty.value().isEmpty() ? jsonProperty.value() : field.getName();
+            Class<?> fieldType = field.getType();
+            kind = Kind.of(fieldType);
+            if (fieldType.isArray()) {
+                type = fieldType.getComponentType();
+            } else if (ReflectionUtil.isSetOrList(fieldType)) {
+                type = ReflectionUtil.getItemType(fieldType, field.getGenericType());
+            } else {
+                type = fieldType;
+            }
+            Property property = field.getAnnotation(Property.class);
+            required = property != null && property.required();
+            cdsDataType = field.getAnnotation(CDSDataType.class);
+            Condition[] conditions = property == null ? new Condition[0] : property.requiredIf();
+            condition = conditions.length > 0 && conditions[0].conditionalCDSDataTypes().length > 0 ? conditions[0] : null;
+        }
+
+        static List<PropertySpec> of(Class<?> model) {
+            List<Field> fields = new ArrayList<>(Arrays.asList(FieldUtils.getAllFields(model)));
+            DataDefinition dataDefinition = model.getAnnotation(DataDefinition.class);
+            if (dataDefinition != null) {
+                for (Class<?> clazz : dataDefinition.allOf()) {
+                    fields.addAll(Arrays.asList(FieldUtils.getAllFields(clazz)));
+                }
+            }
+            Set<String> fieldNames = new HashSet<>();
+            List<PropertySpec> propertySpecs = new ArrayList<>();
+            for (Field field : fields) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || !fieldNames.add(field.getName())) {
+                    continue;
+                }
+                propertySpecs.add(new PropertySpec(field));
+            }
+            return propertySpecs;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps latency histograms per stage and per model, and error counts per error type and custom data type, in
+ * memory. Install it with {@link Metrics#set(ValidationMetrics)} and read it directly or through
+ * {@link JmxMetricsExporter}.
+ */
+public class InMemoryMetrics implements ValidationMetrics {
+
+    public static final String NO_MATCHING_MODEL = "<none>";
+
+    private final Map<Stage, LatencyHistogram> stageLatencies = new EnumMap<>(Stage.class);
+
+    private final Map<String, LatencyHistogram> modelLatencies = new ConcurrentHashMap<>();
+
+    private final Map<ConformanceError.Type, LongAdder> errorTypeCounts = new ConcurrentHashMap<>();
+
+    private final Map<CustomDataType, LongAdder> dataTypeErrorCounts = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram candidatesTried = new LatencyHistogram();
+
+    private final Map<String, LatencyHistogram> cacheHitLatencies = new ConcurrentHashMap<>();
+
+    public InMemoryMetrics() {
+        for (Stage stage : Stage.values()) {
+            stageLatencies.put(stage, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void recordStage(Stage stage, long nanos) {
+        stageLatencies.get(stage).record(nanos);
+    }
+
+    @Override
+    public void recordValidation(Class<?> model, long nanos) {
+        modelLatencies.computeIfAbsent(modelName(model), k -> new LatencyHistogram()).record(nanos);
+    }
+
+    @Override
+    public void recordCandidatesTried(int count) {
+        candidatesTried.record(count);
+    }
+
+    @Override
+    public void recordCacheHit(Class<?> model, long nanos) {
+        cacheHitLatencies.computeIfAbsent(modelName(model), k -> new LatencyHistogram()).record(nanos);
+    }
+
+    @Override
+    public void recordError(ConformanceError error) {
+        if (error.getErrorType() != null) {
+            errorTypeCounts.computeIfAbsent(error.getErrorType(), k -> new LongAdder()).increment();
+        }
+        if (error.getCdsDataType() != null) {
+            dataTypeErrorCounts.computeIfAbsent(error.getCdsDataType().value(), k -> new LongAdder()).increment();
+        }
+    }
+
+    public LatencyHistogram getStageLatency(Stage stage) {
+        return stageLatencies.get(stage);
+    }
+
+    /**
+     * Returns the end to end latencies by model simple name, {@link #NO_MATCHING_MODEL} for payloads no model
+     * matched.
+     */
+    public Map<String, LatencyHistogram> getModelLatencies() {
+        return new TreeMap<>(modelLatencies);
+    }
+
+    /**
+     * Returns the cache lookup latencies of cache hits by model simple name, like {@link #getModelLatencies()}.
+     */
+    public Map<String, LatencyHistogram> getCacheHitLatencies() {
+        return new TreeMap<>(cacheHitLatencies);
+    }
+
+    public LatencyHistogram getCandidatesTried() {
+        return candidatesTried;
+    }
+
+    public Map<String, Long> getErrorTypeCounts() {
+        return sums(errorTypeCounts);
+    }
+
+    public Map<String, Long> getDataTypeErrorCounts() {
+        return sums(dataTypeErrorCounts);
+    }
+
+    public void reset() {
+        stageLatencies.values().forEach(LatencyHistogram::reset);
+        modelLatencies.clear();
+        errorTypeCounts.clear();
+        dataTypeErrorCounts.clear();
+        candidatesTried.reset();
+        cacheHitLatencies.clear();
+    }
+
+    private static String modelName(Class<?> model) {
+        return model == null ? NO_MATCHING_MODEL : model.getSimpleName();
+    }
+
+    private static Map<String, Long> sums(Map<? extends Enum<?>, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        counters.forEach((key, counter) -> sums.put(key.name(), counter.sum()));
+        return sums;
+    }
+}
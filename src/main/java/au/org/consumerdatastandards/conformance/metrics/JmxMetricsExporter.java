@@ -0,0 +1,179 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exposes {@link InMemoryMetrics} as MXBeans under the {@value #DOMAIN} domain: one {@code type=Stage} bean per
+ * validation stage and a {@code type=Validation} bean with the per model, per error type and per data type figures.
+ * Latencies are in nanoseconds.
+ */
+public class JmxMetricsExporter implements AutoCloseable {
+
+    public static final String DOMAIN = "au.org.consumerdatastandards.conformance";
+
+    private final MBeanServer mBeanServer;
+
+    private final List<ObjectName> objectNames = new ArrayList<>();
+
+    public JmxMetricsExporter(InMemoryMetrics metrics) throws JMException {
+        this(metrics, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsExporter(InMemoryMetrics metrics, MBeanServer mBeanServer) throws JMException {
+        this.mBeanServer = mBeanServer;
+        for (ValidationMetrics.Stage stage : ValidationMetrics.Stage.values()) {
+            register(new ObjectName(DOMAIN + ":type=Stage,name=" + stage.name()),
+                new Latency(metrics.getStageLatency(stage)));
+        }
+        register(new ObjectName(DOMAIN + ":type=Validation"), new Validation(metrics));
+    }
+
+    @Override
+    public void close() throws JMException {
+        for (ObjectName objectName : objectNames) {
+            mBeanServer.unregisterMBean(objectName);
+        }
+        objectNames.clear();
+    }
+
+    private void register(ObjectName objectName, Object mBean) throws JMException {
+        mBeanServer.registerMBean(mBean, objectName);
+        objectNames.add(objectName);
+    }
+
+    public interface LatencyMXBean {
+
+        long getCount();
+
+        double getMean();
+
+        long getP50();
+
+        long getP99();
+
+        long getP999();
+
+        long getMax();
+    }
+
+    public interface ValidationMXBean {
+
+        Map<String, Long> getModelCounts();
+
+        Map<String, Long> getModelP99();
+
+        Map<String, Long> getModelCacheHits();
+
+        Map<String, Long> getErrorTypeCounts();
+
+        Map<String, Long> getDataTypeErrorCounts();
+
+        double getCandidatesTriedMean();
+
+        long getCandidatesTriedMax();
+
+        void reset();
+    }
+
+    private static class Latency implements LatencyMXBean {
+
+        private final LatencyHistogram histogram;
+
+        Latency(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getMean() {
+            return histogram.getMean();
+        }
+
+        @Override
+        public long getP50() {
+            return histogram.getValueAtPercentile(50);
+        }
+
+        @Override
+        public long getP99() {
+            return histogram.getValueAtPercentile(99);
+        }
+
+        @Override
+        public long getP999() {
+            return histogram.getValueAtPercentile(99.9);
+        }
+
+        @Override
+        public long getMax() {
+            return histogram.getMax();
+        }
+    }
+
+    private static class Validation implements ValidationMXBean {
+
+        private final InMemoryMetrics metrics;
+
+        Validation(InMemoryMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Map<String, Long> getModelCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            metrics.getModelLatencies().forEach((model, histogram) -> counts.put(model, histogram.getCount()));
+            return counts;
+        }
+
+        @Override
+        public Map<String, Long> getModelP99() {
+            Map<String, Long> p99s = new TreeMap<>();
+            metrics.getModelLatencies().forEach((model, histogram) ->
+                p99s.put(model, histogram.getValueAtPercentile(99)));
+            return p99s;
+        }
+
+        @Override
+        public Map<String, Long> getModelCacheHits() {
+            Map<String, Long> counts = new TreeMap<>();
+            metrics.getCacheHitLatencies().forEach((model, histogram) -> counts.put(model, histogram.getCount()));
+            return counts;
+        }
+
+        @Override
+        public Map<String, Long> getErrorTypeCounts() {
+            return metrics.getErrorTypeCounts();
+        }
+
+        @Override
+        public Map<String, Long> getDataTypeErrorCounts() {
+            return metrics.getDataTypeErrorCounts();
+        }
+
+        @Override
+        public double getCandidatesTriedMean() {
+            return metrics.getCandidatesTried().getMean();
+        }
+
+        @Override
+        public long getCandidatesTriedMax() {
+            return metrics.getCandidatesTried().getMax();
+        }
+
+        @Override
+        public void reset() {
+            metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Holds the process wide {@link ValidationMetrics}. The first implementation registered as a
+ * {@code META-INF/services} provider is used by default, or the no-op one if there is none.
+ */
+public class Metrics {
+
+    private static volatile ValidationMetrics validationMetrics = load();
+
+    public static ValidationMetrics get() {
+        return validationMetrics;
+    }
+
+    public static void set(ValidationMetrics validationMetrics) {
+        Metrics.validationMetrics = validationMetrics == null ? ValidationMetrics.NOOP : validationMetrics;
+    }
+
+    public static void recordErrors(List<ConformanceError> errors) {
+        ValidationMetrics metrics = validationMetrics;
+        if (metrics == ValidationMetrics.NOOP) return;
+        for (ConformanceError error : errors) {
+            metrics.recordError(error);
+        }
+    }
+
+    private static ValidationMetrics load() {
+        Iterator<ValidationMetrics> providers = ServiceLoader.load(ValidationMetrics.class).iterator();
+        return providers.hasNext() ? providers.next() : ValidationMetrics.NOOP;
+    }
+}
@@ -0,0 +1,30 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+/**
+ * Emits JDK Flight Recorder events for the validation stages. This Java 8 version records nothing; the jar carries
+ * a Java 11 version under {@code META-INF/versions/11} which creates the events, only while a recording has them
+ * enabled. Callers pass the token returned by {@link #begin(Kind)} back to {@link #commit}.
+ */
+public class ValidationEvents {
+
+    public enum Kind {
+        PAYLOAD_VALIDATION,
+        RESPONSE_VALIDATION,
+        MODEL_CHECK,
+        MODEL_EXPANSION,
+        LINK_CHECK
+    }
+
+    /**
+     * Starts timing an event, returns null if the event is not being recorded.
+     */
+    public static Object begin(Kind kind) {
+        return null;
+    }
+
+    /**
+     * Ends and records an event started by {@link #begin(Kind)}; unknown values are null or -1.
+     */
+    public static void commit(Object event, Class<?> model, String operationId, long payloadSize, int errorCount) {
+    }
+}
@@ -0,0 +1,54 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+
+/**
+ * Receives timings and counts from the validation hot paths. Implementations must be thread safe and cheap, they
+ * are called inline for every payload. The active implementation is held by {@link Metrics}.
+ */
+public interface ValidationMetrics {
+
+    ValidationMetrics NOOP = new ValidationMetrics() {
+    };
+
+    enum Stage {
+
+        /** Scanning the payload for the property names candidate models are looked up by. */
+        PARSE,
+
+        /** Trying candidate models until one binds, including the failed bindings. */
+        MODEL_MATCHING,
+
+        /** Binding the payload to the matching model. */
+        BIND,
+
+        /** Checking the bound payload against its model. */
+        STRUCTURAL_CHECK,
+
+        /** Checking the pagination meta and links of a response. */
+        LINK_CHECK
+    }
+
+    default void recordStage(Stage stage, long nanos) {
+    }
+
+    /**
+     * Records one validation of a payload or response against the given model, end to end. The
+     * model is null if no model matched the payload.
+     */
+    default void recordValidation(Class<?> model, long nanos) {
+    }
+
+    default void recordCandidatesTried(int count) {
+    }
+
+    /**
+     * Records a validation answered by the validation cache, with the time taken to look it up. Hits are not
+     * recorded as validations, stages or errors, those figures only cover the payloads actually validated.
+     */
+    default void recordCacheHit(Class<?> model, long nanos) {
+    }
+
+    default void recordError(ConformanceError error) {
+    }
+}
@@ -0,0 +1,139 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Annotation instances built from member values rather than read from a class, for annotations restored from a
+ * snapshot or a cache. They follow the {@link Annotation} contract the way the JDK's own instances do, so they are
+ * equal to, and hash like, the annotations they were read from.
+ */
+public class AnnotationProxy implements InvocationHandler {
+
+    private final Class<? extends Annotation> annotationType;
+
+    private final Map<String, Object> values;
+
+    private AnnotationProxy(Class<? extends Annotation> annotationType, Map<String, Object> values) {
+        this.annotationType = annotationType;
+        this.values = values;
+    }
+
+    /**
+     * Returns an annotation of the given type with the given member values, members left out having their default
+     * values.
+     */
+    public static <A extends Annotation> A of(Class<A> annotationType, Map<String, Object> values) {
+        return annotationType.cast(Proxy.newProxyInstance(annotationType.getClassLoader(),
+            new Class<?>[] {annotationType}, new AnnotationProxy(annotationType, values)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "annotationType":
+                return annotationType;
+            case "equals":
+                if (method.getParameterCount() == 1) return equalTo(proxy, args[0]);
+                break;
+            case "hashCode":
+                if (method.getParameterCount() == 0) return hash();
+                break;
+            case "toString":
+                if (method.getParameterCount() == 0) return render();
+                break;
+        }
+        Object value = getValue(method);
+        return value != null && value.getClass().isArray() && Array.getLength(value) > 0 ? cloneArray(value) : value;
+    }
+
+    private Object getValue(Method member) {
+        return values.containsKey(member.getName()) ? values.get(member.getName()) : member.getDefaultValue();
+    }
+
+    private boolean equalTo(Object proxy, Object other) {
+        if (proxy == other) return true;
+        if (!annotationType.isInstance(other)) return false;
+        for (Method member : annotationType.getDeclaredMethods()) {
+            Object otherValue;
+            try {
+                member.setAccessible(true);
+                otherValue = member.invoke(other);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                return false;
+            }
+            if (!valueEquals(getValue(member), otherValue)) return false;
+        }
+        return true;
+    }
+
+    private int hash() {
+        int hash = 0;
+        for (Method member : annotationType.getDeclaredMethods()) {
+            hash += (127 * member.getName().hashCode()) ^ valueHash(getValue(member));
+        }
+        return hash;
+    }
+
+    private String render() {
+        StringBuilder builder = new StringBuilder("@").append(annotationType.getName()).append('(');
+        boolean first = true;
+        for (Method member : annotationType.getDeclaredMethods()) {
+            if (!first) builder.append(", ");
+            first = false;
+            Object value = getValue(member);
+            builder.append(member.getName()).append('=')
+                .append(value instanceof Object[] ? Arrays.toString((Object[]) value) : valueString(value));
+        }
+        return builder.append(')').toString();
+    }
+
+    private static boolean valueEquals(Object value, Object otherValue) {
+        if (value instanceof Object[] && otherValue instanceof Object[]) {
+            return Arrays.equals((Object[]) value, (Object[]) otherValue);
+        }
+        if (value != null && value.getClass().isArray()) {
+            if (otherValue == null || otherValue.getClass() != value.getClass()) return false;
+            int length = Array.getLength(value);
+            if (length != Array.getLength(otherValue)) return false;
+            for (int i = 0; i < length; i++) {
+                if (!Array.get(value, i).equals(Array.get(otherValue, i))) return false;
+            }
+            return true;
+        }
+        return value == null ? otherValue == null : value.equals(otherValue);
+    }
+
+    private static int valueHash(Object value) {
+        if (value == null) return 0;
+        if (!value.getClass().isArray()) return value.hashCode();
+        if (value instanceof Object[]) return Arrays.hashCode((Object[]) value);
+        int hash = 1;
+        for (int i = 0; i < Array.getLength(value); i++) {
+            hash = 31 * hash + Array.get(value, i).hashCode();
+        }
+        return hash;
+    }
+
+    private static String valueString(Object value) {
+        if (value == null || !value.getClass().isArray()) return String.valueOf(value);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < Array.getLength(value); i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(Array.get(value, i));
+        }
+        return builder.append(']').toString();
+    }
+
+    private static Object cloneArray(Object array) {
+        Object clone = Array.newInstance(array.getClass().getComponentType(), Array.getLength(array));
+        System.arraycopy(array, 0, clone, 0, Array.getLength(array));
+        return clone;
+    }
+}
@@ -0,0 +1,69 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
+
+import java.io.IOException;
+
+/**
+ * Aborts a bind at the first problem with an exception that has no stack trace, for readers trying candidate
+ * models: a payload that does not fit a candidate is an expected outcome there, and filling in the stack of a
+ * deep deserializer call chain for every rejected candidate dominates the cost of matching.
+ */
+class BindFailureHandler extends DeserializationProblemHandler {
+
+    static final BindFailureHandler INSTANCE = new BindFailureHandler();
+
+    @Override
+    public boolean handleUnknownProperty(DeserializationContext ctxt, JsonParser p, JsonDeserializer<?> deserializer,
+                                         Object beanOrClass, String propertyName) throws IOException {
+        throw new BindFailure(p, "Unrecognized field " + propertyName);
+    }
+
+    @Override
+    public Object handleWeirdKey(DeserializationContext ctxt, Class<?> rawKeyType, String keyValue,
+                                 String failureMsg) throws IOException {
+        throw new BindFailure(ctxt.getParser(), failureMsg);
+    }
+
+    @Override
+    public Object handleWeirdStringValue(DeserializationContext ctxt, Class<?> targetType, String valueToConvert,
+                                         String failureMsg) throws IOException {
+        throw new BindFailure(ctxt.getParser(), failureMsg);
+    }
+
+    @Override
+    public Object handleWeirdNumberValue(DeserializationContext ctxt, Class<?> targetType, Number valueToConvert,
+                                         String failureMsg) throws IOException {
+        throw new BindFailure(ctxt.getParser(), failureMsg);
+    }
+
+    @Override
+    public Object handleWeirdNativeValue(DeserializationContext ctxt, JavaType targetType, Object valueToConvert,
+                                         JsonParser p) throws IOException {
+        throw new BindFailure(p, "Unexpected native value");
+    }
+
+    @Override
+    public Object handleUnexpectedToken(DeserializationContext ctxt, Class<?> targetType, JsonToken t, JsonParser p,
+                                        String failureMsg) throws IOException {
+        throw new BindFailure(p, failureMsg);
+    }
+
+    static class BindFailure extends JsonMappingException {
+
+        BindFailure(JsonParser parser, String message) {
+            super(parser, message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.support.model.ModelBuilder;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Process wide holder of the {@link ConformanceModel} built from the cds-models on the classpath. The model is
+ * built, and its readers and validation plans compiled, once on first access; it is never modified afterwards
+ * and can be shared by any number of threads. When the {@code cds.conformance.snapshot} system property names a
+ * file, the model is loaded from that {@link ConformanceModelSnapshot} (which is refreshed if stale).
+ */
+public class ConformanceModelRegistry {
+
+    public static final String SNAPSHOT_PROPERTY = "cds.conformance.snapshot";
+
+    // weak, so models prepared by callers can still be collected; ConformanceModel keeps identity equality
+    private static final Set<ConformanceModel> PREPARED_MODELS =
+        Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+    private static class Holder {
+
+        private static final ConformanceModel CONFORMANCE_MODEL = prepare(load());
+    }
+
+    public static ConformanceModel getConformanceModel() {
+        return Holder.CONFORMANCE_MODEL;
+    }
+
+    private static ConformanceModel load() {
+        String snapshotFile = System.getProperty(SNAPSHOT_PROPERTY);
+        if (StringUtils.isBlank(snapshotFile)) {
+            return build();
+        }
+        return ConformanceModelSnapshot.loadOrBuild(Paths.get(snapshotFile), ConformanceModelRegistry::build);
+    }
+
+    private static ConformanceModel build() {
+        return ModelConformanceConverter.convert(new ModelBuilder().build());
+    }
+
+    /**
+     * Warms up the object readers and compiles the validation plans of a conformance model, once per model.
+     */
+    public static ConformanceModel prepare(ConformanceModel conformanceModel) {
+        if (PREPARED_MODELS.add(conformanceModel)) {
+            ObjectMapperRegistry.warmUp(conformanceModel);
+            ValidationPlan.compile(conformanceModel);
+        }
+        return conformanceModel;
+    }
+}
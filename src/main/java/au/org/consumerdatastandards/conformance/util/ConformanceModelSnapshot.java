@@ -0,0 +1,360 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.Payload;
+import au.org.consumerdatastandards.support.Endpoint;
+import au.org.consumerdatastandards.support.EndpointResponse;
+import au.org.consumerdatastandards.support.ResponseCode;
+import au.org.consumerdatastandards.support.model.ModelBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Binary snapshot of a {@link ConformanceModel}: the response map, the payload map (with the property tables used
+ * for model discovery) and the property index. Loading a snapshot skips scanning the cds-models classes, only the
+ * allOf models are expanded again. A snapshot is keyed by the cds-models version and by the size and modification
+ * time of every jar or directory the models were loaded from, and is ignored once any of them changes.
+ */
+public class ConformanceModelSnapshot {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConformanceModelSnapshot.class);
+
+    private static final int MAGIC = 0x43445343;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> primitiveType : new Class<?>[] {boolean.class, byte.class, char.class, short.class,
+            int.class, long.class, float.class, double.class, void.class}) {
+            PRIMITIVE_TYPES.put(primitiveType.getName(), primitiveType);
+        }
+    }
+
+    /**
+     * Loads the snapshot at the given path, or builds the model with the supplier and saves a new snapshot if
+     * the snapshot is missing, stale or unreadable.
+     */
+    public static ConformanceModel loadOrBuild(Path snapshotFile, Supplier<ConformanceModel> builder) {
+        if (Files.isRegularFile(snapshotFile)) {
+            try {
+                ConformanceModel conformanceModel = read(snapshotFile);
+                if (conformanceModel != null) {
+                    LOGGER.info("Loaded conformance model snapshot " + snapshotFile);
+                    return conformanceModel;
+                }
+                LOGGER.info("Conformance model snapshot " + snapshotFile + " is stale");
+            } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+                LOGGER.warn("Failed to load conformance model snapshot " + snapshotFile + ": " + e);
+            }
+        }
+        ConformanceModel conformanceModel = builder.get();
+        try {
+            write(conformanceModel, snapshotFile);
+            LOGGER.info("Saved conformance model snapshot " + snapshotFile);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save conformance model snapshot " + snapshotFile + ": " + e);
+        }
+        return conformanceModel;
+    }
+
+    /**
+     * Returns the model stored in the snapshot, or null if the snapshot does not match the models on the classpath.
+     */
+    public static ConformanceModel read(Path snapshotFile) throws IOException, ReflectiveOperationException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !getModelsVersion().equals(in.readUTF())) {
+                return null;
+            }
+            int sourceCount = in.readInt();
+            for (int i = 0; i < sourceCount; i++) {
+                String source = in.readUTF();
+                if (!getSourceKey(source).equals(in.readUTF())) {
+                    return null;
+                }
+            }
+            Map<String, Map<ResponseCode, EndpointResponse>> responseMap = new HashMap<>();
+            int operationCount = in.readInt();
+            for (int i = 0; i < operationCount; i++) {
+                Map<ResponseCode, EndpointResponse> responses = new HashMap<>();
+                responseMap.put(in.readUTF(), responses);
+                int responseCount = in.readInt();
+                for (int j = 0; j < responseCount; j++) {
+                    EndpointResponse response = (EndpointResponse) readAnnotation(in);
+                    responses.put(response.responseCode(), response);
+                }
+            }
+            Map<Class<?>, Payload> payloadMap = new HashMap<>();
+            int payloadCount = in.readInt();
+            for (int i = 0; i < payloadCount; i++) {
+                Class<?> model = loadClass(in.readUTF());
+                Payload payload = new Payload();
+                payload.setPayloadType(Payload.Type.valueOf(in.readUTF()));
+                if (in.readBoolean()) {
+                    payload.setEndpoint((Endpoint) readAnnotation(in));
+                }
+                payload.setArray(in.readBoolean());
+                payload.setPropertyNames(readStrings(in));
+                payload.setRequiredPropertyNames(readStrings(in));
+                payload.setDataClass(model.isArray()
+                    ? Array.newInstance(ConformanceUtil.expandModel(model.getComponentType()), 0).getClass()
+                    : ConformanceUtil.expandModel(model));
+                payloadMap.put(model, payload);
+            }
+            Map<String, Set<Class<?>>> propertyIndex = new HashMap<>();
+            int propertyCount = in.readInt();
+            for (int i = 0; i < propertyCount; i++) {
+                String propertyName = in.readUTF();
+                Set<Class<?>> models = new HashSet<>();
+                int modelCount = in.readInt();
+                for (int j = 0; j < modelCount; j++) {
+                    models.add(loadClass(in.readUTF()));
+                }
+                propertyIndex.put(propertyName, models);
+            }
+            ConformanceModel conformanceModel = new ConformanceModel();
+            conformanceModel.setResponseMap(responseMap);
+            conformanceModel.setPayloadMap(payloadMap);
+            conformanceModel.setPropertyIndex(propertyIndex);
+            return conformanceModel;
+        }
+    }
+
+    public static void write(ConformanceModel conformanceModel, Path snapshotFile) throws IOException {
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(getModelsVersion());
+                Set<String> sources = getSources(conformanceModel);
+                out.writeInt(sources.size());
+                for (String source : sources) {
+                    out.writeUTF(source);
+                    out.writeUTF(getSourceKey(source));
+                }
+                Map<String, Map<ResponseCode, EndpointResponse>> responseMap = conformanceModel.getResponseMap();
+                out.writeInt(responseMap.size());
+                for (Map.Entry<String, Map<ResponseCode, EndpointResponse>> entry : responseMap.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (EndpointResponse response : entry.getValue().values()) {
+                        writeAnnotation(out, response);
+                    }
+                }
+                Set<Class<?>> models = conformanceModel.getPayloadModels();
+                out.writeInt(models.size());
+                for (Class<?> model : models) {
+                    Payload payload = conformanceModel.getPlayload(model);
+                    out.writeUTF(model.getName());
+                    out.writeUTF(payload.getPayloadType().name());
+                    out.writeBoolean(payload.getEndpoint() != null);
+                    if (payload.getEndpoint() != null) {
+                        writeAnnotation(out, payload.getEndpoint());
+                    }
+                    out.writeBoolean(payload.isArray());
+                    writeStrings(out, payload.getPropertyNames());
+                    writeStrings(out, payload.getRequiredPropertyNames());
+                }
+                Map<String, Set<Class<?>>> propertyIndex = conformanceModel.getPropertyIndex();
+                out.writeInt(propertyIndex.size());
+                for (Map.Entry<String, Set<Class<?>>> entry : propertyIndex.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (Class<?> model : entry.getValue()) {
+                        out.writeUTF(model.getName());
+                    }
+                }
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns a key which changes whenever the cds-models or the validator classes on the classpath change.
+     */
+    public static String getModelVersion(ConformanceModel conformanceModel) {
+        Set<String> sources = getSources(conformanceModel);
+        addSource(sources, ConformanceModelSnapshot.class);
+        StringBuilder sb = new StringBuilder(getModelsVersion());
+        for (String source : sources) {
+            sb.append('|').append(source).append('=').append(getSourceKey(source));
+        }
+        return sb.toString();
+    }
+
+    private static String getModelsVersion() {
+        String version = ModelBuilder.class.getPackage().getImplementationVersion();
+        return version == null ? "" : version;
+    }
+
+    private static Set<String> getSources(ConformanceModel conformanceModel) {
+        Set<String> sources = new TreeSet<>();
+        addSource(sources, ModelBuilder.class);
+        for (Class<?> model : conformanceModel.getPayloadModels()) {
+            addSource(sources, model.isArray() ? model.getComponentType() : model);
+        }
+        return sources;
+    }
+
+    private static void addSource(Set<String> sources, Class<?> clazz) {
+        CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            sources.add(codeSource.getLocation().toString());
+        }
+    }
+
+    private static String getSourceKey(String source) {
+        try {
+            File file = new File(new URL(source).toURI());
+            return file.length() + ":" + file.lastModified();
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Set<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Set<String> strings = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+    private static void writeAnnotation(DataOutputStream out, Annotation annotation) throws IOException {
+        Class<? extends Annotation> annotationType = annotation.annotationType();
+        Method[] members = annotationType.getDeclaredMethods();
+        out.writeUTF(annotationType.getName());
+        out.writeInt(members.length);
+        for (Method member : members) {
+            out.writeUTF(member.getName());
+            try {
+                writeValue(out, member.invoke(annotation));
+            } catch (ReflectiveOperationException e) {
+                throw new Error(e); // should never happen
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte('s');
+            out.writeUTF((String) value);
+        } else if (value instanceof Class) {
+            out.writeByte('c');
+            out.writeUTF(((Class<?>) value).getName());
+        } else if (value instanceof Enum) {
+            out.writeByte('e');
+            out.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+            out.writeUTF(((Enum<?>) value).name());
+        } else if (value instanceof Annotation) {
+            out.writeByte('@');
+            writeAnnotation(out, (Annotation) value);
+        } else if (value.getClass().isArray()) {
+            out.writeByte('[');
+            out.writeUTF(value.getClass().getComponentType().getName());
+            int length = Array.getLength(value);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(out, Array.get(value, i));
+            }
+        } else if (value instanceof Boolean) {
+            out.writeByte('Z');
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            out.writeByte('C');
+            out.writeChar((Character) value);
+        } else if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+            out.writeByte(value instanceof Integer ? 'I' : value instanceof Short ? 'S' : 'B');
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte('J');
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte('F');
+            out.writeFloat((Float) value);
+        } else {
+            out.writeByte('D');
+            out.writeDouble((Double) value);
+        }
+    }
+
+    private static Annotation readAnnotation(DataInputStream in) throws IOException, ReflectiveOperationException {
+        Class<?> annotationType = loadClass(in.readUTF());
+        Map<String, Object> values = new LinkedHashMap<>();
+        int memberCount = in.readInt();
+        for (int i = 0; i < memberCount; i++) {
+            values.put(in.readUTF(), readValue(in));
+        }
+        return AnnotationProxy.of(annotationType.asSubclass(Annotation.class), values);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readValue(DataInputStream in) throws IOException, ReflectiveOperationException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case 's':
+                return in.readUTF();
+            case 'c':
+                return loadClass(in.readUTF());
+            case 'e':
+                return Enum.valueOf((Class<? extends Enum>) loadClass(in.readUTF()), in.readUTF());
+            case '@':
+                return readAnnotation(in);
+            case '[':
+                Object array = Array.newInstance(loadClass(in.readUTF()), in.readInt());
+                for (int i = 0; i < Array.getLength(array); i++) {
+                    Array.set(array, i, readValue(in));
+                }
+                return array;
+            case 'Z':
+                return in.readBoolean();
+            case 'C':
+                return in.readChar();
+            case 'B':
+                return (byte) in.readInt();
+            case 'S':
+                return (short) in.readInt();
+            case 'I':
+                return in.readInt();
+            case 'J':
+                return in.readLong();
+            case 'F':
+                return in.readFloat();
+            case 'D':
+                return in.readDouble();
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static Class<?> loadClass(String name) throws ClassNotFoundException {
+        Class<?> primitiveType = PRIMITIVE_TYPES.get(name);
+        if (primitiveType != null) return primitiveType;
+        return Class.forName(name, false, ConformanceModelSnapshot.class.getClassLoader());
+    }
+}
@@ -3,6 +3,10 @@ package au.org.consumerdatastandards.conformance.util;
 import au.org.consumerdatastandards.conformance.CglibBeanDeserializerModifier;
 import au.org.consumerdatastandards.conformance.CglibBeanSerializerModifier;
 import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.DataJson;
+import au.org.consumerdatastandards.conformance.metrics.Metrics;
+import au.org.consumerdatastandards.conformance.metrics.ValidationEvents;
+import au.org.consumerdatastandards.conformance.metrics.ValidationMetrics;
 import au.org.consumerdatastandards.reflection.ReflectionUtil;
 import au.org.consumerdatastandards.support.data.*;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -18,13 +22,9 @@ import org.apache.commons.lang3.reflect.FieldUtils;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.math.BigDecimal;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class ConformanceUtil {
@@ -32,93 +32,17 @@ public class ConformanceUtil {
     public static final String GENERATED_CLASS_SUFFIX = "$ByCDS";
     public static final String GENERATED_PROPERTY_PREFIX = "$cglib_prop_";
 
-    public static void checkAgainstModel(Object data, Class<?> model, List<ConformanceError> errors) {
-        String[] anyOfProperties = getAnyOfProperties(model);
-        if (anyOfProperties != null && anyOfProperties.length > 1) {
-            Map<String, Object> propertyValues = getPropertyValues(data, anyOfProperties);
-            if (propertyValues.isEmpty()) {
-                errors.add(new ConformanceError()
-                    .errorType(ConformanceError.Type.BROKEN_CONSTRAINT)
-                    .dataJson(toJson(data))
-                    .errorMessage(buildAnyOfErrorMessage(anyOfProperties))
-                );
-            }
-        }
-        List<Field> properties = getAllProperties(model);
-        Map<String, Field> propertyMap = buildPropertyMap(properties);
-        for (Field modelField : properties) {
-            Object dataFieldValue = getDataFieldValue(data, modelField);
-            Property property = modelField.getAnnotation(Property.class);
-            if (property.required() && dataFieldValue == null) {
-                errors.add(new ConformanceError()
-                    .errorType(ConformanceError.Type.MISSING_VALUE)
-                    .dataJson(toJson(data))
-                    .errorField(modelField));
-            } else if (dataFieldValue != null && modelField.isAnnotationPresent(CDSDataType.class)) {
-                CDSDataType cdsDataType = modelField.getAnnotation(CDSDataType.class);
-                checkAgainstCDSDataType(data, modelField, dataFieldValue, cdsDataType, errors);
-            }
-            Condition[] conditions = property.requiredIf();
-            if (conditions.length > 0) {
+    private static final Map<Class<?>, Class<?>> EXPANDED_CLASSES = new ConcurrentHashMap<>();
 
-                Condition condition = conditions[0];
-                Field relatedProperty = propertyMap.get(condition.propertyName());
-                if (relatedProperty != null) {
-                    Object relatedPropertyValue = getDataFieldValue(data, relatedProperty);
-                    boolean conditionsMet = isValueSpecified(relatedPropertyValue, condition.values());
-                    if (conditionsMet && dataFieldValue == null) {
-                        errors.add(new ConformanceError()
-                            .errorType(ConformanceError.Type.MISSING_VALUE)
-                            .dataJson(toJson(data))
-                            .errorField(modelField)
-                            .errorMessage(String.format("%s is required given %s value is %s",
-                                modelField.getName(), relatedProperty.getName(), relatedPropertyValue)));
-                    } else if (conditionsMet) {
-                        CDSDataType requiredCDSDataType = null;
-                        ConditionalCDSDataType[] conditionalCDSDataTypes = condition.conditionalCDSDataTypes();
-                        if (conditionalCDSDataTypes.length > 0) {
-                            for (ConditionalCDSDataType conditionalCDSDataType : conditionalCDSDataTypes) {
-                                if (conditionalCDSDataType.value().equals("" + relatedPropertyValue)) {
-                                    requiredCDSDataType = conditionalCDSDataType.cdsDataType();
-                                }
-                            }
-                        }
-                        if (requiredCDSDataType != null) {
-                            checkAgainstCDSDataType(data, modelField, dataFieldValue, requiredCDSDataType, errors);
-                        }
-                    }
-                }
-            }
-            Class<?> modelFieldType = modelField.getType();
-            if (modelFieldType.isArray()) {
-                if (modelFieldType.getComponentType().isAnnotationPresent(DataDefinition.class)
-                    && dataFieldValue != null
-                    && Array.getLength(dataFieldValue) > 0) {
-                    Object[] values = unpack(dataFieldValue);
-                    for (Object value : values) {
-                        checkAgainstModel(value, modelFieldType.getComponentType(), errors);
-                    }
-                }
-            } else if (ReflectionUtil.isSetOrList(modelFieldType)) {
-                Class<?> itemType = ReflectionUtil.getItemType(modelFieldType, modelField.getGenericType());
-                if (itemType.isAnnotationPresent(DataDefinition.class)
-                    && dataFieldValue != null) {
-                    if (dataFieldValue.getClass().isArray()) {
-                        Object[] values = unpack(dataFieldValue);
-                        for (Object value : values) {
-                            checkAgainstModel(value, itemType, errors);
-                        }
-                    } else {
-                        for (Object value : (Collection) dataFieldValue) {
-                            checkAgainstModel(value, itemType, errors);
-                        }
-                    }
-                }
-            }
-            if (dataFieldValue != null && modelFieldType.isAnnotationPresent(DataDefinition.class)) {
-                checkAgainstModel(dataFieldValue, modelFieldType, errors);
-            }
-        }
+    private static final Map<Class<?>, Boolean> ALL_OF_EXISTS = new ConcurrentHashMap<>();
+
+    public static void checkAgainstModel(Object data, Class<?> model, List<ConformanceError> errors) {
+        Object event = ValidationEvents.begin(ValidationEvents.Kind.MODEL_CHECK);
+        int errorCount = errors.size();
+        long start = System.nanoTime();
+        ValidationPlan.of(model, data.getClass()).check(data, errors);
+        Metrics.get().recordStage(ValidationMetrics.Stage.STRUCTURAL_CHECK, System.nanoTime() - start);
+        ValidationEvents.commit(event, model, null, -1, errors.size() - errorCount);
     }
 
     public static ObjectMapper createObjectMapper() {
@@ -131,7 +55,7 @@ public class ConformanceUtil {
     }
 
 
-    private static boolean isValueSpecified(Object relatedPropertyValue, String[] values) {
+    static boolean isValueSpecified(Object relatedPropertyValue, String[] values) {
         if (relatedPropertyValue == null) return false;
         for (String value : values) {
             if (value.equals(relatedPropertyValue.toString())) {
@@ -141,55 +65,44 @@ public class ConformanceUtil {
         return false;
     }
 
-    private static void checkAgainstCDSDataType(Object data, Field modelField, Object dataFieldValue, CDSDataType cdsDataType, List<ConformanceError> errors) {
+    static void checkAgainstCDSDataType(DataJson dataJson, Field modelField, Object dataFieldValue, CDSDataType cdsDataType, List<ConformanceError> errors) {
         CustomDataType customDataType = cdsDataType.value();
         if (customDataType.getPattern() != null) {
-            if (!dataFieldValue.toString().matches(customDataType.getPattern())) {
+            if (!CustomDataTypeMatchers.matches(customDataType, dataFieldValue.toString())) {
                 errors.add(new ConformanceError()
                     .errorType(ConformanceError.Type.PATTERN_NOT_MATCHED)
                     .cdsDataType(cdsDataType)
-                    .dataJson(toJson(data))
+                    .dataJson(dataJson)
                     .errorField(modelField)
                     .errorFieldValue(dataFieldValue)
                 );
             }
         }
-        Number min = customDataType.getMin();
-        if (min != null && new BigDecimal(min.toString()).compareTo(new BigDecimal(dataFieldValue.toString())) > 0) {
-            errors.add(new ConformanceError()
-                .errorType(ConformanceError.Type.NUMBER_TOO_SMALL)
-                .cdsDataType(cdsDataType)
-                .dataJson(toJson(data))
-                .errorField(modelField)
-                .errorFieldValue(dataFieldValue)
-            );
-        }
-        Number max = customDataType.getMax();
-        if (max != null && new BigDecimal(max.toString()).compareTo(new BigDecimal(dataFieldValue.toString())) < 0) {
-            errors.add(new ConformanceError()
-                .errorType(ConformanceError.Type.NUMBER_TOO_BIG)
-                .cdsDataType(cdsDataType)
-                .dataJson(toJson(data))
-                .errorField(modelField)
-                .errorFieldValue(dataFieldValue)
-            );
-        }
-        if (CustomDataType.URI.equals(customDataType)) {
-            try {
-                new URI(dataFieldValue.toString());
-            } catch (URISyntaxException e) {
+        NumericBounds numericBounds = NumericBounds.of(customDataType);
+        if (numericBounds != null) {
+            ConformanceError.Type errorType = numericBounds.check(dataFieldValue);
+            if (errorType != null) {
                 errors.add(new ConformanceError()
-                    .errorType(ConformanceError.Type.PATTERN_NOT_MATCHED)
+                    .errorType(errorType)
                     .cdsDataType(cdsDataType)
-                    .dataJson(toJson(data))
+                    .dataJson(dataJson)
                     .errorField(modelField)
                     .errorFieldValue(dataFieldValue)
                 );
             }
         }
+        if (CustomDataType.URI.equals(customDataType) && !CustomDataTypeMatchers.isUri(dataFieldValue.toString())) {
+            errors.add(new ConformanceError()
+                .errorType(ConformanceError.Type.PATTERN_NOT_MATCHED)
+                .cdsDataType(cdsDataType)
+                .dataJson(dataJson)
+                .errorField(modelField)
+                .errorFieldValue(dataFieldValue)
+            );
+        }
     }
 
-    private static String buildAnyOfErrorMessage(String[] anyOfProperties) {
+    static String buildAnyOfErrorMessage(String[] anyOfProperties) {
         StringBuilder sb = new StringBuilder("At least one of the [");
         for (int i = 0; i < anyOfProperties.length; i++) {
             if (i > 0) sb.append(", ");
@@ -199,67 +112,30 @@ public class ConformanceUtil {
         return sb.toString();
     }
 
-    private static List<Field> getAllProperties(Class<?> model) {
-        List<Field> properties = FieldUtils.getFieldsListWithAnnotation(model, Property.class);
-        DataDefinition dataDefinition = model.getAnnotation(DataDefinition.class);
-        if (dataDefinition != null && dataDefinition.allOf().length > 0) {
-            for (Class<?> clazz : dataDefinition.allOf()) {
-                properties.addAll(FieldUtils.getFieldsListWithAnnotation(clazz, Property.class));
-            }
-        }
-        return properties;
-    }
-
-    private static Map<String, Field> buildPropertyMap(List<Field> properties) {
-        Map<String, Field> map = new HashMap<>();
-        properties.forEach(p -> map.put(p.getName(), p));
-        return map;
-    }
-
-    private static String[] getAnyOfProperties(Class<?> model) {
-        DataDefinition dataDefinition = model.getAnnotation(DataDefinition.class);
-        if (dataDefinition != null) {
-            return dataDefinition.anyOf();
-        }
-        return null;
+    private static boolean isGeneratedClass(Class<?> clazz) {
+        return clazz.getSimpleName().endsWith(GENERATED_CLASS_SUFFIX);
     }
 
-    private static Map<String, Object> getPropertyValues(Object data, String[] properties) {
-        Map<String, Object> values = new HashMap<>();
-        for (String property : properties) {
-            Object value = getDataFieldValue(data, property);
-            if (value != null) {
-                values.put(property, value);
+    public static Class<?> expandModel(Class<?> modelClass) {
+        Class<?> expandedClass = EXPANDED_CLASSES.get(modelClass);
+        if (expandedClass != null) {
+            return expandedClass;
+        }
+        // cglib must not generate the same class twice, expansions are serialised (the lock is reentrant for
+        // the nested models) and happen once per model
+        synchronized (EXPANDED_CLASSES) {
+            expandedClass = EXPANDED_CLASSES.get(modelClass);
+            if (expandedClass == null) {
+                Object event = ValidationEvents.begin(ValidationEvents.Kind.MODEL_EXPANSION);
+                expandedClass = doExpandModel(modelClass);
+                EXPANDED_CLASSES.put(modelClass, expandedClass);
+                ValidationEvents.commit(event, modelClass, null, -1, 0);
             }
+            return expandedClass;
         }
-        return values;
     }
 
-    private static Object getDataFieldValue(Object data, Field modelField) {
-        String fieldName = modelField.getName();
-        return getDataFieldValue(data, fieldName);
-    }
-
-    private static Object getDataFieldValue(Object data, String fieldName) {
-        if (isGeneratedClass(data.getClass())) {
-            fieldName = "$cglib_prop_" + fieldName;
-        }
-        Field dataField = FieldUtils.getField(data.getClass(), fieldName, true);
-        dataField.setAccessible(true);
-        Object dataFieldValue;
-        try {
-            dataFieldValue = dataField.get(data);
-        } catch (IllegalAccessException e) {
-            throw new Error(e); // should never happen
-        }
-        return dataFieldValue;
-    }
-
-    private static boolean isGeneratedClass(Class<?> clazz) {
-        return clazz.getSimpleName().endsWith(GENERATED_CLASS_SUFFIX);
-    }
-
-    public static Class<?> expandModel(Class<?> modelClass) {
+    private static Class<?> doExpandModel(Class<?> modelClass) {
         if (allOfExists(modelClass)) {
             DataDefinition dataDefinition = modelClass.getAnnotation(DataDefinition.class);
             if (dataDefinition != null && dataDefinition.allOf().length > 0) {
@@ -286,6 +162,15 @@ public class ConformanceUtil {
     }
 
     private static boolean allOfExists(Class<?> modelClass) {
+        Boolean exists = ALL_OF_EXISTS.get(modelClass);
+        if (exists == null) {
+            exists = doAllOfExists(modelClass);
+            ALL_OF_EXISTS.put(modelClass, exists);
+        }
+        return exists;
+    }
+
+    private static boolean doAllOfExists(Class<?> modelClass) {
         if (modelClass.isEnum() || !ReflectionUtil.isCDSModel(modelClass)) return false;
         DataDefinition dataDefinition = modelClass.getAnnotation(DataDefinition.class);
         if (dataDefinition != null && dataDefinition.allOf().length > 0) {
@@ -320,23 +205,20 @@ public class ConformanceUtil {
     }
 
 
-    private static Object[] unpack(Object array) {
-        Object[] values = new Object[Array.getLength(array)];
-        for (int i = 0; i < values.length; i++)
-            values[i] = Array.get(array, i);
-        return values;
-    }
-
     public static String toJson(Object dataObject) {
         try {
-            return createObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(dataObject);
+            return ObjectMapperRegistry.getPrettyWriter().writeValueAsString(dataObject);
         } catch (JsonProcessingException e) {
             return dataObject.toString();
         }
     }
 
     public static String getFieldName(Object dataObject, String originalFieldName) {
-        if (isGeneratedClass(dataObject.getClass())) {
+        return getFieldName(dataObject.getClass(), originalFieldName);
+    }
+
+    public static String getFieldName(Class<?> dataClass, String originalFieldName) {
+        if (isGeneratedClass(dataClass)) {
             return GENERATED_PROPERTY_PREFIX + originalFieldName;
         }
         return originalFieldName;
@@ -0,0 +1,200 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.support.data.CustomDataType;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Reusable matchers for the patterns of the {@link CustomDataType}s. A pattern is compiled once, and the patterns
+ * of the most common types are matched by hand written scanners instead. A scanner is only used for the exact
+ * regular expression it implements, so a type whose pattern changes in cds-models falls back to its compiled
+ * pattern.
+ */
+public class CustomDataTypeMatchers {
+
+    private static final String DECIMAL = "-?\\d+\\.\\d{2,16}";
+
+    private static final String ASCII = "[\\x00-\\x7F]*";
+
+    private static final String BOOLEAN = "true|false";
+
+    private static final String NATURAL_NUMBER = "\\d+";
+
+    private static final String DATE_TIME = "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?(Z|[+-]\\d{2}:\\d{2})";
+
+    private static final Map<String, Predicate<String>> SCANNERS = new HashMap<>();
+
+    private static final Map<CustomDataType, Predicate<String>> MATCHERS = new EnumMap<>(CustomDataType.class);
+
+    static {
+        addScanner(DECIMAL, CustomDataTypeMatchers::isDecimal);
+        addScanner(ASCII, CustomDataTypeMatchers::isAscii);
+        addScanner(BOOLEAN, CustomDataTypeMatchers::isBoolean);
+        addScanner("(true|false)", CustomDataTypeMatchers::isBoolean);
+        addScanner(NATURAL_NUMBER, CustomDataTypeMatchers::isNaturalNumber);
+        addScanner(DATE_TIME, CustomDataTypeMatchers::isDateTime);
+        for (CustomDataType customDataType : CustomDataType.values()) {
+            String pattern = customDataType.getPattern();
+            if (pattern != null) {
+                MATCHERS.put(customDataType, getMatcher(pattern));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the value matches the pattern of the data type, true if the data type has no pattern.
+     */
+    public static boolean matches(CustomDataType customDataType, String value) {
+        Predicate<String> matcher = MATCHERS.get(customDataType);
+        return matcher == null || matcher.test(value);
+    }
+
+    /**
+     * Returns whether {@code new URI(value)} would succeed, without the exception for common absolute URLs.
+     */
+    public static boolean isUri(String value) {
+        if (isSimpleUrl(value)) return true;
+        try {
+            new URI(value);
+            return true;
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    static Map<String, Predicate<String>> getScanners() {
+        return Collections.unmodifiableMap(SCANNERS);
+    }
+
+    private static void addScanner(String regex, Predicate<String> scanner) {
+        SCANNERS.put(regex, scanner);
+        SCANNERS.put("^" + regex + "$", scanner);
+    }
+
+    private static Predicate<String> getMatcher(String regex) {
+        Predicate<String> scanner = SCANNERS.get(regex);
+        if (scanner != null) return scanner;
+        Pattern pattern = Pattern.compile(regex);
+        return value -> pattern.matcher(value).matches();
+    }
+
+    private static boolean isDecimal(String value) {
+        int length = value.length();
+        int i = 0;
+        if (i < length && value.charAt(i) == '-') i++;
+        int integerStart = i;
+        while (i < length && isDigit(value.charAt(i))) i++;
+        if (i == integerStart || i == length || value.charAt(i) != '.') return false;
+        int fractionLength = length - i - 1;
+        return fractionLength >= 2 && fractionLength <= 16 && isDigits(value, i + 1, length);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) return false;
+        }
+        return true;
+    }
+
+    private static boolean isBoolean(String value) {
+        return "true".equals(value) || "false".equals(value);
+    }
+
+    private static boolean isNaturalNumber(String value) {
+        return !value.isEmpty() && isDigits(value, 0, value.length());
+    }
+
+    private static boolean isDateTime(String value) {
+        int length = value.length();
+        if (length < 20 || !isDigits(value, 0, 4) || value.charAt(4) != '-' || !isDigits(value, 5, 7)
+            || value.charAt(7) != '-' || !isDigits(value, 8, 10) || value.charAt(10) != 'T'
+            || !isDigits(value, 11, 13) || value.charAt(13) != ':' || !isDigits(value, 14, 16)
+            || value.charAt(16) != ':' || !isDigits(value, 17, 19)) {
+            return false;
+        }
+        int i = 19;
+        if (value.charAt(i) == '.') {
+            int fractionStart = ++i;
+            while (i < length && isDigit(value.charAt(i))) i++;
+            if (i == fractionStart) return false;
+        }
+        if (i == length - 1) return value.charAt(i) == 'Z';
+        return i == length - 6 && (value.charAt(i) == '+' || value.charAt(i) == '-')
+            && isDigits(value, i + 1, i + 3) && value.charAt(i + 3) == ':' && isDigits(value, i + 4, length);
+    }
+
+    /**
+     * Matches {@code scheme://authority[path][?query][#fragment]} made of characters every RFC 2396 parser
+     * accepts in those positions, with a host and an optional numeric port as the authority.
+     */
+    private static boolean isSimpleUrl(String value) {
+        int length = value.length();
+        if (length == 0 || !isAlpha(value.charAt(0))) return false;
+        int i = 1;
+        while (i < length && isSchemeChar(value.charAt(i))) i++;
+        if (!value.startsWith("://", i)) return false;
+        i += 3;
+        int hostStart = i;
+        while (i < length && (isAlphaNumeric(value.charAt(i)) || value.charAt(i) == '-' || value.charAt(i) == '.')) i++;
+        if (i == hostStart) return false;
+        if (i < length && value.charAt(i) == ':') {
+            int portStart = ++i;
+            while (i < length && isDigit(value.charAt(i))) i++;
+            if (i == portStart) return false;
+        }
+        if (i < length && value.charAt(i) != '/' && value.charAt(i) != '?' && value.charAt(i) != '#') return false;
+        boolean fragment = false;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= length || !isHexDigit(value.charAt(i + 1)) || !isHexDigit(value.charAt(i + 2))) {
+                    return false;
+                }
+                i += 3;
+                continue;
+            }
+            if (c == '#') {
+                if (fragment) return false;
+                fragment = true;
+            } else if (!isAlphaNumeric(c) && "-_.!~*'();/?:@&=+$,".indexOf(c) < 0) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    private static boolean isDigits(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+    }
+
+    private static boolean isAlpha(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isAlphaNumeric(char c) {
+        return isAlpha(c) || isDigit(c);
+    }
+
+    private static boolean isSchemeChar(char c) {
+        return isAlphaNumeric(c) || c == '+' || c == '-' || c == '.';
+    }
+}
@@ -0,0 +1,240 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.DataJson;
+import net.sf.cglib.core.ReflectUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validator class generated at runtime for one {@link ValidationPlan}. The generated {@code check} reads every
+ * property once, tests it for null and calls the pattern, range, condition and child checks of its rule in
+ * straight-line code. The getters and rules are constants of the generated class (static final fields), so
+ * the JIT compiles the getters to plain field reads and can inline the checks of the whole model.
+ * <p>
+ * The class is defined in the class loader and package of the plan, which lets it call the package private
+ * rule methods; the data class is only reached through the getters, so private fields are read as well.
+ */
+abstract class GeneratedValidator {
+
+    private static final String PACKAGE = GeneratedValidator.class.getPackage().getName().replace('.', '/');
+
+    private static final String SUPER_NAME = Type.getInternalName(GeneratedValidator.class);
+
+    private static final String PLAN = Type.getInternalName(ValidationPlan.class);
+
+    private static final String RULE = Type.getInternalName(ValidationPlan.PropertyRule.class);
+
+    private static final String HANDLE = Type.getInternalName(MethodHandle.class);
+
+    private static final String DATA_JSON = Type.getInternalName(DataJson.class);
+
+    private static final String LIST = Type.getInternalName(List.class);
+
+    private static final String PLAN_DESC = "L" + PLAN + ";";
+
+    private static final String RULE_DESC = "L" + RULE + ";";
+
+    private static final String HANDLE_DESC = "L" + HANDLE + ";";
+
+    private static final String DATA_JSON_DESC = "L" + DATA_JSON + ";";
+
+    private static final String LIST_DESC = "L" + LIST + ";";
+
+    private static final String OBJECT_DESC = "Ljava/lang/Object;";
+
+    private static final int DATA = 1;
+
+    private static final int ERRORS = 2;
+
+    private static final int JSON = 3;
+
+    private static final int FIRST_VALUE = 4;
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    // hands the plan to the static initializer of the class generated for it
+    private static final ThreadLocal<ValidationPlan> PENDING_PLAN = new ThreadLocal<>();
+
+    abstract void check(Object data, List<ConformanceError> errors);
+
+    static ValidationPlan pendingPlan() {
+        return PENDING_PLAN.get();
+    }
+
+    static GeneratedValidator generate(ValidationPlan plan) throws Exception {
+        String className = PACKAGE + "/GeneratedValidator$" + plan.getModel().getSimpleName() + "$"
+            + COUNTER.incrementAndGet();
+        byte[] bytes = generateClass(className, plan);
+        ClassLoader classLoader = GeneratedValidator.class.getClassLoader();
+        // defineClass also initializes the class
+        PENDING_PLAN.set(plan);
+        try {
+            Class<?> validatorClass = ReflectUtils.defineClass(className.replace('/', '.'), bytes, classLoader);
+            return (GeneratedValidator) validatorClass.newInstance();
+        } finally {
+            PENDING_PLAN.remove();
+        }
+    }
+
+    private static byte[] generateClass(String className, ValidationPlan plan) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null, SUPER_NAME, null);
+        int valueCount = plan.reader.size();
+        int ruleCount = plan.rules.length;
+        int fieldAccess = Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+        cw.visitField(fieldAccess, "PLAN", PLAN_DESC, null, null).visitEnd();
+        for (int i = 0; i < valueCount; i++) {
+            cw.visitField(fieldAccess, "GETTER" + i, HANDLE_DESC, null, null).visitEnd();
+        }
+        for (int i = 0; i < ruleCount; i++) {
+            cw.visitField(fieldAccess, "RULE" + i, RULE_DESC, null, null).visitEnd();
+        }
+        generateStaticInitializer(cw, className, valueCount, ruleCount);
+        generateConstructor(cw);
+        generateCheck(cw, className, plan);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void generateStaticInitializer(ClassWriter cw, String className, int valueCount, int ruleCount) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        mv.visitCode();
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPER_NAME, "pendingPlan", "()" + PLAN_DESC, false);
+        mv.visitFieldInsn(Opcodes.PUTSTATIC, className, "PLAN", PLAN_DESC);
+        for (int i = 0; i < valueCount; i++) {
+            mv.visitFieldInsn(Opcodes.GETSTATIC, className, "PLAN", PLAN_DESC);
+            mv.visitFieldInsn(Opcodes.GETFIELD, PLAN, "reader", "L" + Type.getInternalName(PropertyReader.class) + ";");
+            pushInt(mv, i);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(PropertyReader.class), "getter",
+                "(I)" + HANDLE_DESC, false);
+            mv.visitFieldInsn(Opcodes.PUTSTATIC, className, "GETTER" + i, HANDLE_DESC);
+        }
+        for (int i = 0; i < ruleCount; i++) {
+            mv.visitFieldInsn(Opcodes.GETSTATIC, className, "PLAN", PLAN_DESC);
+            mv.visitFieldInsn(Opcodes.GETFIELD, PLAN, "rules", "[" + RULE_DESC);
+            pushInt(mv, i);
+            mv.visitInsn(Opcodes.AALOAD);
+            mv.visitFieldInsn(Opcodes.PUTSTATIC, className, "RULE" + i, RULE_DESC);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateConstructor(ClassWriter cw) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, SUPER_NAME, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generates the equivalent of {@link ValidationPlan#check} with the loops over the values and rules unrolled.
+     */
+    private static void generateCheck(ClassWriter cw, String className, ValidationPlan plan) {
+        MethodVisitor mv = cw.visitMethod(0, "check", "(" + OBJECT_DESC + LIST_DESC + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, DATA);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, DATA_JSON, "of", "(" + OBJECT_DESC + ")" + DATA_JSON_DESC, false);
+        mv.visitVarInsn(Opcodes.ASTORE, JSON);
+        for (int i = 0; i < plan.reader.size(); i++) {
+            if (plan.reader.getter(i) == null) {
+                mv.visitInsn(Opcodes.ACONST_NULL);
+            } else {
+                mv.visitFieldInsn(Opcodes.GETSTATIC, className, "GETTER" + i, HANDLE_DESC);
+                mv.visitVarInsn(Opcodes.ALOAD, DATA);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, HANDLE, "invokeExact",
+                    "(" + OBJECT_DESC + ")" + OBJECT_DESC, false);
+            }
+            mv.visitVarInsn(Opcodes.ASTORE, FIRST_VALUE + i);
+        }
+        if (plan.anyOfIndexes != null) {
+            Label anyPresent = new Label();
+            for (int index : plan.anyOfIndexes) {
+                mv.visitVarInsn(Opcodes.ALOAD, FIRST_VALUE + index);
+                mv.visitJumpInsn(Opcodes.IFNONNULL, anyPresent);
+            }
+            mv.visitFieldInsn(Opcodes.GETSTATIC, className, "PLAN", PLAN_DESC);
+            mv.visitVarInsn(Opcodes.ALOAD, JSON);
+            mv.visitVarInsn(Opcodes.ALOAD, ERRORS);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PLAN, "anyOfMissing", "(" + DATA_JSON_DESC + LIST_DESC + ")V",
+                false);
+            mv.visitLabel(anyPresent);
+        }
+        for (int i = 0; i < plan.rules.length; i++) {
+            generateRule(mv, className, i, plan.rules[i]);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateRule(MethodVisitor mv, String className, int ruleIndex,
+                                     ValidationPlan.PropertyRule rule) {
+        int value = FIRST_VALUE + rule.valueIndex;
+        Label present = new Label();
+        Label checked = new Label();
+        mv.visitVarInsn(Opcodes.ALOAD, value);
+        mv.visitJumpInsn(Opcodes.IFNONNULL, present);
+        if (rule.required) {
+            loadRule(mv, className, ruleIndex);
+            mv.visitVarInsn(Opcodes.ALOAD, JSON);
+            mv.visitVarInsn(Opcodes.ALOAD, ERRORS);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RULE, "missing", "(" + DATA_JSON_DESC + LIST_DESC + ")V", false);
+        }
+        mv.visitJumpInsn(Opcodes.GOTO, checked);
+        mv.visitLabel(present);
+        if (rule.cdsDataType != null) {
+            loadRule(mv, className, ruleIndex);
+            mv.visitVarInsn(Opcodes.ALOAD, JSON);
+            mv.visitVarInsn(Opcodes.ALOAD, value);
+            mv.visitVarInsn(Opcodes.ALOAD, ERRORS);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RULE, "checkDataType",
+                "(" + DATA_JSON_DESC + OBJECT_DESC + LIST_DESC + ")V", false);
+        }
+        mv.visitLabel(checked);
+        if (rule.relatedProperty != null) {
+            loadRule(mv, className, ruleIndex);
+            mv.visitVarInsn(Opcodes.ALOAD, FIRST_VALUE + rule.relatedIndex);
+            mv.visitVarInsn(Opcodes.ALOAD, JSON);
+            mv.visitVarInsn(Opcodes.ALOAD, value);
+            mv.visitVarInsn(Opcodes.ALOAD, ERRORS);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RULE, "checkCondition",
+                "(" + OBJECT_DESC + DATA_JSON_DESC + OBJECT_DESC + LIST_DESC + ")V", false);
+        }
+        if (rule.hasChildren()) {
+            Label absent = new Label();
+            mv.visitVarInsn(Opcodes.ALOAD, value);
+            mv.visitJumpInsn(Opcodes.IFNULL, absent);
+            loadRule(mv, className, ruleIndex);
+            mv.visitVarInsn(Opcodes.ALOAD, value);
+            mv.visitVarInsn(Opcodes.ALOAD, ERRORS);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RULE, "checkChildren", "(" + OBJECT_DESC + LIST_DESC + ")V",
+                false);
+            mv.visitLabel(absent);
+        }
+    }
+
+    private static void loadRule(MethodVisitor mv, String className, int ruleIndex) {
+        mv.visitFieldInsn(Opcodes.GETSTATIC, className, "RULE" + ruleIndex, RULE_DESC);
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+}
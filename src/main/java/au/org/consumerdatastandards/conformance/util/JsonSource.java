@@ -0,0 +1,111 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Json payload bytes that can be parsed any number of times without being copied, whether they live in a
+ * byte array slice, a heap buffer or a direct (including memory mapped) buffer.
+ */
+public abstract class JsonSource {
+
+    public static JsonSource of(byte[] data) {
+        return of(data, 0, data.length);
+    }
+
+    public static JsonSource of(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException(String.format("offset %d, length %d, array length %d",
+                offset, length, data.length));
+        }
+        return new ByteArraySource(data, offset, length);
+    }
+
+    public static JsonSource of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new ByteArraySource(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return new ByteBufferSource(buffer.slice());
+    }
+
+    public abstract int length();
+
+    public abstract JsonParser createParser(JsonFactory jsonFactory) throws IOException;
+
+    /**
+     * Returns a new buffer over the payload bytes, positioned at the first byte.
+     */
+    public abstract ByteBuffer asByteBuffer();
+
+    public <T> T read(ObjectReader objectReader) throws IOException {
+        try (JsonParser parser = createParser(objectReader.getFactory())) {
+            return objectReader.readValue(parser);
+        }
+    }
+
+    private static class ByteArraySource extends JsonSource {
+
+        private final byte[] data;
+
+        private final int offset;
+
+        private final int length;
+
+        ByteArraySource(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public JsonParser createParser(JsonFactory jsonFactory) throws IOException {
+            return jsonFactory.createParser(data, offset, length);
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(data, offset, length).slice();
+        }
+
+        @Override
+        public <T> T read(ObjectReader objectReader) throws IOException {
+            return objectReader.readValue(data, offset, length);
+        }
+    }
+
+    private static class ByteBufferSource extends JsonSource {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public JsonParser createParser(JsonFactory jsonFactory) throws IOException {
+            InputStream inputStream = new ByteBufferBackedInputStream(buffer.duplicate());
+            return jsonFactory.createParser(inputStream);
+        }
+
+        @Override
+        public ByteBuffer asByteBuffer() {
+            return buffer.duplicate();
+        }
+    }
+}
@@ -6,14 +6,17 @@ import au.org.consumerdatastandards.reflection.ReflectionUtil;
 import au.org.consumerdatastandards.support.EndpointResponse;
 import au.org.consumerdatastandards.support.ResponseCode;
 import au.org.consumerdatastandards.support.data.DataDefinition;
+import au.org.consumerdatastandards.support.data.Property;
 import au.org.consumerdatastandards.support.model.APIModel;
 import au.org.consumerdatastandards.support.model.EndpointModel;
 import au.org.consumerdatastandards.support.model.ParamModel;
 import au.org.consumerdatastandards.support.model.SectionModel;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.commons.lang3.reflect.FieldUtils;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.*;
 
 public class ModelConformanceConverter {
@@ -30,9 +33,65 @@ public class ModelConformanceConverter {
         }
         conformanceModel.setResponseMap(responseMap);
         conformanceModel.setPayloadMap(payloadMap);
+        conformanceModel.setPropertyIndex(buildPropertyIndex(payloadMap));
         return conformanceModel;
     }
 
+    private static Map<String, Set<Class<?>>> buildPropertyIndex(Map<Class<?>, Payload> payloadMap) {
+        Map<String, Set<Class<?>>> propertyIndex = new HashMap<>();
+        for (Map.Entry<Class<?>, Payload> entry : payloadMap.entrySet()) {
+            Class<?> model = entry.getKey();
+            Payload payload = entry.getValue();
+            Class<?> dataClass = payload.getDataClass();
+            if (model.isArray()) {
+                model = model.getComponentType();
+                dataClass = dataClass.getComponentType();
+            }
+            Set<String> propertyNames = getJsonPropertyNames(dataClass);
+            payload.setPropertyNames(propertyNames);
+            payload.setRequiredPropertyNames(getRequiredPropertyNames(model));
+            for (String propertyName : propertyNames) {
+                propertyIndex.computeIfAbsent(propertyName, k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        return propertyIndex;
+    }
+
+    private static Set<String> getJsonPropertyNames(Class<?> dataClass) {
+        Set<String> propertyNames = new HashSet<>();
+        if (!dataClass.isAnnotationPresent(DataDefinition.class)
+            && !dataClass.getSimpleName().endsWith(ConformanceUtil.GENERATED_CLASS_SUFFIX)) {
+            return propertyNames;
+        }
+        for (Field field : FieldUtils.getAllFields(dataClass)) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+            JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+            if (jsonProperty != null && !jsonProperty.value().isEmpty()) {
+                propertyNames.add(jsonProperty.value());
+            } else {
+                propertyNames.add(field.getName().replace(ConformanceUtil.GENERATED_PROPERTY_PREFIX, ""));
+            }
+        }
+        return propertyNames;
+    }
+
+    private static Set<String> getRequiredPropertyNames(Class<?> model) {
+        Set<String> requiredPropertyNames = new HashSet<>();
+        List<Field> properties = FieldUtils.getFieldsListWithAnnotation(model, Property.class);
+        DataDefinition dataDefinition = model.getAnnotation(DataDefinition.class);
+        if (dataDefinition != null) {
+            for (Class<?> clazz : dataDefinition.allOf()) {
+                properties.addAll(FieldUtils.getFieldsListWithAnnotation(clazz, Property.class));
+            }
+        }
+        for (Field property : properties) {
+            if (property.getAnnotation(Property.class).required()) {
+                requiredPropertyNames.add(property.getName());
+            }
+        }
+        return requiredPropertyNames;
+    }
+
     private static void add(EndpointModel endpointModel,
                             Map<String, Map<ResponseCode, EndpointResponse>> responseMap,
                             Map<Class<?>, Payload> payloadMap,
@@ -131,6 +190,7 @@ public class ModelConformanceConverter {
             Payload payload = new Payload();
             payload.setDataClass(generatedArrayType);
             payload.setPayloadType(Payload.Type.EMBEDDED_DATA);
+            payload.setArray(true);
             payload.setEndpointModel(endpointModel);
             payloadMap.put(arrayType, payload);
         }
@@ -0,0 +1,111 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The min and max of a {@link CustomDataType}, converted once. Integral and double values are compared as
+ * primitives whenever the bound is exactly representable, anything else is compared as a {@link BigDecimal}
+ * parsed once per value.
+ */
+class NumericBounds {
+
+    private static final Map<CustomDataType, NumericBounds> BOUNDS = new EnumMap<>(CustomDataType.class);
+
+    static {
+        for (CustomDataType customDataType : CustomDataType.values()) {
+            if (customDataType.getMin() != null || customDataType.getMax() != null) {
+                BOUNDS.put(customDataType, new NumericBounds(customDataType.getMin(), customDataType.getMax()));
+            }
+        }
+    }
+
+    private final Bound min;
+
+    private final Bound max;
+
+    private NumericBounds(Number min, Number max) {
+        this.min = min == null ? null : new Bound(min);
+        this.max = max == null ? null : new Bound(max);
+    }
+
+    /**
+     * Returns the bounds of the data type, or null if it has neither a min nor a max.
+     */
+    static NumericBounds of(CustomDataType customDataType) {
+        return BOUNDS.get(customDataType);
+    }
+
+    /**
+     * Returns NUMBER_TOO_SMALL or NUMBER_TOO_BIG if the value is out of bounds, null otherwise.
+     */
+    ConformanceError.Type check(Object value) {
+        Object comparable = isPrimitiveNumber(value) ? value : toDecimal(value);
+        if (min != null && min.compareTo(comparable) > 0) {
+            return ConformanceError.Type.NUMBER_TOO_SMALL;
+        }
+        if (max != null && max.compareTo(comparable) < 0) {
+            return ConformanceError.Type.NUMBER_TOO_BIG;
+        }
+        return null;
+    }
+
+    private static boolean isPrimitiveNumber(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+            || value instanceof Double && !((Double) value).isNaN() && !((Double) value).isInfinite();
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal) return (BigDecimal) value;
+        if (value instanceof BigInteger) return new BigDecimal((BigInteger) value);
+        return new BigDecimal(value.toString());
+    }
+
+    private static class Bound {
+
+        private final BigDecimal decimal;
+
+        private final long longValue;
+
+        private final boolean exactLong;
+
+        private final double doubleValue;
+
+        private final boolean exactDouble;
+
+        Bound(Number bound) {
+            decimal = new BigDecimal(bound.toString());
+            longValue = decimal.longValue();
+            exactLong = decimal.compareTo(BigDecimal.valueOf(longValue)) == 0;
+            doubleValue = decimal.doubleValue();
+            exactDouble = !Double.isInfinite(doubleValue) && decimal.compareTo(new BigDecimal(doubleValue)) == 0;
+        }
+
+        /**
+         * Compares the bound to a primitive number or a {@link BigDecimal}.
+         */
+        int compareTo(Object value) {
+            if (value instanceof BigDecimal) {
+                return decimal.compareTo((BigDecimal) value);
+            }
+            if (value instanceof Double) {
+                double doubleValue = (Double) value;
+                // a double equal to the bound may still print as a different decimal, leave that to BigDecimal
+                if (exactDouble && this.doubleValue != doubleValue) {
+                    return this.doubleValue < doubleValue ? -1 : 1;
+                }
+                return decimal.compareTo(new BigDecimal(value.toString()));
+            }
+            long longValue = ((Number) value).longValue();
+            if (exactLong) {
+                return Long.compare(this.longValue, longValue);
+            }
+            return decimal.compareTo(BigDecimal.valueOf(longValue));
+        }
+    }
+}
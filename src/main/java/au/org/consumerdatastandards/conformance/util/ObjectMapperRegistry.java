@@ -0,0 +1,51 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide, thread safe holder of the conformance {@link ObjectMapper} and of the immutable
+ * {@link ObjectReader}s built from it, so Jackson's serializer and deserializer caches survive between calls.
+ */
+public class ObjectMapperRegistry {
+
+    private static final ObjectMapper OBJECT_MAPPER = ConformanceUtil.createObjectMapper();
+
+    private static final ObjectWriter PRETTY_WRITER = OBJECT_MAPPER.writerWithDefaultPrettyPrinter();
+
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, ObjectReader> MATCHING_READERS = new ConcurrentHashMap<>();
+
+    public static ObjectMapper getObjectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    public static ObjectReader getReader(Class<?> dataClass) {
+        return READERS.computeIfAbsent(dataClass, OBJECT_MAPPER::readerFor);
+    }
+
+    /**
+     * Returns a reader for trying a candidate model, which fails fast with an exception without stack trace
+     * when the payload does not fit the data class.
+     */
+    public static ObjectReader getMatchingReader(Class<?> dataClass) {
+        return MATCHING_READERS.computeIfAbsent(dataClass,
+            key -> getReader(key).withHandler(BindFailureHandler.INSTANCE));
+    }
+
+    public static ObjectWriter getPrettyWriter() {
+        return PRETTY_WRITER;
+    }
+
+    public static void warmUp(ConformanceModel conformanceModel) {
+        for (Class<?> modelClass : conformanceModel.getPayloadModels()) {
+            getMatchingReader(conformanceModel.getPlayload(modelClass).getDataClass());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * The tokens of a payload, parsed once and replayed for every model the payload is bound to. Replays are
+ * indistinguishable from parsing the payload again: floats are kept as their original text and converted only
+ * when bound, as the json parser converts them (a plain token buffer would render 0.0000001 as 1E-7).
+ */
+public class PayloadTokens extends TokenBuffer {
+
+    private PayloadTokens(JsonParser parser) {
+        super(parser);
+    }
+
+    /**
+     * Returns the tokens of the first value of the payload.
+     */
+    public static PayloadTokens of(JsonSource jsonSource, JsonFactory jsonFactory) throws IOException {
+        try (JsonParser parser = jsonSource.createParser(jsonFactory)) {
+            PayloadTokens tokens = new PayloadTokens(parser);
+            if (parser.nextToken() != null) {
+                tokens.copyCurrentStructure(parser);
+            }
+            return tokens;
+        }
+    }
+
+    public <T> T read(ObjectReader objectReader) throws IOException {
+        try (JsonParser parser = asParser()) {
+            return objectReader.readValue(parser);
+        }
+    }
+
+    @Override
+    public void copyCurrentEvent(JsonParser p) throws IOException {
+        if (p.getCurrentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            writeNumber(p.getText());
+        } else {
+            super.copyCurrentEvent(p);
+        }
+    }
+
+    @Override
+    public JsonParser asParser(ObjectCodec codec) {
+        return new FloatTextParser(super.asParser(codec));
+    }
+
+    /**
+     * Reads floats from their text on demand, converting them the way the json parser does. The token buffer's
+     * own parser would parse 1e5 as a long and wrap out of range ints.
+     */
+    private static class FloatTextParser extends JsonParserDelegate {
+
+        FloatTextParser(JsonParser parser) {
+            super(parser);
+        }
+
+        private boolean isFloat() {
+            return delegate.getCurrentToken() == JsonToken.VALUE_NUMBER_FLOAT;
+        }
+
+        @Override
+        public NumberType getNumberType() throws IOException {
+            return isFloat() ? NumberType.DOUBLE : super.getNumberType();
+        }
+
+        @Override
+        public Number getNumberValue() throws IOException {
+            return isFloat() ? (Number) getDoubleValue() : super.getNumberValue();
+        }
+
+        @Override
+        public double getDoubleValue() throws IOException {
+            return isFloat() ? Double.parseDouble(getText()) : super.getDoubleValue();
+        }
+
+        @Override
+        public float getFloatValue() throws IOException {
+            return isFloat() ? (float) getDoubleValue() : super.getFloatValue();
+        }
+
+        @Override
+        public BigDecimal getDecimalValue() throws IOException {
+            return isFloat() ? new BigDecimal(getText()) : super.getDecimalValue();
+        }
+
+        @Override
+        public int getIntValue() throws IOException {
+            if (!isFloat()) return super.getIntValue();
+            double value = getDoubleValue();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new JsonParseException(this, String.format("Numeric value (%s) out of range of int (%d - %d)",
+                    getText(), Integer.MIN_VALUE, Integer.MAX_VALUE));
+            }
+            return (int) value;
+        }
+
+        @Override
+        public long getLongValue() throws IOException {
+            if (!isFloat()) return super.getLongValue();
+            double value = getDoubleValue();
+            if (value < Long.MIN_VALUE || value > Long.MAX_VALUE) {
+                throw new JsonParseException(this, String.format("Numeric value (%s) out of range of long (%d - %d)",
+                    getText(), Long.MIN_VALUE, Long.MAX_VALUE));
+            }
+            return (long) value;
+        }
+
+        @Override
+        public BigInteger getBigIntegerValue() throws IOException {
+            return isFloat() ? BigDecimal.valueOf(getDoubleValue()).toBigInteger() : super.getBigIntegerValue();
+        }
+
+        @Override
+        public int getValueAsInt() throws IOException {
+            return isFloat() ? getIntValue() : super.getValueAsInt();
+        }
+
+        @Override
+        public int getValueAsInt(int defaultValue) throws IOException {
+            return isFloat() ? getIntValue() : super.getValueAsInt(defaultValue);
+        }
+
+        @Override
+        public long getValueAsLong() throws IOException {
+            return isFloat() ? getLongValue() : super.getValueAsLong();
+        }
+
+        @Override
+        public long getValueAsLong(long defaultValue) throws IOException {
+            return isFloat() ? getLongValue() : super.getValueAsLong(defaultValue);
+        }
+
+        @Override
+        public double getValueAsDouble() throws IOException {
+            return isFloat() ? getDoubleValue() : super.getValueAsDouble();
+        }
+
+        @Override
+        public double getValueAsDouble(double defaultValue) throws IOException {
+            return isFloat() ? getDoubleValue() : super.getValueAsDouble(defaultValue);
+        }
+    }
+}
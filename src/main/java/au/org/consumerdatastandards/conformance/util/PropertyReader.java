@@ -0,0 +1,59 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Reads a fixed list of model properties from data objects of one data class in a single call.
+ */
+class PropertyReader {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final MethodHandle[] getters;
+
+    PropertyReader(Class<?> dataClass, String[] propertyNames) {
+        getters = new MethodHandle[propertyNames.length];
+        for (int i = 0; i < propertyNames.length; i++) {
+            Field dataField = FieldUtils.getField(dataClass,
+                ConformanceUtil.getFieldName(dataClass, propertyNames[i]), true);
+            if (dataField == null) continue;
+            dataField.setAccessible(true);
+            try {
+                getters[i] = MethodHandles.lookup().unreflectGetter(dataField).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new Error(e); // should never happen
+            }
+        }
+    }
+
+    int size() {
+        return getters.length;
+    }
+
+    /**
+     * Returns the getter of the property at the index, typed {@code (Object)Object}, or null if the data class
+     * does not have the property.
+     */
+    MethodHandle getter(int index) {
+        return getters[index];
+    }
+
+    Object[] read(Object data) {
+        Object[] values = new Object[getters.length];
+        try {
+            for (int i = 0; i < getters.length; i++) {
+                if (getters[i] != null) {
+                    values[i] = (Object) getters[i].invokeExact(data);
+                }
+            }
+        } catch (Throwable t) {
+            throw new Error(t); // should never happen
+        }
+        return values;
+    }
+}
@@ -0,0 +1,398 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.DataJson;
+import au.org.consumerdatastandards.reflection.ReflectionUtil;
+import au.org.consumerdatastandards.support.data.*;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Validates a json payload against a model directly on the Jackson token stream, without binding it into
+ * model objects. Performs the same checks as {@link ConformanceUtil#checkAgainstModel} in one pass. As there
+ * is no object to render, the data json of the errors raised is the json path of the offending object.
+ * Properties and items which are neither models, collections nor scalars (maps, untyped objects, dates) are bound
+ * on their own with the conformance object mapper, so they are type checked as when binding the whole payload.
+ */
+public class StreamingValidator {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Map<Class<?>, ModelSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    public static boolean validate(byte[] jsonData, Class<?> model, List<ConformanceError> errors) throws IOException {
+        return validate(JsonSource.of(jsonData), model, errors);
+    }
+
+    /**
+     * @return false if the payload does not fit the structure of the model, in which case the content
+     * of errors is undefined
+     */
+    public static boolean validate(JsonSource jsonSource, Class<?> model, List<ConformanceError> errors) throws IOException {
+        try (JsonParser parser = jsonSource.createParser(JSON_FACTORY)) {
+            return validate(parser, model, errors);
+        }
+    }
+
+    /**
+     * Validates the payload read from the stream as it is parsed, without reading it into memory first.
+     *
+     * @return false if the payload does not fit the structure of the model, in which case the content
+     * of errors is undefined
+     */
+    public static boolean validate(InputStream inputStream, Class<?> model, List<ConformanceError> errors)
+        throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            return validate(parser, model, errors);
+        }
+    }
+
+    private static boolean validate(JsonParser parser, Class<?> model, List<ConformanceError> errors)
+        throws IOException {
+        try {
+            JsonToken token = parser.nextToken();
+            if (model.isArray()) {
+                if (token != JsonToken.START_ARRAY) return false;
+                validateArray(parser, model.getComponentType(), null, "$", errors);
+            } else {
+                if (token != JsonToken.START_OBJECT) return false;
+                validateObject(parser, getSchema(model), "$", errors);
+            }
+            return parser.nextToken() == null;
+        } catch (ModelMismatchException e) {
+            return false;
+        }
+    }
+
+    private static ModelSchema getSchema(Class<?> model) {
+        ModelSchema schema = SCHEMAS.get(model);
+        if (schema == null) {
+            schema = new ModelSchema(model);
+            SCHEMAS.putIfAbsent(model, schema);
+        }
+        return schema;
+    }
+
+    private static void validateObject(JsonParser parser, ModelSchema schema, String path,
+                                       List<ConformanceError> errors) throws IOException, ModelMismatchException {
+        DataJson dataJson = DataJson.rendered(path);
+        String[] values = new String[schema.propertyCount];
+        boolean[] present = new boolean[schema.propertyCount];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            PropertySchema property = schema.properties.get(parser.getCurrentName());
+            if (property == null) throw ModelMismatchException.INSTANCE;
+            String propertyPath = path + "." + property.name;
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) continue;
+            switch (property.kind) {
+                case OBJECT:
+                    if (token != JsonToken.START_OBJECT) throw ModelMismatchException.INSTANCE;
+                    present[property.index] = true;
+                    validateObject(parser, getSchema(property.type), propertyPath, errors);
+                    break;
+                case ARRAY:
+                    if (token != JsonToken.START_ARRAY) throw ModelMismatchException.INSTANCE;
+                    present[property.index] = true;
+                    validateArray(parser, property.type, property.reader, propertyPath, errors);
+                    break;
+                case ANY:
+                    Object value = readValue(parser, property.reader);
+                    if (value == null) continue;
+                    present[property.index] = true;
+                    values[property.index] = value.toString();
+                    if (property.cdsDataType != null) {
+                        ConformanceUtil.checkAgainstCDSDataType(dataJson, property.field, value, property.cdsDataType,
+                            errors);
+                    }
+                    break;
+                default:
+                    String scalar = readScalar(parser, token, property.kind, property.type);
+                    if (scalar == null) continue;
+                    present[property.index] = true;
+                    values[property.index] = scalar;
+                    if (property.cdsDataType != null) {
+                        ConformanceUtil.checkAgainstCDSDataType(dataJson, property.field, scalar, property.cdsDataType,
+                            errors);
+                    }
+            }
+        }
+        checkObject(schema, values, present, dataJson, errors);
+    }
+
+    private static void validateArray(JsonParser parser, Class<?> itemType, ObjectReader itemReader, String path,
+                                      List<ConformanceError> errors) throws IOException, ModelMismatchException {
+        Kind itemKind = Kind.of(itemType);
+        if (itemReader == null && (itemKind == Kind.ARRAY || itemKind == Kind.ANY)) {
+            itemReader = ObjectMapperRegistry.getMatchingReader(itemType);
+        }
+        int i = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NULL) {
+                switch (itemKind) {
+                    case OBJECT:
+                        if (token != JsonToken.START_OBJECT) throw ModelMismatchException.INSTANCE;
+                        validateObject(parser, getSchema(itemType), path + "[" + i + "]", errors);
+                        break;
+                    case ARRAY:
+                    case ANY:
+                        readValue(parser, itemReader);
+                        break;
+                    default:
+                        readScalar(parser, token, itemKind, itemType);
+                }
+            }
+            i++;
+        }
+    }
+
+    private static void checkObject(ModelSchema schema, String[] values, boolean[] present, DataJson dataJson,
+                                    List<ConformanceError> errors) {
+        if (schema.anyOf != null) {
+            boolean anyPresent = false;
+            for (int index : schema.anyOfIndexes) {
+                anyPresent |= index >= 0 && present[index];
+            }
+            if (!anyPresent) {
+                errors.add(new ConformanceError()
+                    .errorType(ConformanceError.Type.BROKEN_CONSTRAINT)
+                    .dataJson(dataJson)
+                    .errorMessage(ConformanceUtil.buildAnyOfErrorMessage(schema.anyOf)));
+            }
+        }
+        for (PropertySchema rule : schema.rules) {
+            if (rule.required && !present[rule.index]) {
+                errors.add(new ConformanceError()
+                    .errorType(ConformanceError.Type.MISSING_VALUE)
+                    .dataJson(dataJson)
+                    .errorField(rule.field));
+            }
+            if (rule.related == null) continue;
+            String relatedValue = values[rule.related.index];
+            if (!ConformanceUtil.isValueSpecified(relatedValue, rule.conditionValues)) continue;
+            if (!present[rule.index]) {
+                errors.add(new ConformanceError()
+                    .errorType(ConformanceError.Type.MISSING_VALUE)
+                    .dataJson(dataJson)
+                    .errorField(rule.field)
+                    .errorMessage(String.format("%s is required given %s value is %s",
+                        rule.field.getName(), rule.related.field.getName(), relatedValue)));
+            } else if (values[rule.index] != null) {
+                CDSDataType requiredCDSDataType = rule.conditionalCDSDataTypes.get(relatedValue);
+                if (requiredCDSDataType != null) {
+                    ConformanceUtil.checkAgainstCDSDataType(dataJson, rule.field, values[rule.index], requiredCDSDataType, errors);
+                }
+            }
+        }
+    }
+
+    private static Object readValue(JsonParser parser, ObjectReader reader) throws IOException, ModelMismatchException {
+        try {
+            return reader.readValue(parser);
+        } catch (JsonProcessingException e) {
+            throw ModelMismatchException.INSTANCE;
+        }
+    }
+
+    /**
+     * Returns the text of a scalar the way the property would be bound. Values which need no coercion are read
+     * from the token, all others are bound by Jackson, so that e.g. 1.5 read as an integer is 1 and 1 read as a
+     * boolean is true, exactly as when the whole payload is bound.
+     */
+    private static String readScalar(JsonParser parser, JsonToken token, Kind kind, Class<?> type)
+        throws IOException, ModelMismatchException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) throw ModelMismatchException.INSTANCE;
+        switch (kind) {
+            case INTEGER:
+                if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT
+                    && type != Short.class && type != short.class) {
+                    return String.valueOf(parser.getIntValue());
+                }
+                break;
+            case NUMBER:
+                if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    if (type == BigDecimal.class) return parser.getDecimalValue().toString();
+                    if (type == Double.class || type == double.class) return String.valueOf(parser.getDoubleValue());
+                }
+                break;
+            case BOOLEAN:
+                if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) return parser.getText();
+                break;
+            case ENUM:
+                if (token == JsonToken.VALUE_STRING) {
+                    String text = parser.getText();
+                    for (Object constant : type.getEnumConstants()) {
+                        if (((Enum<?>) constant).name().equals(text)) return text;
+                    }
+                }
+                break;
+            default:
+                return parser.getText();
+        }
+        Object value = readValue(parser, ObjectMapperRegistry.getMatchingReader(type));
+        return value == null ? null : value.toString();
+    }
+
+    private enum Kind {
+
+        OBJECT,
+        ARRAY,
+        STRING,
+        INTEGER,
+        NUMBER,
+        BOOLEAN,
+        ENUM,
+        ANY;
+
+        static Kind of(Class<?> type) {
+            if (type.isEnum()) return ENUM;
+            if (type.isAnnotationPresent(DataDefinition.class)) return OBJECT;
+            if (type.isArray() || ReflectionUtil.isSetOrList(type)) return ARRAY;
+            if (CharSequence.class.isAssignableFrom(type)) return STRING;
+            if (type == Boolean.class || type == boolean.class) return BOOLEAN;
+            if (type == Integer.class || type == int.class || type == Long.class || type == long.class
+                || type == Short.class || type == short.class || type == BigInteger.class) return INTEGER;
+            if (Number.class.isAssignableFrom(type) || type == double.class || type == float.class) return NUMBER;
+            return ANY;
+        }
+    }
+
+    private static class ModelSchema {
+
+        private final Map<String, PropertySchema> properties = new HashMap<>();
+
+        private final List<PropertySchema> rules = new ArrayList<>();
+
+        private final int propertyCount;
+
+        private final String[] anyOf;
+
+        private final int[] anyOfIndexes;
+
+        ModelSchema(Class<?> model) {
+            List<Field> fields = new ArrayList<>(Arrays.asList(FieldUtils.getAllFields(model)));
+            DataDefinition dataDefinition = model.getAnnotation(DataDefinition.class);
+            if (dataDefinition != null) {
+                for (Class<?> clazz : dataDefinition.allOf()) {
+                    fields.addAll(Arrays.asList(FieldUtils.getAllFields(clazz)));
+                }
+            }
+            Map<String, PropertySchema> byFieldName = new HashMap<>();
+            for (Field field : fields) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()
+                    || byFieldName.containsKey(field.getName())) continue;
+                PropertySchema property = new PropertySchema(field, byFieldName.size());
+                byFieldName.put(field.getName(), property);
+                properties.put(property.name, property);
+            }
+            propertyCount = byFieldName.size();
+            for (Field field : fields) {
+                if (field.isAnnotationPresent(Property.class)) {
+                    PropertySchema rule = byFieldName.get(field.getName());
+                    rule.resolveCondition(byFieldName);
+                    rules.add(rule);
+                }
+            }
+            if (dataDefinition != null && dataDefinition.anyOf().length > 1) {
+                anyOf = dataDefinition.anyOf();
+                anyOfIndexes = new int[anyOf.length];
+                for (int i = 0; i < anyOf.length; i++) {
+                    PropertySchema property = byFieldName.get(anyOf[i]);
+                    anyOfIndexes[i] = property == null ? -1 : property.index;
+                }
+            } else {
+                anyOf = null;
+                anyOfIndexes = null;
+            }
+        }
+    }
+
+    private static class PropertySchema {
+
+        private final Field field;
+
+        private final int index;
+
+        private final String name;
+
+        private final Kind kind;
+
+        private final Class<?> type;
+
+        private final boolean required;
+
+        private final CDSDataType cdsDataType;
+
+        private final ObjectReader reader;
+
+        private PropertySchema related;
+
+        private String[] conditionValues;
+
+        private Map<String, CDSDataType> conditionalCDSDataTypes;
+
+        PropertySchema(Field field, int index) {
+            this.field = field;
+            this.index = index;
+            JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+            this.name = jsonProperty != null && !jsonProperty.value().isEmpty() ? jsonProperty.value() : field.getName();
+            Class<?> fieldType = field.getType();
+            this.kind = Kind.of(fieldType);
+            if (fieldType.isArray()) {
+                this.type = fieldType.getComponentType();
+            } else if (ReflectionUtil.isSetOrList(fieldType)) {
+                this.type = ReflectionUtil.getItemType(fieldType, field.getGenericType());
+            } else {
+                this.type = fieldType;
+            }
+            Property property = field.getAnnotation(Property.class);
+            this.required = property != null && property.required();
+            this.cdsDataType = field.getAnnotation(CDSDataType.class);
+            // values which are not validated token by token are bound on their own, with their generic type
+            JavaType javaType = ObjectMapperRegistry.getObjectMapper().constructType(field.getGenericType());
+            if (kind == Kind.ARRAY) {
+                Kind itemKind = Kind.of(type);
+                javaType = itemKind == Kind.ARRAY || itemKind == Kind.ANY ? javaType.getContentType() : null;
+            } else if (kind != Kind.ANY) {
+                javaType = null;
+            }
+            this.reader = javaType != null ? ObjectMapperRegistry.getObjectMapper().readerFor(javaType)
+                .withHandler(BindFailureHandler.INSTANCE) : null;
+        }
+
+        void resolveCondition(Map<String, PropertySchema> byFieldName) {
+            Condition[] conditions = field.getAnnotation(Property.class).requiredIf();
+            if (conditions.length == 0) return;
+            related = byFieldName.get(conditions[0].propertyName());
+            conditionValues = conditions[0].values();
+            conditionalCDSDataTypes = new HashMap<>();
+            for (ConditionalCDSDataType conditionalCDSDataType : conditions[0].conditionalCDSDataTypes()) {
+                conditionalCDSDataTypes.put(conditionalCDSDataType.value(), conditionalCDSDataType.cdsDataType());
+            }
+        }
+    }
+
+    private static class ModelMismatchException extends Exception {
+
+        static final ModelMismatchException INSTANCE = new ModelMismatchException();
+
+        private ModelMismatchException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.DataJson;
+import au.org.consumerdatastandards.conformance.Payload;
+import au.org.consumerdatastandards.reflection.ReflectionUtil;
+import au.org.consumerdatastandards.support.data.*;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Immutable, compiled form of the checks {@link ConformanceUtil#checkAgainstModel} performs for one
+ * {@link DataDefinition} model against one data class (the model class itself or its cglib expanded class).
+ * Plans are compiled once and cached, so validating an object no longer rescans the model for annotations
+ * or resolves data fields by name.
+ * <p>
+ * With generated validators enabled (system property {@code cds.conformance.generatedValidators} or
+ * {@link #setGeneratedValidators(boolean)}), each plan is also compiled to a {@link GeneratedValidator} class
+ * which checks the properties in straight-line code.
+ * <p>
+ * Items of large arrays and collections can be validated in parallel, see {@link #setParallelValidation(int, int)}.
+ */
+public class ValidationPlan {
+
+    private static final Map<Class<?>, Map<Class<?>, ValidationPlan>> PLANS = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationPlan.class);
+
+    private static final int MIN_PARALLEL_CHUNK = 16;
+
+    private static volatile boolean generatedValidators = Boolean.getBoolean("cds.conformance.generatedValidators");
+
+    private static volatile int parallelThreshold = Integer.getInteger("cds.conformance.parallelThreshold", 0);
+
+    private static volatile ForkJoinPool parallelPool = new ForkJoinPool(
+        Integer.getInteger("cds.conformance.parallelism", Runtime.getRuntime().availableProcessors()));
+
+    private final Class<?> model;
+
+    private final Class<?> dataClass;
+
+    private final String[] anyOfProperties;
+
+    final int[] anyOfIndexes;
+
+    final PropertyRule[] rules;
+
+    final PropertyReader reader;
+
+    private final GeneratedValidator validator;
+
+    private ValidationPlan(Class<?> model, Class<?> dataClass) {
+        this.model = model;
+        this.dataClass = dataClass;
+        Map<String, Integer> valueIndexes = new LinkedHashMap<>();
+        List<Field> properties = getAllProperties(model);
+        Map<String, Field> propertyMap = new HashMap<>();
+        for (Field property : properties) {
+            propertyMap.put(property.getName(), property);
+            valueIndexes.putIfAbsent(property.getName(), valueIndexes.size());
+        }
+        DataDefinition dataDefinition = model.getAnnotation(DataDefinition.class);
+        if (dataDefinition != null && dataDefinition.anyOf().length > 1) {
+            anyOfProperties = dataDefinition.anyOf();
+            anyOfIndexes = new int[anyOfProperties.length];
+            for (int i = 0; i < anyOfProperties.length; i++) {
+                anyOfIndexes[i] = valueIndexes.computeIfAbsent(anyOfProperties[i], k -> valueIndexes.size());
+            }
+        } else {
+            anyOfProperties = null;
+            anyOfIndexes = null;
+        }
+        rules = new PropertyRule[properties.size()];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = new PropertyRule(properties.get(i), propertyMap, valueIndexes);
+        }
+        reader = new PropertyReader(dataClass, valueIndexes.keySet().toArray(new String[0]));
+        validator = generatedValidators ? generateValidator() : null;
+    }
+
+    private GeneratedValidator generateValidator() {
+        try {
+            return GeneratedValidator.generate(this);
+        } catch (Exception | LinkageError e) {
+            LOGGER.warn("Failed to generate the validator of " + model.getName() + ", using its plan: " + e);
+            return null;
+        }
+    }
+
+    public static ValidationPlan of(Class<?> model, Class<?> dataClass) {
+        return PLANS.computeIfAbsent(model, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(dataClass, k -> new ValidationPlan(model, dataClass));
+    }
+
+    /**
+     * Compiles the plans created from now on to generated validator classes, or stops doing so.
+     */
+    public static void setGeneratedValidators(boolean enabled) {
+        if (generatedValidators != enabled) {
+            generatedValidators = enabled;
+            PLANS.clear();
+        }
+    }
+
+    /**
+     * Validates the items of array and collection properties with at least {@code threshold} items in
+     * parallel on a fork/join pool of the given parallelism. A threshold of 0 or less disables parallel validation.
+     * Validations already running on the previous pool finish there, its idle workers then exit on their own.
+     */
+    public static synchronized void setParallelValidation(int threshold, int parallelism) {
+        if (parallelism != parallelPool.getParallelism()) {
+            parallelPool = new ForkJoinPool(parallelism);
+        }
+        parallelThreshold = threshold;
+    }
+
+    public static void compile(ConformanceModel conformanceModel) {
+        for (Class<?> modelClass : conformanceModel.getPayloadModels()) {
+            if (modelClass.isArray()) continue;
+            Payload payload = conformanceModel.getPlayload(modelClass);
+            of(modelClass, modelClass);
+            of(modelClass, payload.getDataClass());
+        }
+    }
+
+    public Class<?> getModel() {
+        return model;
+    }
+
+    public Class<?> getDataClass() {
+        return dataClass;
+    }
+
+    boolean isGenerated() {
+        return validator != null;
+    }
+
+    public void check(Object data, List<ConformanceError> errors) {
+        if (validator != null) {
+            validator.check(data, errors);
+            return;
+        }
+        DataJson dataJson = DataJson.of(data);
+        Object[] values = reader.read(data);
+        if (anyOfIndexes != null && noneHasValue(values, anyOfIndexes)) {
+            anyOfMissing(dataJson, errors);
+        }
+        for (PropertyRule rule : rules) {
+            rule.check(values, dataJson, errors);
+        }
+    }
+
+    void anyOfMissing(DataJson dataJson, List<ConformanceError> errors) {
+        errors.add(new ConformanceError()
+            .errorType(ConformanceError.Type.BROKEN_CONSTRAINT)
+            .dataJson(dataJson)
+            .errorMessage(ConformanceUtil.buildAnyOfErrorMessage(anyOfProperties))
+        );
+    }
+
+    private static boolean noneHasValue(Object[] values, int[] indexes) {
+        for (int index : indexes) {
+            if (values[index] != null) return false;
+        }
+        return true;
+    }
+
+    private static List<Field> getAllProperties(Class<?> model) {
+        List<Field> properties = FieldUtils.getFieldsListWithAnnotation(model, Property.class);
+        DataDefinition dataDefinition = model.getAnnotation(DataDefinition.class);
+        if (dataDefinition != null && dataDefinition.allOf().length > 0) {
+            for (Class<?> clazz : dataDefinition.allOf()) {
+                properties.addAll(FieldUtils.getFieldsListWithAnnotation(clazz, Property.class));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Validates a slice of the items of a collection property, splitting it in halves until the slices are
+     * small enough. Each slice collects its own errors, which are merged in item order.
+     */
+    private static class ItemsTask extends RecursiveTask<List<ConformanceError>> {
+
+        private final PropertyRule rule;
+
+        private final Object[] items;
+
+        private final int from;
+
+        private final int to;
+
+        private final int chunkSize;
+
+        ItemsTask(PropertyRule rule, Object[] items, int from, int to, int chunkSize) {
+            this.rule = rule;
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<ConformanceError> compute() {
+            if (to - from <= chunkSize) {
+                List<ConformanceError> errors = new ArrayList<>();
+                rule.checkItems(items, from, to, errors);
+                return errors;
+            }
+            int middle = (from + to) >>> 1;
+            ItemsTask right = new ItemsTask(rule, items, middle, to, chunkSize);
+            right.fork();
+            List<ConformanceError> errors = new ItemsTask(rule, items, from, middle, chunkSize).compute();
+            errors.addAll(right.join());
+            return errors;
+        }
+    }
+
+    private enum ChildKind {
+
+        NONE,
+        ARRAY,
+        COLLECTION
+    }
+
+    static class PropertyRule {
+
+        private final Field modelField;
+
+        final int valueIndex;
+
+        final boolean required;
+
+        final CDSDataType cdsDataType;
+
+        final Field relatedProperty;
+
+        final int relatedIndex;
+
+        private final String[] conditionValues;
+
+        private final Map<String, CDSDataType> conditionalCDSDataTypes;
+
+        private final ChildKind childKind;
+
+        private final Class<?> itemModel;
+
+        final boolean objectModel;
+
+        private volatile ValidationPlan lastItemPlan;
+
+        private volatile ValidationPlan lastObjectPlan;
+
+        PropertyRule(Field modelField, Map<String, Field> propertyMap, Map<String, Integer> valueIndexes) {
+            this.modelField = modelField;
+            this.valueIndex = valueIndexes.get(modelField.getName());
+            Property property = modelField.getAnnotation(Property.class);
+            this.required = property.required();
+            this.cdsDataType = modelField.getAnnotation(CDSDataType.class);
+            Condition[] conditions = property.requiredIf();
+            Field related = conditions.length > 0 ? propertyMap.get(conditions[0].propertyName()) : null;
+            if (related != null) {
+                relatedProperty = related;
+                relatedIndex = valueIndexes.get(related.getName());
+                conditionValues = conditions[0].values();
+                conditionalCDSDataTypes = new HashMap<>();
+                for (ConditionalCDSDataType conditionalCDSDataType : conditions[0].conditionalCDSDataTypes()) {
+                    conditionalCDSDataTypes.put(conditionalCDSDataType.value(), conditionalCDSDataType.cdsDataType());
+                }
+            } else {
+                relatedProperty = null;
+                relatedIndex = -1;
+                conditionValues = null;
+                conditionalCDSDataTypes = null;
+            }
+            Class<?> modelFieldType = modelField.getType();
+            if (modelFieldType.isArray()) {
+                Class<?> componentType = modelFieldType.getComponentType();
+                childKind = componentType.isAnnotationPresent(DataDefinition.class) ? ChildKind.ARRAY : ChildKind.NONE;
+                itemModel = componentType;
+            } else if (ReflectionUtil.isSetOrList(modelFieldType)) {
+                Class<?> itemType = ReflectionUtil.getItemType(modelFieldType, modelField.getGenericType());
+                childKind = itemType.isAnnotationPresent(DataDefinition.class) ? ChildKind.COLLECTION : ChildKind.NONE;
+                itemModel = itemType;
+            } else {
+                childKind = ChildKind.NONE;
+                itemModel = null;
+            }
+            objectModel = modelFieldType.isAnnotationPresent(DataDefinition.class);
+        }
+
+        void check(Object[] values, DataJson dataJson, List<ConformanceError> errors) {
+            Object value = values[valueIndex];
+            if (required && value == null) {
+                missing(dataJson, errors);
+            } else if (value != null && cdsDataType != null) {
+                checkDataType(dataJson, value, errors);
+            }
+            if (relatedProperty != null) {
+                checkCondition(values[relatedIndex], dataJson, value, errors);
+            }
+            if (value == null) return;
+            checkChildren(value, errors);
+        }
+
+        boolean hasChildren() {
+            return childKind != ChildKind.NONE || objectModel;
+        }
+
+        void missing(DataJson dataJson, List<ConformanceError> errors) {
+            errors.add(new ConformanceError()
+                .errorType(ConformanceError.Type.MISSING_VALUE)
+                .dataJson(dataJson)
+                .errorField(modelField));
+        }
+
+        void checkDataType(DataJson dataJson, Object value, List<ConformanceError> errors) {
+            ConformanceUtil.checkAgainstCDSDataType(dataJson, modelField, value, cdsDataType, errors);
+        }
+
+        void checkChildren(Object value, List<ConformanceError> errors) {
+            if (childKind == ChildKind.ARRAY || childKind == ChildKind.COLLECTION && value.getClass().isArray()) {
+                checkItems((Object[]) value, errors);
+            } else if (childKind == ChildKind.COLLECTION) {
+                Collection<?> items = (Collection<?>) value;
+                if (parallelThreshold > 0 && items.size() >= parallelThreshold) {
+                    checkItems(items.toArray(), errors);
+                } else {
+                    for (Object item : items) {
+                        checkItem(item, errors);
+                    }
+                }
+            }
+            if (objectModel) {
+                ValidationPlan plan = lastObjectPlan;
+                if (plan == null || plan.dataClass != value.getClass()) {
+                    plan = of(modelField.getType(), value.getClass());
+                    lastObjectPlan = plan;
+                }
+                plan.check(value, errors);
+            }
+        }
+
+        private void checkItems(Object[] items, List<ConformanceError> errors) {
+            if (parallelThreshold > 0 && items.length >= parallelThreshold) {
+                ForkJoinPool pool = parallelPool;
+                ItemsTask task = new ItemsTask(this, items, 0, items.length,
+                    Math.max(MIN_PARALLEL_CHUNK, items.length / (pool.getParallelism() * 4)));
+                errors.addAll(ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task));
+            } else {
+                checkItems(items, 0, items.length, errors);
+            }
+        }
+
+        private void checkItems(Object[] items, int from, int to, List<ConformanceError> errors) {
+            for (int i = from; i < to; i++) {
+                checkItem(items[i], errors);
+            }
+        }
+
+        private void checkItem(Object item, List<ConformanceError> errors) {
+            if (item == null) return;
+            ValidationPlan plan = lastItemPlan;
+            if (plan == null || plan.dataClass != item.getClass()) {
+                plan = of(itemModel, item.getClass());
+                lastItemPlan = plan;
+            }
+            plan.check(item, errors);
+        }
+
+        void checkCondition(Object relatedValue, DataJson dataJson, Object value, List<ConformanceError> errors) {
+            if (!ConformanceUtil.isValueSpecified(relatedValue, conditionValues)) return;
+            if (value == null) {
+                errors.add(new ConformanceError()
+                    .errorType(ConformanceError.Type.MISSING_VALUE)
+                    .dataJson(dataJson)
+                    .errorField(modelField)
+                    .errorMessage(String.format("%s is required given %s value is %s",
+                        modelField.getName(), relatedProperty.getName(), relatedValue)));
+            } else {
+                CDSDataType requiredCDSDataType = conditionalCDSDataTypes.get("" + relatedValue);
+                if (requiredCDSDataType != null) {
+                    ConformanceUtil.checkAgainstCDSDataType(dataJson, modelField, value, requiredCDSDataType, errors);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits JDK Flight Recorder events for the validation stages, the Java 11 version of the class packaged under
+ * {@code META-INF/versions/11}. Events are only created while a recording has them enabled.
+ */
+public class ValidationEvents {
+
+    public enum Kind {
+        PAYLOAD_VALIDATION,
+        RESPONSE_VALIDATION,
+        MODEL_CHECK,
+        MODEL_EXPANSION,
+        LINK_CHECK
+    }
+
+    private static final EventType[] EVENT_TYPES = {
+        EventType.getEventType(PayloadValidationEvent.class),
+        EventType.getEventType(ResponseValidationEvent.class),
+        EventType.getEventType(ModelCheckEvent.class),
+        EventType.getEventType(ModelExpansionEvent.class),
+        EventType.getEventType(LinkCheckEvent.class)
+    };
+
+    public static Object begin(Kind kind) {
+        if (!EVENT_TYPES[kind.ordinal()].isEnabled()) return null;
+        ValidationEvent event = create(kind);
+        event.begin();
+        return event;
+    }
+
+    public static void commit(Object event, Class<?> model, String operationId, long payloadSize, int errorCount) {
+        if (event == null) return;
+        ValidationEvent validationEvent = (ValidationEvent) event;
+        validationEvent.end();
+        if (validationEvent.shouldCommit()) {
+            validationEvent.model = model == null ? null : model.getSimpleName();
+            validationEvent.operationId = operationId;
+            validationEvent.payloadSize = payloadSize;
+            validationEvent.errorCount = errorCount;
+            validationEvent.commit();
+        }
+    }
+
+    private static ValidationEvent create(Kind kind) {
+        switch (kind) {
+            case PAYLOAD_VALIDATION:
+                return new PayloadValidationEvent();
+            case RESPONSE_VALIDATION:
+                return new ResponseValidationEvent();
+            case MODEL_CHECK:
+                return new ModelCheckEvent();
+            case MODEL_EXPANSION:
+                return new ModelExpansionEvent();
+            default:
+                return new LinkCheckEvent();
+        }
+    }
+
+    @Category({"CDS Conformance"})
+    @StackTrace(false)
+    abstract static class ValidationEvent extends Event {
+
+        @Label("Model")
+        String model;
+
+        @Label("Operation Id")
+        String operationId;
+
+        @Label("Payload Size")
+        @DataAmount
+        long payloadSize;
+
+        @Label("Error Count")
+        int errorCount;
+    }
+
+    @Name("au.org.consumerdatastandards.conformance.PayloadValidation")
+    @Label("Payload Validation")
+    @Description("Validation of a payload, from finding the candidate models to checking the matching one")
+    static class PayloadValidationEvent extends ValidationEvent {
+    }
+
+    @Name("au.org.consumerdatastandards.conformance.ResponseValidation")
+    @Label("Response Validation")
+    @Description("Validation of a response of an operation, including its pagination links")
+    static class ResponseValidationEvent extends ValidationEvent {
+    }
+
+    @Name("au.org.consumerdatastandards.conformance.ModelCheck")
+    @Label("Model Check")
+    @Description("Check of bound data against its model")
+    static class ModelCheckEvent extends ValidationEvent {
+    }
+
+    @Name("au.org.consumerdatastandards.conformance.ModelExpansion")
+    @Label("Model Expansion")
+    @Description("Generation of the data class of a model, done once per model")
+    static class ModelExpansionEvent extends ValidationEvent {
+    }
+
+    @Name("au.org.consumerdatastandards.conformance.LinkCheck")
+    @Label("Link Check")
+    @Description("Check of the pagination meta and links of a response")
+    static class LinkCheckEvent extends ValidationEvent {
+    }
+}
@@ -0,0 +1,19 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors running blocking client tasks, the Java 21 version of the class packaged under
+ * {@code META-INF/versions/21}. Every task runs on its own virtual thread, the parallelism is left to the callers.
+ */
+public class TaskExecutors {
+
+    public static boolean isVirtual() {
+        return true;
+    }
+
+    public static ExecutorService newExecutor(String name, int parallelism) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+    }
+}
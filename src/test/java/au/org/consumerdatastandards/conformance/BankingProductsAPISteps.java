@@ -1,13 +1,20 @@
 package au.org.consumerdatastandards.conformance;
 
 import au.org.consumerdatastandards.api.banking.models.*;
+import au.org.consumerdatastandards.conformance.client.ExchangeCapture;
+import au.org.consumerdatastandards.conformance.client.LoadGenerator;
+import au.org.consumerdatastandards.conformance.client.PooledTransport;
+import au.org.consumerdatastandards.conformance.client.ProductCatalogueCrawler;
+import au.org.consumerdatastandards.conformance.client.ProductDetailFanOut;
+import au.org.consumerdatastandards.conformance.client.Transport;
+import au.org.consumerdatastandards.conformance.client.TransportRequest;
+import au.org.consumerdatastandards.conformance.client.TransportResponse;
 import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import au.org.consumerdatastandards.conformance.util.CustomDataTypeMatchers;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
 import au.org.consumerdatastandards.support.ResponseCode;
 import au.org.consumerdatastandards.support.data.CustomDataType;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.util.DateTime;
-import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
 import net.thucydides.core.annotations.Step;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -15,91 +22,143 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.ReflectionUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 import static au.org.consumerdatastandards.api.banking.BankingProductsAPI.ParamEffective;
 import static au.org.consumerdatastandards.conformance.ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA;
-import static net.serenitybdd.rest.SerenityRest.given;
 import static org.junit.Assert.*;
 
 public class BankingProductsAPISteps {
 
+    private static final int MAX_CAPTURED_EXCHANGES = 100;
+
+    private static final int MAX_CAPTURED_BODY_BYTES = 64 * 1024;
+
+    // shared by all tests, so connections are kept alive from one test to the next
+    private static PooledTransport pooledTransport;
+
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private PayloadValidator payloadValidator = new PayloadValidator();
 
     private String apiBasePath;
 
-    private Response listProductsResponse;
+    private ExchangeCapture exchangeCapture = new ExchangeCapture(MAX_CAPTURED_EXCHANGES, MAX_CAPTURED_BODY_BYTES);
+
+    private Transport transport = exchangeCapture.wrap(new RestAssuredTransport());
+
+    private int maxInFlight;
+
+    private double requestsPerSecond;
 
-    private Response getProductDetailResponse;
+    private TransportResponse listProductsResponse;
+
+    private TransportResponse getProductDetailResponse;
 
     private String requestUrl;
 
     private ResponseBankingProductList responseBankingProductList;
 
+    private ProductCatalogueCrawler.Result productCatalogue;
+
+    private ProductDetailFanOut.Report productDetailReport;
+
+    private LoadGenerator.Report loadReport;
+
     @Step("Setup API base path to {0}")
     void setupApiBasePath(String apiBasePath) {
         this.apiBasePath = apiBasePath;
     }
 
-    @Step("Request /banking/products")
-    void listProducts(String effective, String updatedSince, String brand, String productCategory, Integer page,
-                      Integer pageSize) {
-        String url = apiBasePath + "/banking/products";
-        requestUrl = url;
-        boolean paramAdded = false;
-        RequestSpecification given = given()
-                .header("Accept", "application/json")
-                .header("x-v", 1);
-        if (!StringUtils.isBlank(effective)) {
-            given.queryParam("effective", effective);
-            requestUrl += "?effective=" + effective;
-            paramAdded = true;
-        }
-        if (!StringUtils.isBlank(updatedSince)) {
-            given.queryParam("updated-since", updatedSince);
-            requestUrl += (paramAdded ? "&" : "?") + "updated-since=" + updatedSince;
-            paramAdded = true;
-        }
-        if (!StringUtils.isBlank(brand)) {
-            given.queryParam("brand", brand);
-            requestUrl += (paramAdded ? "&" : "?") + "brand=" + brand;
-            paramAdded = true;
+    @Step("Setup up to {0} requests in flight and {1} requests per second per host")
+    void setupConcurrency(int maxInFlight, double requestsPerSecond) {
+        this.maxInFlight = maxInFlight;
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    @Step("Setup {0} transport")
+    void setupTransport(String transportName) {
+        if ("pooled".equals(transportName)) {
+            transport = exchangeCapture.wrap(getPooledTransport(maxInFlight));
+        } else {
+            transport = exchangeCapture.wrap(new RestAssuredTransport());
         }
-        if (!StringUtils.isBlank(productCategory)) {
-            given.queryParam("product-category", productCategory);
-            requestUrl += (paramAdded ? "&" : "?") + "product-category=" + productCategory;
-            paramAdded = true;
+    }
+
+    /**
+     * Logs the captured exchanges of the given urls, exchanges are only logged once something went wrong.
+     */
+    void flushExchanges(Collection<String> urls) {
+        logExchanges(exchangeCapture.drain(urls));
+    }
+
+    /**
+     * Logs all captured exchanges, exchanges are only logged once something went wrong.
+     */
+    void flushExchanges() {
+        logExchanges(exchangeCapture.drain());
+    }
+
+    private void logExchanges(List<ExchangeCapture.Exchange> exchanges) {
+        for (ExchangeCapture.Exchange exchange : exchanges) {
+            logger.info("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+            logger.error("Captured exchange:\n{}", exchange);
         }
-        if (page != null) {
-            given.queryParam("page", page);
-            requestUrl += (paramAdded ? "&" : "?") + "page=" + page;
-            paramAdded = true;
+    }
+
+    private static synchronized PooledTransport getPooledTransport(int maxConnections) {
+        if (pooledTransport == null) {
+            pooledTransport = new PooledTransport(maxConnections);
         }
-        if (pageSize != null) {
-            given.queryParam("page-size", pageSize);
-            requestUrl += (paramAdded ? "&" : "?") + "page-size=" + pageSize;
+        return pooledTransport;
+    }
+
+    /**
+     * Returns the transport for the crawler and the product detail fan-out, which SerenityRest is not made for.
+     */
+    private Transport getConcurrentTransport() {
+        return exchangeCapture.wrap(getPooledTransport(maxInFlight));
+    }
+
+    private TransportResponse execute(String url) {
+        try {
+            TransportResponse response = transport.execute(TransportRequest.getJson(url, 1));
+            // buffer the body now, which also hands a pooled connection back
+            response.getBodyAsBytes();
+            return response;
+        } catch (IOException e) {
+            fail("Failed to request " + url + ": " + e.getMessage());
+            return null;
         }
+    }
 
-        listProductsResponse = given.when().get(url).then().log().all().extract().response();
+    @Step("Request /banking/products")
+    void listProducts(String effective, String updatedSince, String brand, String productCategory, Integer page,
+                      Integer pageSize) {
+        requestUrl = ProductCatalogueCrawler.listProductsUrl(apiBasePath, effective, updatedSince, brand,
+                productCategory, page, pageSize);
+        listProductsResponse = execute(requestUrl);
     }
 
     @Step("Validate /banking/products response")
     void validateListProductsResponse(String effective, String updatedSince, String brand, String productCategory,
                                       Integer page, Integer pageSize) {
         boolean paramsValid = validateListProductsParams(effective, updatedSince, productCategory, page, pageSize);
-        int statusCode = listProductsResponse.statusCode();
+        int statusCode = listProductsResponse.getStatusCode();
         if (!paramsValid) {
             assertEquals(ResponseCode.BAD_REQUEST.getCode(), statusCode);
         } else {
             assertEquals(ResponseCode.OK.getCode(), statusCode);
             List<ConformanceError> conformanceErrors = new ArrayList<>();
-            String contentType = listProductsResponse.contentType();
+            String contentType = listProductsResponse.getContentType();
             if (contentType == null) {
                 conformanceErrors.add(new ConformanceError().errorType(DATA_NOT_MATCHING_CRITERIA)
                         .errorMessage("missing content-type application/json in response header"));
@@ -107,10 +166,9 @@ public class BankingProductsAPISteps {
                 conformanceErrors.add(new ConformanceError().errorType(DATA_NOT_MATCHING_CRITERIA)
                         .errorMessage(String.format("invalid content-type of %s specified", contentType)));
             }
-            String json = listProductsResponse.getBody().asString();
-            ObjectMapper objectMapper = ConformanceUtil.createObjectMapper();
             try {
-                responseBankingProductList = objectMapper.readValue(json, ResponseBankingProductList.class);
+                String json = listProductsResponse.getBodyAsString();
+                responseBankingProductList = ObjectMapperRegistry.getReader(ResponseBankingProductList.class).readValue(json);
                 conformanceErrors.addAll(payloadValidator.validateResponse(this.requestUrl, responseBankingProductList,
                         "listProducts", statusCode));
                 ResponseBankingProductListData data = getProductListData(responseBankingProductList);
@@ -125,7 +183,9 @@ public class BankingProductsAPISteps {
                     logger.info("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
                     logger.error(error.getDescription());
                 }
-
+                if (!conformanceErrors.isEmpty()) {
+                    flushExchanges(Collections.singleton(requestUrl));
+                }
                 assertTrue("Conformance errors found in response payload"
                                 + buildConformanceErrorsDescription(conformanceErrors), conformanceErrors.isEmpty());
             } catch (IOException e) {
@@ -134,6 +194,51 @@ public class BankingProductsAPISteps {
         }
     }
 
+    @Step("Crawl all pages of /banking/products")
+    void crawlProducts(String effective, String updatedSince, String brand, String productCategory,
+                       Integer pageSize) {
+        ProductCatalogueCrawler crawler = new ProductCatalogueCrawler(getConcurrentTransport(), apiBasePath,
+                payloadValidator, maxInFlight);
+        try {
+            productCatalogue = crawler.crawl(effective, updatedSince, brand, productCategory, pageSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted while crawling /banking/products");
+        }
+        logger.info("Crawled {} pages of /banking/products in {} ms", productCatalogue.getPages().size(),
+                productCatalogue.getElapsedNanos() / 1_000_000);
+    }
+
+    @Step("Validate all pages of /banking/products")
+    void validateProductCatalogue(String effective, String updatedSince, String brand, String productCategory) {
+        List<ConformanceError> conformanceErrors = new ArrayList<>();
+        for (ProductCatalogueCrawler.Page page : productCatalogue.getPages()) {
+            conformanceErrors.addAll(page.getErrors());
+            if (page.getResponse() != null) {
+                List<BankingProduct> products = getProducts(
+                        getProductListData((ResponseBankingProductList) page.getResponse()));
+                if (products != null) {
+                    for (BankingProduct bankingProduct : products) {
+                        conformanceErrors.addAll(checkDataAgainstCriteria(bankingProduct, effective, updatedSince,
+                                brand, productCategory));
+                    }
+                }
+            }
+        }
+        conformanceErrors.addAll(productCatalogue.getCatalogueErrors());
+        for (ConformanceError error : conformanceErrors) {
+            logger.info("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+            logger.error(error.getDescription());
+        }
+        List<String> failedUrls = new ArrayList<>();
+        for (ProductCatalogueCrawler.Page page : productCatalogue.getPages()) {
+            if (!page.getErrors().isEmpty()) failedUrls.add(page.getUrl());
+        }
+        flushExchanges(failedUrls);
+        assertTrue("Conformance errors found in product catalogue"
+                + buildConformanceErrorsDescription(conformanceErrors), conformanceErrors.isEmpty());
+    }
+
     private List<ConformanceError> checkDataAgainstCriteria(BankingProduct bankingProduct, String effective,
                                                             String updatedSince, String brand, String productCategory) {
         List<ConformanceError> errors = new ArrayList<>();
@@ -288,10 +393,9 @@ public class BankingProductsAPISteps {
     }
 
     public List<String> getProductIds() {
-        String json = listProductsResponse.getBody().asString();
-        ObjectMapper objectMapper = ConformanceUtil.createObjectMapper();
         try {
-            responseBankingProductList = objectMapper.readValue(json, ResponseBankingProductList.class);
+            String json = listProductsResponse.getBodyAsString();
+            responseBankingProductList = ObjectMapperRegistry.getReader(ResponseBankingProductList.class).readValue(json);
             if (responseBankingProductList != null) {
                 List<BankingProduct> products = getProducts(getProductListData(responseBankingProductList));
                 List<String> productIds = new ArrayList<>();
@@ -308,32 +412,27 @@ public class BankingProductsAPISteps {
 
     @Step("Request /banking/products/{productId}")
     void getProductDetail(String productId) {
-        String url = apiBasePath + "/banking/products/" + productId;
-        requestUrl = url;
-        getProductDetailResponse = given()
-                .header("Accept", "application/json")
-                .header("x-v", 1)
-                .when().get(url).then().log().body().extract().response();
+        requestUrl = apiBasePath + "/banking/products/" + productId;
+        getProductDetailResponse = execute(requestUrl);
     }
 
     @Step(value = "Validate /banking/products/{productId} response")
     void validateGetProductDetailResponse(String productId) {
-        int statusCode = getProductDetailResponse.statusCode();
-        if (!productId.matches(CustomDataType.ASCII.getPattern())) {
+        int statusCode = getProductDetailResponse.getStatusCode();
+        if (!CustomDataTypeMatchers.matches(CustomDataType.ASCII, productId)) {
             assertEquals(ResponseCode.BAD_REQUEST.getCode(), statusCode);
         } else {
             assertEquals(ResponseCode.OK.getCode(), statusCode);
             List<ConformanceError> conformanceErrors = new ArrayList<>();
-            String contentType = getProductDetailResponse.contentType();
-            if (!validateContentTypeHeader(contentType)) {
+            String contentType = getProductDetailResponse.getContentType();
+            if (contentType == null || !validateContentTypeHeader(contentType)) {
                 conformanceErrors.add(new ConformanceError().errorType(DATA_NOT_MATCHING_CRITERIA)
                         .errorMessage("missing content-type application/json in response header"));
             }
-            String json = getProductDetailResponse.getBody().asString();
-            ObjectMapper objectMapper = ConformanceUtil.createObjectMapper();
             try {
+                String json = getProductDetailResponse.getBodyAsString();
                 Class<?> expandedResponseClass = ConformanceUtil.expandModel(ResponseBankingProductById.class);
-                Object responseBankingProductById = objectMapper.readValue(json, expandedResponseClass);
+                Object responseBankingProductById = ObjectMapperRegistry.getReader(expandedResponseClass).readValue(json);
                 conformanceErrors.addAll(payloadValidator.validateResponse(this.requestUrl, responseBankingProductById,
                         "getProductDetail", statusCode));
                 Object data = getBankingProductDetail(responseBankingProductById);
@@ -347,6 +446,9 @@ public class BankingProductsAPISteps {
                     logger.info("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
                     logger.error(error.getDescription());
                 }
+                if (!conformanceErrors.isEmpty()) {
+                    flushExchanges(Collections.singleton(requestUrl));
+                }
                 String message = "Conformance errors found in response payload: "
                         + buildConformanceErrorsDescription(conformanceErrors);
                 assertTrue(message, conformanceErrors.isEmpty());
@@ -356,6 +458,81 @@ public class BankingProductsAPISteps {
         }
     }
 
+    @Step("Request /banking/products/{productId} for every product")
+    void getAllProductDetails(List<String> productIds) {
+        ProductDetailFanOut fanOut = new ProductDetailFanOut(getConcurrentTransport(), apiBasePath,
+                payloadValidator, maxInFlight, requestsPerSecond);
+        try {
+            productDetailReport = fanOut.fetchAll(productIds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted while requesting product details");
+        }
+        logger.info("Fetched {} product details in {} ms", productDetailReport.getResults().size(),
+                productDetailReport.getElapsedNanos() / 1_000_000);
+    }
+
+    @Step("Validate /banking/products/{productId} responses of every product")
+    void validateAllProductDetails() {
+        List<ConformanceError> conformanceErrors = productDetailReport.getErrors();
+        for (ProductDetailFanOut.ProductResult result : productDetailReport.getFailedResults()) {
+            logger.info("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+            logger.error("{} errors in {}", result.getErrors().size(), result.getUrl());
+            for (ConformanceError error : result.getErrors()) {
+                logger.error(error.getDescription());
+            }
+        }
+        List<String> failedUrls = new ArrayList<>();
+        for (ProductDetailFanOut.ProductResult result : productDetailReport.getFailedResults()) {
+            failedUrls.add(result.getUrl());
+        }
+        flushExchanges(failedUrls);
+        assertTrue(productDetailReport.getFailedResults().size() + " of " + productDetailReport.getResults().size()
+                + " products have conformance errors" + buildConformanceErrorsDescription(conformanceErrors),
+                conformanceErrors.isEmpty());
+    }
+
+    @Step("Load /banking/products at {0} and /banking/products/{productId} at {1} requests per second for {2} s")
+    void runLoad(double listProductsRate, double productDetailRate, long durationSeconds, long intervalSeconds) {
+        // not captured, the ring buffer would only hold the last moments of the run
+        LoadGenerator loadGenerator = new LoadGenerator(getPooledTransport(maxInFlight), apiBasePath,
+                payloadValidator, Runtime.getRuntime().availableProcessors());
+        if (listProductsRate > 0) {
+            List<String> pageUrls = new ArrayList<>();
+            for (ProductCatalogueCrawler.Page page : productCatalogue.getPages()) {
+                pageUrls.add(page.getUrl());
+            }
+            loadGenerator.listProducts(listProductsRate, pageUrls);
+        }
+        if (productDetailRate > 0) {
+            loadGenerator.productDetails(productDetailRate, productCatalogue.getProductIds());
+        }
+        try {
+            loadReport = loadGenerator.run(durationSeconds * 1000, intervalSeconds * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted while loading the data holder");
+        }
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        loadReport.print(new PrintStream(report, true));
+        logger.info("Load of {} s:\n{}", durationSeconds, report);
+    }
+
+    @Step("Validate the responses received under load")
+    void validateLoad() {
+        List<ConformanceError> errorSamples = loadReport.getErrorSamples();
+        for (ConformanceError error : errorSamples) {
+            logger.info("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+            logger.error(error.getDescription());
+        }
+        assertFalse("Failed requests or conformance errors found under load, first errors:"
+                + buildConformanceErrorsDescription(errorSamples), loadReport.hasErrors());
+    }
+
+    public List<String> getCatalogueProductIds() {
+        return productCatalogue.getProductIds();
+    }
+
     private String buildConformanceErrorsDescription(List<ConformanceError> conformanceErrors) {
         StringBuilder sb = new StringBuilder();
         for (ConformanceError error : conformanceErrors) {
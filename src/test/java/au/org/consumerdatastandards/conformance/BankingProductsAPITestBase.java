@@ -5,11 +5,16 @@ import net.thucydides.core.util.EnvironmentVariables;
 import net.thucydides.core.util.SystemEnvironmentVariables;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
 
 public class BankingProductsAPITestBase {
 
     static String DEFAULT_API_BASE = "http://localhost:8080/cds-au/v1";
 
+    static int DEFAULT_MAX_IN_FLIGHT = 8;
+
     @Before
     public void setApiBasePath() {
         EnvironmentVariables variables = SystemEnvironmentVariables.createEnvironmentVariables();
@@ -19,8 +24,22 @@ public class BankingProductsAPITestBase {
         } else {
             steps.setupApiBasePath(DEFAULT_API_BASE);
         }
+        String maxInFlight = variables.getProperty("maxInFlight");
+        String requestsPerSecond = variables.getProperty("requestsPerSecond");
+        steps.setupConcurrency(
+                StringUtils.isBlank(maxInFlight) ? DEFAULT_MAX_IN_FLIGHT : Integer.parseInt(maxInFlight),
+                StringUtils.isBlank(requestsPerSecond) ? 0 : Double.parseDouble(requestsPerSecond));
+        steps.setupTransport(variables.getProperty("transport", "restassured"));
     }
 
+    @Rule
+    public TestWatcher exchangeFlusher = new TestWatcher() {
+        @Override
+        protected void failed(Throwable e, Description description) {
+            steps.flushExchanges();
+        }
+    };
+
     @Steps
     BankingProductsAPISteps steps;
 }
@@ -21,4 +21,11 @@ public class GetProductDetailTest extends BankingProductsAPITestBase {
             }
         }
     }
+
+    @Test
+    public void getAllProductDetails() {
+        steps.crawlProducts("ALL", null, null, null, 25);
+        steps.getAllProductDetails(steps.getCatalogueProductIds());
+        steps.validateAllProductDetails();
+    }
 }
@@ -0,0 +1,28 @@
+package au.org.consumerdatastandards.conformance;
+
+import net.serenitybdd.junit.runners.SerenityRunner;
+import net.thucydides.core.util.EnvironmentVariables;
+import net.thucydides.core.util.SystemEnvironmentVariables;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assume.assumeFalse;
+
+@RunWith(SerenityRunner.class)
+public class LoadTest extends BankingProductsAPITestBase {
+
+    @Test
+    public void holdTargetRate() {
+        EnvironmentVariables variables = SystemEnvironmentVariables.createEnvironmentVariables();
+        String loadDuration = variables.getProperty("loadDuration");
+        assumeFalse("Load test skipped, set loadDuration to run it", StringUtils.isBlank(loadDuration));
+        steps.crawlProducts("ALL", null, null, null, 25);
+        steps.runLoad(
+                Double.parseDouble(variables.getProperty("listProductsRate", "10")),
+                Double.parseDouble(variables.getProperty("productDetailRate", "50")),
+                Long.parseLong(loadDuration),
+                Long.parseLong(variables.getProperty("loadInterval", "10")));
+        steps.validateLoad();
+    }
+}
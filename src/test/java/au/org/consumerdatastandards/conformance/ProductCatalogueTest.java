@@ -0,0 +1,15 @@
+package au.org.consumerdatastandards.conformance;
+
+import net.serenitybdd.junit.runners.SerenityRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(SerenityRunner.class)
+public class ProductCatalogueTest extends BankingProductsAPITestBase {
+
+    @Test
+    public void crawlAllProducts() {
+        steps.crawlProducts("ALL", null, null, null, 25);
+        steps.validateProductCatalogue("ALL", null, null, null);
+    }
+}
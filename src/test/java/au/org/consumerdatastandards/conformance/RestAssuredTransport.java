@@ -0,0 +1,59 @@
+package au.org.consumerdatastandards.conformance;
+
+import au.org.consumerdatastandards.conformance.client.Transport;
+import au.org.consumerdatastandards.conformance.client.TransportRequest;
+import au.org.consumerdatastandards.conformance.client.TransportResponse;
+import au.org.consumerdatastandards.conformance.client.TransportTiming;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static net.serenitybdd.rest.SerenityRest.given;
+
+/**
+ * Sends requests through SerenityRest on the calling thread, so they show up in the Serenity reports.
+ */
+public class RestAssuredTransport implements Transport {
+
+    @Override
+    public CompletableFuture<TransportResponse> send(TransportRequest request) {
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(request));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) {
+        long start = System.nanoTime();
+        RequestSpecification given = given();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            given.header(header.getKey(), header.getValue());
+        }
+        Response response = given.when().get(request.getUrl());
+        // the whole response has been received by now
+        TransportTiming timing = new TransportTiming(start, start, System.nanoTime());
+        Map<String, List<String>> headers = new HashMap<>();
+        for (Header header : response.getHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>(1)).add(header.getValue());
+        }
+        return new TransportResponse(response.statusCode(), headers, new ByteArrayInputStream(response.asByteArray()),
+                timing);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // nothing to release, RestAssured manages its own connections
+    }
+}
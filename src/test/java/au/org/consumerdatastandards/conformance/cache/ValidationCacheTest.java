@@ -0,0 +1,307 @@
+package au.org.consumerdatastandards.conformance.cache;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.DataJson;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.ValidationResult;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelRegistry;
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import au.org.consumerdatastandards.conformance.util.JsonSource;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import au.org.consumerdatastandards.support.data.CDSDataType;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ValidationCacheTest {
+
+    private static final String LIST_PRODUCTS = "listProducts";
+
+    private static final String REQUEST_URL = "http://localhost/cds-au/v1/banking/products?page=2";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @CDSDataType(CustomDataType.Amount)
+    private String amount;
+
+    @Test
+    public void leastRecentlyUsedResultsAreEvicted() {
+        ValidationCache cache = new ValidationCache(2);
+        ValidationCache.Key first = key(cache, "{\"a\":1}");
+        ValidationCache.Key second = key(cache, "{\"a\":2}");
+        ValidationCache.Key third = key(cache, "{\"a\":3}");
+        cache.put(first, result("first"));
+        cache.put(second, result("second"));
+        assertNotNull(cache.get(first));
+        cache.put(third, result("third"));
+
+        assertNull(cache.get(second));
+        assertEquals("first", cache.get(first).getErrors().get(0).getDescription());
+        assertEquals("third", cache.get(third).getErrors().get(0).getDescription());
+        ValidationCache.Stats stats = cache.getStats();
+        assertEquals(3, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(0, stats.getDiskHitCount());
+        assertEquals(2, stats.getSize());
+
+        cache.invalidateAll();
+        assertNull(cache.get(first));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    public void keysDependOnContentAndContext() {
+        ValidationCache cache = new ValidationCache(1);
+        byte[] padded = "  {\"a\":1}  ".getBytes(StandardCharsets.UTF_8);
+        assertEquals(key(cache, "{\"a\":1}", "payload"), cache.key(JsonSource.of(padded, 2, 7), "payload"));
+        assertNotEqual(key(cache, "{\"a\":1}", "payload"), key(cache, "{\"a\":2}", "payload"));
+        assertNotEqual(key(cache, "{\"a\":1}", "payload"), key(cache, "{\"a\":1}", "response"));
+        assertNotEqual(key(cache, "{\"a\":1}", "ab", "c"), key(cache, "{\"a\":1}", "a", "bc"));
+        assertNotEqual(key(cache, "{\"a\":1}", "a", null), key(cache, "{\"a\":1}", "a", ""));
+    }
+
+    @Test
+    public void errorsSurviveTheDiskRoundTrip() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        Field errorField = ValidationCacheTest.class.getDeclaredField("amount");
+        CDSDataType cdsDataType = errorField.getAnnotation(CDSDataType.class);
+        List<ConformanceError> errors = Arrays.asList(
+            new ConformanceError()
+                .errorType(ConformanceError.Type.PATTERN_NOT_MATCHED)
+                .cdsDataType(cdsDataType)
+                .dataJson("{\"amount\":\"1.5\"}")
+                .errorField(errorField)
+                .errorFieldValue("1.5"),
+            new ConformanceError()
+                .errorType(ConformanceError.Type.NUMBER_TOO_BIG)
+                .cdsDataType(cdsDataType)
+                .errorField(errorField)
+                .errorFieldValue(new BigDecimal("1e400")),
+            new ConformanceError().errorType(ConformanceError.Type.NO_MATCHING_MODEL).errorMessage("No model"),
+            new ConformanceError().errorMessage("Failed").errorFieldValue(42));
+        ValidationCache cache = new ValidationCache(10, directory);
+        ValidationCache.Key key = key(cache, "{\"amount\":\"1.5\"}");
+        cache.put(key, new ValidationResult(ValidationCacheTest.class, errors));
+
+        ValidationCache reloaded = new ValidationCache(10, directory);
+        ValidationResult result = reloaded.get(key);
+        assertSame(ValidationCacheTest.class, result.getMatchedModel());
+        assertEquals(describe(errors), describe(result.getErrors()));
+        ConformanceError error = result.getErrors().get(0);
+        assertEquals(errorField, error.getErrorField());
+        assertEquals(cdsDataType, error.getCdsDataType());
+        assertEquals(error.getCdsDataType(), cdsDataType);
+        assertEquals(cdsDataType.hashCode(), error.getCdsDataType().hashCode());
+        assertEquals(new BigDecimal("1e400"), result.getErrors().get(1).getErrorFieldValue());
+        assertEquals(42, result.getErrors().get(3).getErrorFieldValue());
+        assertEquals(1, reloaded.getStats().getDiskHitCount());
+        assertSame(result, reloaded.get(key));
+        assertEquals(1, reloaded.getStats().getDiskHitCount());
+    }
+
+    @Test
+    public void corruptedFilesAreMisses() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        ValidationCache cache = new ValidationCache(10, directory);
+        ValidationCache.Key key = key(cache, "{\"a\":1}");
+        cache.put(key, result("first"));
+        Path file = directory.resolve(key.toString().substring(0, 2)).resolve(key.toString());
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertMiss(directory, key);
+        byte[] badLength = bytes.clone();
+        // the length of the model name, a null string
+        badLength[24] = 0x7f;
+        Files.write(file, badLength);
+        assertMiss(directory, key);
+        byte[] badMagic = bytes.clone();
+        badMagic[0] ^= 1;
+        Files.write(file, badMagic);
+        assertMiss(directory, key);
+        Files.write(file, new byte[0]);
+        assertMiss(directory, key);
+
+        Files.write(file, bytes);
+        assertEquals("first", new ValidationCache(10, directory).get(key).getErrors().get(0).getDescription());
+    }
+
+    @Test
+    public void cachedResultsEqualUncachedOnes() {
+        Path directory = temporaryFolder.getRoot().toPath();
+        PayloadValidator uncached = new PayloadValidator();
+        PayloadValidator cached = new PayloadValidator(ConformanceModelRegistry.getConformanceModel(),
+            new ValidationCache(10, directory));
+        PayloadValidator reloaded = new PayloadValidator(ConformanceModelRegistry.getConformanceModel(),
+            new ValidationCache(10, directory));
+        for (String payload : Arrays.asList("{}", "[]", "{\"data\":{}}", "{\"data\":{\"products\":[{}]}}",
+            "{\"productId\":\"p1\",\"amount\":\"1.5\",\"count\":-1,\"fees\":[{\"name\":\"X\"}]}", "{\"a\":")) {
+            byte[] json = payload.getBytes(StandardCharsets.UTF_8);
+            ValidationResult expected = uncached.validate(json);
+            for (PayloadValidator validator : Arrays.asList(cached, cached, reloaded)) {
+                ValidationResult result = validator.validate(json);
+                assertEquals(payload, expected.getMatchedModel(), result.getMatchedModel());
+                assertEquals(payload, describe(expected.getErrors()), describe(result.getErrors()));
+            }
+        }
+    }
+
+    @Test
+    public void missesReturnTheCachedResult() {
+        ValidationCache cache = new ValidationCache(10);
+        ValidationCache.Key key = key(cache, "{\"a\":1}");
+        List<ConformanceError> errors = new ArrayList<>(Collections.singletonList(
+            new ConformanceError().description("first")));
+        ValidationResult cached = cache.put(key, new ValidationResult(null, errors));
+        errors.clear();
+
+        assertSame(cached, cache.get(key));
+        assertEquals("first", cached.getErrors().get(0).getDescription());
+        try {
+            cached.getErrors().clear();
+            fail("cached errors are modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void dataJsonIsRenderedOnFirstUse() {
+        Rendered.count = 0;
+        ValidationCache cache = new ValidationCache(10);
+        ValidationCache.Key key = key(cache, "{\"value\":1}");
+        cache.put(key, new ValidationResult(null, Collections.singletonList(
+            new ConformanceError().dataJson(DataJson.of(new Rendered())))));
+        assertEquals(0, Rendered.count);
+        assertEquals("{\"value\":1}", cache.get(key).getErrors().get(0).getDataJson().replaceAll("\\s", ""));
+        assertEquals(1, Rendered.count);
+
+        cache = new ValidationCache(10, temporaryFolder.getRoot().toPath());
+        cache.put(key, new ValidationResult(null, Collections.singletonList(
+            new ConformanceError().dataJson(DataJson.of(new Rendered())))));
+        assertEquals(2, Rendered.count);
+    }
+
+    @Test
+    public void leastRecentlyUsedFilesAreDeleted() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        ValidationCache cache = new ValidationCache(1, directory, 2000);
+        List<ValidationCache.Key> keys = new ArrayList<>();
+        long hourAgo = System.currentTimeMillis() - 3_600_000;
+        for (int i = 0; i < 40; i++) {
+            ValidationCache.Key key = key(cache, "{\"a\":" + i + "}");
+            cache.put(key, result(String.format("%0100d", i)));
+            keys.add(key);
+            // the writes are ordered by time even within the resolution of the file system
+            Path file = file(directory, key);
+            if (Files.exists(file)) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(hourAgo + i * 1000));
+            }
+        }
+        assertTrue(cache.getStats().getDiskEvictionCount() > 0);
+        long size = 0;
+        for (ValidationCache.Key key : keys) {
+            size += Files.exists(file(directory, key)) ? Files.size(file(directory, key)) : 0;
+        }
+        assertTrue("directory size " + size, size <= 2000);
+
+        ValidationCache reloaded = new ValidationCache(1, directory, 2000);
+        assertNull(reloaded.get(keys.get(0)));
+        assertEquals(String.format("%0100d", 39), reloaded.get(keys.get(39)).getErrors().get(0).getDescription());
+    }
+
+    @Test
+    public void responsesAreCachedOnTheirBody() throws IOException {
+        ConformanceModel conformanceModel = ConformanceModelRegistry.getConformanceModel();
+        Class<?> model = PayloadGenerator.getResponseModel(conformanceModel, LIST_PRODUCTS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PayloadGenerator().seed(3).pagination(REQUEST_URL, 2)
+            .mutations(0.2, PayloadGenerator.Mutation.PATTERN_NOT_MATCHED).generate(model, out);
+        JsonSource body = JsonSource.of(out.toByteArray());
+        Object response = body.read(ObjectMapperRegistry.getReader(ConformanceUtil.expandModel(model)));
+        List<ConformanceError> expected = new PayloadValidator().validateResponse(REQUEST_URL, response,
+            LIST_PRODUCTS, 200);
+        assertTrue(expected.size() > 0);
+
+        ValidationCache cache = new ValidationCache(10);
+        PayloadValidator cached = new PayloadValidator(conformanceModel, cache);
+        assertEquals(describe(expected), describe(cached.validateResponse(REQUEST_URL, response, LIST_PRODUCTS,
+            200)));
+        assertEquals(0, cache.getStats().getMissCount());
+        List<ConformanceError> first = cached.validateResponse(REQUEST_URL, body, response, LIST_PRODUCTS, 200);
+        List<ConformanceError> second = cached.validateResponse(REQUEST_URL, body, response, LIST_PRODUCTS, 200);
+        assertEquals(describe(expected), describe(first));
+        assertSame(first, second);
+        assertEquals(1, cache.getStats().getMissCount());
+        assertEquals(1, cache.getStats().getHitCount());
+    }
+
+    public static class Rendered {
+
+        static int count;
+
+        @JsonProperty
+        public int getValue() {
+            count++;
+            return 1;
+        }
+    }
+
+    private static Path file(Path directory, ValidationCache.Key key) {
+        return directory.resolve(key.toString().substring(0, 2)).resolve(key.toString());
+    }
+
+    private static void assertMiss(Path directory, ValidationCache.Key key) {
+        ValidationCache cache = new ValidationCache(10, directory);
+        assertNull(cache.get(key));
+        assertEquals(1, cache.getStats().getMissCount());
+    }
+
+    private static void assertNotEqual(ValidationCache.Key key, ValidationCache.Key other) {
+        assertEquals(false, key.equals(other));
+    }
+
+    private static ValidationCache.Key key(ValidationCache cache, String json, String... context) {
+        return cache.key(JsonSource.of(json.getBytes(StandardCharsets.UTF_8)), context);
+    }
+
+    private static ValidationResult result(String description) {
+        return new ValidationResult(null, Collections.singletonList(new ConformanceError().description(description)));
+    }
+
+    private static List<String> describe(List<ConformanceError> errors) {
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : errors) {
+            descriptions.add(error.getErrorType() + "|" + error.getDescription() + "|" + error.getErrorMessage()
+                + "|" + error.getDataJson() + "|" + error.getErrorField() + "|" + error.getErrorFieldValue()
+                + "|" + (error.getCdsDataType() == null ? null : error.getCdsDataType().value()));
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,57 @@
+package au.org.consumerdatastandards.conformance.cli;
+
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.ValidationResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BulkValidatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void uncheckedExceptionsFailTheirFile() throws IOException, InterruptedException {
+        Path root = folder.getRoot().toPath();
+        for (String name : Arrays.asList("a.json", "boom.json", "c.json", "ignored.txt")) {
+            Files.write(root.resolve(name), "{}".getBytes(StandardCharsets.UTF_8));
+        }
+        PayloadValidator payloadValidator = new PayloadValidator() {
+            @Override
+            public ValidationResult validate(Path jsonFile) {
+                if (jsonFile.getFileName().toString().equals("boom.json")) {
+                    throw new NumberFormatException("For input string: \"abc\"");
+                }
+                return new ValidationResult(null, Collections.emptyList());
+            }
+        };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkValidator.Summary summary = new BulkValidator(payloadValidator, 2, 10, output)
+            .validate(root, root.getFileSystem().getPathMatcher("glob:*.json"));
+
+        assertEquals(3, summary.getFileCount());
+        assertEquals(1, summary.getFailedFileCount());
+        List<String> records = Arrays.asList(new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+        assertEquals(3, records.size());
+        String failedRecord = null;
+        for (String record : records) {
+            if (record.contains("boom.json")) failedRecord = record;
+        }
+        assertTrue(String.valueOf(failedRecord), failedRecord != null
+            && failedRecord.contains("Failed to validate file " + root.resolve("boom.json")
+                + ": java.lang.NumberFormatException"));
+    }
+}
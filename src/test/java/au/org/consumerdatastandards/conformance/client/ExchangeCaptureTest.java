@@ -0,0 +1,133 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExchangeCaptureTest {
+
+    private static final String BODY = "0123456789abcdef";
+
+    @Test
+    public void oldestExchangesAreDroppedFirst() throws IOException {
+        ExchangeCapture capture = new ExchangeCapture(3, 100);
+        Transport transport = capture.wrap(new StubTransport(request ->
+            StubTransport.response(200, "application/json", request.getUrl())));
+        for (int i = 1; i <= 5; i++) {
+            transport.execute(TransportRequest.get("http://host/" + i));
+        }
+        assertEquals(2, capture.getDroppedCount());
+        assertEquals(Arrays.asList("http://host/3", "http://host/4", "http://host/5"), urls(capture.drain()));
+        assertEquals(Collections.emptyList(), capture.drain());
+
+        transport.execute(TransportRequest.get("http://host/6"));
+        assertEquals(2, capture.getDroppedCount());
+        capture.clear();
+        assertEquals(Collections.emptyList(), capture.drain());
+        assertEquals(2, capture.getDroppedCount());
+    }
+
+    @Test
+    public void sentExchangesAreCaptured() throws InterruptedException, ExecutionException {
+        ExchangeCapture capture = new ExchangeCapture(2, 100);
+        Transport transport = capture.wrap(new StubTransport(request ->
+            StubTransport.response(404, null, "")));
+        TransportResponse response = transport.send(TransportRequest.getJson("http://host/a", 1)).get();
+        assertEquals(404, response.getStatusCode());
+        List<ExchangeCapture.Exchange> exchanges = capture.drain();
+        assertEquals(1, exchanges.size());
+        assertEquals(404, exchanges.get(0).getStatusCode());
+        assertEquals("1", exchanges.get(0).getRequest().getHeaders().get("x-v"));
+    }
+
+    @Test
+    public void bodiesAreTruncatedAtMaxBodyBytes() throws IOException {
+        ExchangeCapture capture = new ExchangeCapture(10, 10);
+        Transport transport = capture.wrap(new StubTransport(request ->
+            StubTransport.response(200, "application/json", BODY)));
+
+        TransportResponse unread = transport.execute(TransportRequest.get("http://host/unread"));
+        TransportResponse chunked = transport.execute(TransportRequest.get("http://host/chunked"));
+        TransportResponse bytewise = transport.execute(TransportRequest.get("http://host/bytewise"));
+        assertEquals(BODY, read(chunked.getBody(), 3));
+        InputStream bytewiseBody = bytewise.getBody();
+        StringBuilder sb = new StringBuilder();
+        for (int b; (b = bytewiseBody.read()) >= 0; ) {
+            sb.append((char) b);
+        }
+        assertEquals(BODY, sb.toString());
+        unread.getBody().close();
+
+        List<ExchangeCapture.Exchange> exchanges = capture.drain();
+        assertEquals("", exchanges.get(0).getBody());
+        assertFalse(exchanges.get(0).isBodyTruncated());
+        for (ExchangeCapture.Exchange exchange : exchanges.subList(1, 3)) {
+            assertEquals("0123456789", exchange.getBody());
+            assertTrue(exchange.isBodyTruncated());
+            assertTrue(exchange.toString(), exchange.toString().endsWith("\n0123456789\n... 6 more bytes"));
+        }
+    }
+
+    @Test
+    public void bodiesUpToMaxBodyBytesAreKeptWhole() throws IOException {
+        ExchangeCapture capture = new ExchangeCapture(10, BODY.length());
+        Transport transport = capture.wrap(new StubTransport(request ->
+            StubTransport.response(200, "application/json", BODY)));
+        read(transport.execute(TransportRequest.get("http://host/a")).getBody(), 5);
+
+        ExchangeCapture.Exchange exchange = capture.drain().get(0);
+        assertEquals(BODY, exchange.getBody());
+        assertFalse(exchange.isBodyTruncated());
+        assertTrue(exchange.toString(), exchange.toString().endsWith("\n" + BODY));
+    }
+
+    @Test
+    public void drainingUrlsLeavesTheOtherExchanges() throws IOException {
+        ExchangeCapture capture = new ExchangeCapture(10, 100);
+        Transport transport = capture.wrap(new StubTransport(request ->
+            StubTransport.response(200, "application/json", request.getUrl())));
+        for (String url : Arrays.asList("http://host/a", "http://host/b", "http://host/a", "http://host/c")) {
+            read(transport.execute(TransportRequest.get(url)).getBody(), 100);
+        }
+
+        List<ExchangeCapture.Exchange> drained = capture.drain(Arrays.asList("http://host/a", "http://host/d"));
+        assertEquals(Arrays.asList("http://host/a", "http://host/a"), urls(drained));
+        assertEquals("http://host/a", drained.get(1).getBody());
+        assertEquals(Collections.emptyList(), capture.drain(Collections.singletonList("http://host/a")));
+        assertEquals(Arrays.asList("http://host/b", "http://host/c"), urls(capture.drain()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneExchangeIsKept() {
+        new ExchangeCapture(0, 100);
+    }
+
+    private static String read(InputStream in, int chunkSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[chunkSize];
+        for (int count; (count = in.read(buffer)) >= 0; ) {
+            out.write(buffer, 0, count);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> urls(List<ExchangeCapture.Exchange> exchanges) {
+        List<String> urls = new ArrayList<>();
+        for (ExchangeCapture.Exchange exchange : exchanges) {
+            urls.add(exchange.getRequest().getUrl());
+        }
+        return urls;
+    }
+}
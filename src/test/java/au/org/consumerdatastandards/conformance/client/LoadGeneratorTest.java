@@ -0,0 +1,148 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void outcomesAreCountedPerInterval() throws InterruptedException {
+        StubTransport transport = new StubTransport(request -> {
+            if (request.getUrl().endsWith("/fail")) {
+                throw new IOException("Connection reset");
+            }
+            // product ids that are not ASCII must be rejected with 400, so only p1 is not conformant
+            return StubTransport.response(request.getUrl().endsWith("/p1") ? 503 : 400, null, "");
+        });
+        LoadGenerator.Report report = new LoadGenerator(transport, "http://host", new PayloadValidator(), 2)
+            .ticker(new ManualTicker())
+            .productDetails(40, Arrays.asList("\u00e91", "\u00e92", "p1", "fail"))
+            .run(1000, 250);
+
+        LoadGenerator.EndpointStats total = report.getTotals().get(ProductDetailFanOut.GET_PRODUCT_DETAIL);
+        assertEquals(40, total.getRequestCount());
+        assertEquals(10, total.getFailureCount());
+        assertEquals(30, total.getValidatedCount());
+        assertEquals(10, total.getNonConformantCount());
+        assertEquals(1 / 3.0, total.getErrorRate(), 1e-9);
+        assertEquals(40, transport.getUrls().size());
+
+        // requests are due every 25 ms, so 10 per interval, cycling through the 4 product ids
+        assertEquals(4, report.getIntervals().size());
+        List<Long> requests = new ArrayList<>();
+        List<Long> failures = new ArrayList<>();
+        List<Long> nonConformant = new ArrayList<>();
+        for (LoadGenerator.Interval interval : report.getIntervals()) {
+            LoadGenerator.EndpointStats stats = interval.getEndpoints().get(ProductDetailFanOut.GET_PRODUCT_DETAIL);
+            requests.add(stats.getRequestCount());
+            failures.add(stats.getFailureCount());
+            nonConformant.add(stats.getNonConformantCount());
+        }
+        assertEquals(Arrays.asList(10L, 10L, 10L, 10L), requests);
+        assertEquals(Arrays.asList(2L, 3L, 2L, 3L), failures);
+        assertEquals(Arrays.asList(2L, 3L, 2L, 3L), nonConformant);
+
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : report.getErrorSamples()) {
+            descriptions.add(error.getDescription());
+        }
+        assertEquals(20, descriptions.size());
+        assertTrue(descriptions.contains("Failed to fetch http://host/banking/products/fail: Connection reset"));
+        assertTrue(descriptions.contains("Product p1 returned status 503, expected 200"));
+        assertTrue(report.hasErrors());
+    }
+
+    @Test
+    public void slowValidationDoesNotDelayRequests() throws InterruptedException {
+        ManualTicker ticker = new ManualTicker();
+        List<Long> sendNanos = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allSent = new CountDownLatch(50);
+        StubTransport transport = new StubTransport(request -> {
+            sendNanos.add(ticker.nanoTime());
+            allSent.countDown();
+            return StubTransport.response(200, "application/json", "{}");
+        });
+        // the one validation thread is held until every request has been sent, which never happens if sending
+        // waits for validation
+        LoadGenerator.Report report = new LoadGenerator(transport, "http://host", new PayloadValidator(), 1)
+            .ticker(ticker)
+            .endpoint("slow", 50, Collections.singletonList("http://host/slow"), (index, httpResponse, errors) -> {
+                try {
+                    if (!allSent.await(10, TimeUnit.SECONDS)) {
+                        errors.add(new ConformanceError().errorMessage("Requests waited for validation"));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            })
+            .run(1000, 1000);
+
+        LoadGenerator.EndpointStats total = report.getTotals().get("slow");
+        assertEquals(50, total.getRequestCount());
+        assertEquals(50, total.getValidatedCount());
+        assertEquals(0, total.getNonConformantCount());
+        for (int i = 0; i < sendNanos.size(); i++) {
+            assertEquals("request " + i, TimeUnit.MILLISECONDS.toNanos(i * 20), (long) sendNanos.get(i));
+        }
+        // the response due at 20 ms was validated once the last request was sent, at 980 ms
+        assertTrue(report.getValidationDelay().getMax() > TimeUnit.MILLISECONDS.toNanos(900));
+        assertEquals(0, total.getLatency().getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void intervalMustBePositive() throws InterruptedException {
+        new LoadGenerator(new StubTransport(request -> null), "http://host", new PayloadValidator(), 1)
+            .endpoint("none", 10, Collections.singletonList("http://host/none"), (index, httpResponse, errors) -> {
+            })
+            .run(1000, 0);
+    }
+
+    @Test
+    public void uncheckedExceptionsOfChecksAreConformanceErrors() throws InterruptedException {
+        StubTransport transport = new StubTransport(request -> StubTransport.response(200, "application/json", "{}"));
+        LoadGenerator.Report report = new LoadGenerator(transport, "http://host", new PayloadValidator(), 1)
+            .ticker(new ManualTicker())
+            .endpoint("broken", 10, Collections.singletonList("http://host/broken"), (index, httpResponse, errors) -> {
+                throw new NumberFormatException("For input string: \"abc\"");
+            })
+            .run(500, 500);
+
+        LoadGenerator.EndpointStats total = report.getTotals().get("broken");
+        assertEquals(5, total.getRequestCount());
+        assertEquals(5, total.getNonConformantCount());
+        assertEquals(
+            "Failed to validate http://host/broken: java.lang.NumberFormatException: For input string: \"abc\"",
+            report.getErrorSamples().get(0).getDescription());
+    }
+
+    /**
+     * Time which only passes when the load generator waits for it, so runs take no time and are exact.
+     */
+    private static class ManualTicker implements LoadGenerator.Ticker {
+
+        private final AtomicLong now = new AtomicLong();
+
+        @Override
+        public long nanoTime() {
+            return now.get();
+        }
+
+        @Override
+        public void waitUntil(long nanoTime) {
+            now.accumulateAndGet(nanoTime, Math::max);
+        }
+    }
+}
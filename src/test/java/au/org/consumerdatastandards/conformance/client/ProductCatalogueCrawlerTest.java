@@ -0,0 +1,186 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelRegistry;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProductCatalogueCrawlerTest {
+
+    private static final int PAGE_SIZE = 25;
+
+    @Test
+    public void emptyCatalogueHasNoErrors() {
+        assertErrors(Collections.singletonList(page(1, 0, 0, products(0, 0))));
+    }
+
+    @Test
+    public void emptyCatalogueWithProductsIsFlagged() {
+        assertErrors(Collections.singletonList(page(1, 0, 0, products(0, 1))),
+            "Page 1 has 1 products, expected 0",
+            "The 1 pages list 1 products, totalRecords is 0");
+    }
+
+    @Test
+    public void shortLastPageHasNoErrors() {
+        assertErrors(Arrays.asList(
+            page(1, 53, 3, products(0, 25)),
+            page(2, 53, 3, products(25, 25)),
+            page(3, 53, 3, products(50, 3))));
+    }
+
+    @Test
+    public void fullLastPageHasNoErrors() {
+        assertErrors(Arrays.asList(
+            page(1, 50, 2, products(0, 25)),
+            page(2, 50, 2, products(25, 25))));
+    }
+
+    @Test
+    public void overlappingPagesAreFlagged() {
+        assertErrors(Arrays.asList(
+            page(1, 50, 2, products(0, 25)),
+            page(2, 50, 2, products(24, 25))),
+            "Product p24 is listed on page 1 and on page 2");
+    }
+
+    @Test
+    public void gapIsFlagged() {
+        assertErrors(Arrays.asList(
+            page(1, 53, 3, products(0, 25)),
+            page(2, 53, 3, products(25, 24)),
+            page(3, 53, 3, products(50, 3))),
+            "Page 2 has 24 products, expected 25",
+            "The 3 pages list 52 products, totalRecords is 53");
+    }
+
+    @Test
+    public void inconsistentMetaIsFlagged() {
+        assertErrors(Arrays.asList(
+            page(1, 50, 3, products(0, 25)),
+            page(2, 50, 3, products(25, 25)),
+            page(3, 51, 3, products(50, 0))),
+            "totalPages is 3, expected 2 for 50 records of 25 per page",
+            "Page 3 has totalRecords 51 and totalPages 3, page 1 has totalRecords 50 and totalPages 3");
+    }
+
+    @Test
+    public void pagesNotFetchedAreLeftOut() {
+        List<ConformanceError> fetchErrors = Collections.singletonList(new ConformanceError().errorMessage("down"));
+        assertErrors(Arrays.asList(
+            page(1, 53, 3, products(0, 25)),
+            new ProductCatalogueCrawler.Page(2, "page2", -1, null, fetchErrors, 0, null, null,
+                Collections.<String>emptyList()),
+            page(3, 53, 3, products(50, 3))));
+    }
+
+    @Test
+    public void uncheckedExceptionsAreReportedAsPageErrors() throws InterruptedException {
+        StubTransport transport = new StubTransport(request -> {
+            throw new IllegalArgumentException("Illegal character in query");
+        });
+        ProductCatalogueCrawler.Result result = new ProductCatalogueCrawler(transport, "http://host",
+            new PayloadValidator(), 2).crawl("ALL", null, null, null, PAGE_SIZE);
+        assertEquals(1, result.getPages().size());
+        assertNull(result.getPages().get(0).getResponse());
+        String description = result.getErrors().get(0).getDescription();
+        assertTrue(description, description.startsWith("Failed to validate page 1 from "
+            + "http://host/banking/products?effective=ALL&page=1&page-size=25: java.lang.IllegalArgumentException"));
+    }
+
+    @Test
+    public void generatedCatalogueHasNoErrors() throws InterruptedException {
+        PayloadGenerator payloadGenerator = new PayloadGenerator();
+        StubTransport transport = new StubTransport(request -> {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            // one generator for all pages, so product ids are not repeated
+            synchronized (payloadGenerator) {
+                payloadGenerator.pagination(request.getUrl(), 53).generate(PayloadGenerator.getResponseModel(
+                    ConformanceModelRegistry.getConformanceModel(), ProductCatalogueCrawler.LIST_PRODUCTS), body);
+            }
+            return StubTransport.response(200, "application/json", body.toString("UTF-8"));
+        });
+        ProductCatalogueCrawler.Result result = new ProductCatalogueCrawler(transport, "http://host",
+            new PayloadValidator(), 2).crawl("ALL", null, null, null, 10);
+        assertEquals(6, result.getPages().size());
+        assertEquals(53, result.getProductIds().size());
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : result.getErrors()) {
+            descriptions.add(error.getDescription());
+        }
+        assertEquals(Collections.<String>emptyList(), descriptions);
+    }
+
+    @Test
+    public void pagesBeyondTotalRecordsAreNotFetched() throws InterruptedException {
+        PayloadGenerator payloadGenerator = new PayloadGenerator();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        StubTransport transport = new StubTransport(request -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                synchronized (payloadGenerator) {
+                    payloadGenerator.pagination(request.getUrl(), 53).generate(PayloadGenerator.getResponseModel(
+                        ConformanceModelRegistry.getConformanceModel(), ProductCatalogueCrawler.LIST_PRODUCTS), body);
+                }
+                String json = body.toString("UTF-8").replaceAll("\"totalPages\"\\s*:\\s*\\d+",
+                    "\"totalPages\":1000000");
+                return StubTransport.response(200, "application/json", json);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        ProductCatalogueCrawler.Result result = new ProductCatalogueCrawler(transport, "http://host",
+            new PayloadValidator(), 2).crawl("ALL", null, null, null, 10);
+        assertEquals(6, transport.getUrls().size());
+        assertEquals(6, result.getPages().size());
+        assertTrue("max in flight " + maxInFlight, maxInFlight.get() <= 2);
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : result.getErrors()) {
+            descriptions.add(error.getDescription());
+        }
+        assertTrue(descriptions.toString(),
+            descriptions.contains("totalPages is 1000000, expected 6 for 53 records of 10 per page"));
+        assertEquals("Pages 7 to 1000000 were not fetched, 53 records of 10 per page need only 6",
+            descriptions.get(descriptions.size() - 1));
+    }
+
+    private static void assertErrors(List<ProductCatalogueCrawler.Page> pages, String... expectedMessages) {
+        List<String> messages = new ArrayList<>();
+        for (ConformanceError error : ProductCatalogueCrawler.checkCatalogue(pages, PAGE_SIZE)) {
+            messages.add(error.getDescription());
+        }
+        assertEquals(Arrays.asList(expectedMessages), messages);
+    }
+
+    private static ProductCatalogueCrawler.Page page(int number, int totalRecords, int totalPages,
+                                                     List<String> productIds) {
+        return new ProductCatalogueCrawler.Page(number, "page" + number, 200, new Object(),
+            Collections.<ConformanceError>emptyList(), 0, totalRecords, totalPages, productIds);
+    }
+
+    private static List<String> products(int first, int count) {
+        List<String> productIds = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            productIds.add("p" + i);
+        }
+        return productIds;
+    }
+}
@@ -0,0 +1,44 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProductDetailFanOutTest {
+
+    @Test
+    public void productIdIsEncodedAsPathSegment() {
+        ProductDetailFanOut fanOut = new ProductDetailFanOut(new StubTransport(request -> null),
+            "http://host/cds-au/v1", new PayloadValidator(), 1, 0);
+        assertEquals("http://host/cds-au/v1/banking/products/a%20b%2Fc%3F%C3%A9",
+            fanOut.productDetailUrl("a b/c?\u00e9"));
+        assertEquals("http://host/cds-au/v1/banking/products/product-1.2_x",
+            fanOut.productDetailUrl("product-1.2_x"));
+    }
+
+    @Test
+    public void uncheckedExceptionsAreReportedPerProduct() throws InterruptedException {
+        StubTransport transport = new StubTransport(request -> {
+            if (request.getUrl().endsWith("/p2")) {
+                throw new IllegalArgumentException("Illegal character in path");
+            }
+            return StubTransport.response(503, null, "");
+        });
+        ProductDetailFanOut.Report report = new ProductDetailFanOut(transport, "http://host", new PayloadValidator(),
+            2, 0).fetchAll(Arrays.asList("p1", "p2", "p3"));
+        assertEquals(3, report.getResults().size());
+        assertEquals(3, report.getFailedResults().size());
+        assertEquals("Product p1 returned status 503, expected 200",
+            report.getResults().get(0).getErrors().get(0).getDescription());
+        String description = report.getResults().get(1).getErrors().get(0).getDescription();
+        assertTrue(description, description.startsWith(
+            "Failed to validate product p2 from http://host/banking/products/p2: java.lang.IllegalArgumentException"));
+        assertEquals(-1, report.getResults().get(1).getStatusCode());
+        assertEquals("Product p3 returned status 503, expected 200",
+            report.getResults().get(2).getErrors().get(0).getDescription());
+    }
+}
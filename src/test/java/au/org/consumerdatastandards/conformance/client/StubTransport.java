@@ -0,0 +1,70 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport answering every request on the calling thread with the response of the given handler.
+ */
+class StubTransport implements Transport {
+
+    interface Handler {
+
+        TransportResponse handle(TransportRequest request) throws IOException;
+    }
+
+    private final Handler handler;
+
+    private final List<String> urls = Collections.synchronizedList(new ArrayList<>());
+
+    StubTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    static TransportResponse response(int statusCode, String contentType, String body) {
+        Map<String, List<String>> headers = new HashMap<>();
+        if (contentType != null) {
+            headers.put("Content-Type", Collections.singletonList(contentType));
+        }
+        long now = System.nanoTime();
+        return new TransportResponse(statusCode, headers,
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), new TransportTiming(now, now, now));
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> send(TransportRequest request) {
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(request));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        urls.add(request.getUrl());
+        return handler.handle(request);
+    }
+
+    /**
+     * Returns the urls requested so far, in the order they were requested.
+     */
+    List<String> getUrls() {
+        synchronized (urls) {
+            return new ArrayList<>(urls);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
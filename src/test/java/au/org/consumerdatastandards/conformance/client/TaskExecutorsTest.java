@@ -0,0 +1,42 @@
+package au.org.consumerdatastandards.conformance.client;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run by failsafe against the packaged multi-release jar, so on Java 21 and later this tests the class under
+ * {@code META-INF/versions/21}.
+ */
+public class TaskExecutorsTest {
+
+    @Test
+    public void tasksRunOnVirtualThreadsFromJava21() throws Exception {
+        boolean expectVirtual = featureVersion() >= 21;
+        assertEquals(expectVirtual, TaskExecutors.isVirtual());
+
+        ExecutorService executor = TaskExecutors.newExecutor("test", 2);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(1, TimeUnit.MINUTES);
+            assertTrue(thread.getName(), thread.getName().startsWith("test-"));
+            if (expectVirtual) {
+                Method isVirtual = Thread.class.getMethod("isVirtual");
+                assertTrue(thread.getName(), (Boolean) isVirtual.invoke(thread));
+            } else {
+                assertTrue(thread.getName(), thread.isDaemon());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static int featureVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+}
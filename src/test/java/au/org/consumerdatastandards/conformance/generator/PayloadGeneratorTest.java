@@ -0,0 +1,146 @@
+package au.org.consumerdatastandards.conformance.generator;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelRegistry;
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadGeneratorTest {
+
+    private static final String LIST_PRODUCTS = "listProducts";
+
+    private static final String REQUEST_URL = "http://localhost/cds-au/v1/banking/products";
+
+    private final ConformanceModel conformanceModel = ConformanceModelRegistry.getConformanceModel();
+
+    private final PayloadValidator payloadValidator = new PayloadValidator();
+
+    @Test
+    public void generatedResponsesAreValid() throws IOException {
+        for (String operationId : conformanceModel.getResponseMap().keySet()) {
+            for (int size : new int[] {0, 1, 3}) {
+                PayloadGenerator payloadGenerator = new PayloadGenerator().defaultCollectionSize(size).seed(size)
+                    .pagination(REQUEST_URL, size);
+                List<ConformanceError> errors = validate(payloadGenerator, operationId, REQUEST_URL);
+                assertEquals(operationId + " of size " + size + ": " + describe(errors), 0, errors.size());
+            }
+        }
+    }
+
+    @Test
+    public void linksAndMetaMatchThePage() throws IOException {
+        String url = REQUEST_URL + "?effective=ALL&page=2&page-size=10";
+        PayloadGenerator payloadGenerator = new PayloadGenerator().pagination(url, 25);
+        JsonNode response = generate(payloadGenerator, LIST_PRODUCTS);
+        assertEquals(10, response.get("data").get("products").size());
+        assertEquals(url, response.get("links").get("self").asText());
+        assertEquals(REQUEST_URL + "?effective=ALL&page=1&page-size=10", response.get("links").get("first").asText());
+        assertEquals(REQUEST_URL + "?effective=ALL&page=1&page-size=10", response.get("links").get("prev").asText());
+        assertEquals(REQUEST_URL + "?effective=ALL&page=3&page-size=10", response.get("links").get("next").asText());
+        assertEquals(REQUEST_URL + "?effective=ALL&page=3&page-size=10", response.get("links").get("last").asText());
+        assertEquals(25, response.get("meta").get("totalRecords").asInt());
+        assertEquals(3, response.get("meta").get("totalPages").asInt());
+        assertEquals(0, validate(payloadGenerator, LIST_PRODUCTS, url).size());
+
+        url = REQUEST_URL + "?page=3&page-size=10";
+        payloadGenerator.pagination(url, 25);
+        response = generate(payloadGenerator, LIST_PRODUCTS);
+        assertEquals(5, response.get("data").get("products").size());
+        assertFalse(response.get("links").has("next"));
+        assertEquals(0, validate(payloadGenerator, LIST_PRODUCTS, url).size());
+    }
+
+    @Test
+    public void collectionsLargerThanAPageSpanOnePage() throws IOException {
+        JsonNode response = generate(new PayloadGenerator().collectionSize("products", 40), LIST_PRODUCTS);
+        assertEquals(40, response.get("data").get("products").size());
+        assertEquals(REQUEST_URL + "?page=1&page-size=40", response.get("links").get("self").asText());
+        assertEquals(40, response.get("meta").get("totalRecords").asInt());
+        assertEquals(1, response.get("meta").get("totalPages").asInt());
+    }
+
+    @Test
+    public void mutationsCauseTheirErrors() throws IOException {
+        // responses are bound leniently, so properties left out are reported as null values
+        assertMutation(PayloadGenerator.Mutation.MISSING_REQUIRED, ConformanceError.Type.MISSING_PROPERTY,
+            ConformanceError.Type.MISSING_VALUE);
+        assertMutation(PayloadGenerator.Mutation.PATTERN_NOT_MATCHED, ConformanceError.Type.PATTERN_NOT_MATCHED);
+        assertMutation(PayloadGenerator.Mutation.NUMBER_OUT_OF_RANGE, ConformanceError.Type.NUMBER_TOO_SMALL,
+            ConformanceError.Type.NUMBER_TOO_BIG);
+    }
+
+    @Test
+    public void brokenPaginationBreaksALink() throws IOException {
+        for (int page = 1; page <= 4; page++) {
+            // page 4 holds no products, the three pages before it the 25 records
+            String url = REQUEST_URL + "?page=" + page + "&page-size=10";
+            int totalRecords = page == 4 ? 0 : 25;
+            assertEquals(0, validate(new PayloadGenerator().pagination(url, totalRecords), LIST_PRODUCTS, url).size());
+            PayloadGenerator payloadGenerator = new PayloadGenerator().pagination(url, totalRecords)
+                .mutations(1, PayloadGenerator.Mutation.BROKEN_PAGINATION);
+            List<ConformanceError> errors = validate(payloadGenerator, LIST_PRODUCTS, url);
+            assertEquals(1, payloadGenerator.getMutationCounts().get(PayloadGenerator.Mutation.BROKEN_PAGINATION)
+                .intValue());
+            assertEquals(url + ": " + describe(errors), 1, errors.size());
+            assertEquals(ConformanceError.Type.DATA_NOT_MATCHING_CRITERIA, errors.get(0).getErrorType());
+        }
+    }
+
+    private void assertMutation(PayloadGenerator.Mutation mutation, ConformanceError.Type... expectedTypes)
+        throws IOException {
+        PayloadGenerator payloadGenerator = new PayloadGenerator().pagination(REQUEST_URL, 2).seed(1)
+            .mutations(1, mutation);
+        Set<ConformanceError.Type> errorTypes = EnumSet.noneOf(ConformanceError.Type.class);
+        for (String operationId : conformanceModel.getResponseMap().keySet()) {
+            for (ConformanceError error : validate(payloadGenerator, operationId, REQUEST_URL)) {
+                errorTypes.add(error.getErrorType());
+            }
+        }
+        assertTrue(mutation + " was not applied", payloadGenerator.getMutationCounts().get(mutation) > 0);
+        errorTypes.retainAll(Arrays.asList(expectedTypes));
+        assertFalse(mutation + " caused none of " + Arrays.toString(expectedTypes), errorTypes.isEmpty());
+    }
+
+    private JsonNode generate(PayloadGenerator payloadGenerator, String operationId) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payloadGenerator.generate(PayloadGenerator.getResponseModel(conformanceModel, operationId), out);
+        return ObjectMapperRegistry.getObjectMapper().readTree(out.toByteArray());
+    }
+
+    private List<ConformanceError> validate(PayloadGenerator payloadGenerator, String operationId, String url)
+        throws IOException {
+        Class<?> model = PayloadGenerator.getResponseModel(conformanceModel, operationId);
+        if (model == null) {
+            return new ArrayList<>();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payloadGenerator.generate(model, out);
+        Object response = ObjectMapperRegistry.getReader(ConformanceUtil.expandModel(model))
+            .readValue(out.toByteArray());
+        return payloadValidator.validateResponse(url, response, operationId, 200);
+    }
+
+    private static List<String> describe(List<ConformanceError> errors) {
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : errors) {
+            descriptions.add(error.getDescription());
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,119 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.ValidationResult;
+import au.org.consumerdatastandards.conformance.cache.ValidationCache;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+import au.org.consumerdatastandards.conformance.util.ConformanceModelRegistry;
+import au.org.consumerdatastandards.conformance.util.ConformanceUtil;
+import au.org.consumerdatastandards.conformance.util.JsonSource;
+import au.org.consumerdatastandards.conformance.util.ObjectMapperRegistry;
+import au.org.consumerdatastandards.support.data.CDSDataType;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryMetricsTest {
+
+    private static final String LIST_PRODUCTS = "listProducts";
+
+    private static final String REQUEST_URL = "http://localhost/cds-au/v1/banking/products?page=2";
+
+    @CDSDataType(CustomDataType.Amount)
+    private String amount;
+
+    @After
+    public void restoreMetrics() {
+        Metrics.set(null);
+    }
+
+    @Test
+    public void figuresAreKeptPerStageModelAndError() throws NoSuchFieldException {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.recordStage(ValidationMetrics.Stage.PARSE, 100);
+        metrics.recordStage(ValidationMetrics.Stage.PARSE, 300);
+        metrics.recordValidation(String.class, 1000);
+        metrics.recordValidation(null, 2000);
+        metrics.recordValidation(null, 4000);
+        metrics.recordCandidatesTried(2);
+        metrics.recordCandidatesTried(4);
+        CDSDataType cdsDataType = getClass().getDeclaredField("amount").getAnnotation(CDSDataType.class);
+        metrics.recordError(new ConformanceError().errorType(ConformanceError.Type.PATTERN_NOT_MATCHED)
+            .cdsDataType(cdsDataType));
+        metrics.recordError(new ConformanceError().errorType(ConformanceError.Type.PATTERN_NOT_MATCHED));
+        metrics.recordError(new ConformanceError().errorMessage("untyped"));
+
+        assertEquals(2, metrics.getStageLatency(ValidationMetrics.Stage.PARSE).getCount());
+        assertEquals(200, metrics.getStageLatency(ValidationMetrics.Stage.PARSE).getMean(), 0);
+        assertEquals(0, metrics.getStageLatency(ValidationMetrics.Stage.BIND).getCount());
+        Map<String, LatencyHistogram> modelLatencies = metrics.getModelLatencies();
+        assertEquals(Arrays.asList(InMemoryMetrics.NO_MATCHING_MODEL, "String"),
+            Arrays.asList(modelLatencies.keySet().toArray()));
+        assertEquals(2, modelLatencies.get(InMemoryMetrics.NO_MATCHING_MODEL).getCount());
+        assertEquals(4000, modelLatencies.get(InMemoryMetrics.NO_MATCHING_MODEL).getMax());
+        assertEquals(3, metrics.getCandidatesTried().getMean(), 0);
+        assertEquals(Collections.singletonMap("PATTERN_NOT_MATCHED", 2L), metrics.getErrorTypeCounts());
+        assertEquals(Collections.singletonMap("Amount", 1L), metrics.getDataTypeErrorCounts());
+
+        metrics.reset();
+        assertEquals(0, metrics.getStageLatency(ValidationMetrics.Stage.PARSE).getCount());
+        assertEquals(Collections.emptyMap(), metrics.getModelLatencies());
+        assertEquals(0, metrics.getCandidatesTried().getCount());
+        assertEquals(Collections.emptyMap(), metrics.getErrorTypeCounts());
+        assertEquals(Collections.emptyMap(), metrics.getDataTypeErrorCounts());
+    }
+
+    @Test
+    public void cacheHitsAreRecordedInsteadOfValidations() throws IOException {
+        ConformanceModel conformanceModel = ConformanceModelRegistry.getConformanceModel();
+        Class<?> model = PayloadGenerator.getResponseModel(conformanceModel, LIST_PRODUCTS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PayloadGenerator().seed(3).pagination(REQUEST_URL, 2)
+            .mutations(0.2, PayloadGenerator.Mutation.PATTERN_NOT_MATCHED).generate(model, out);
+        JsonSource body = JsonSource.of(out.toByteArray());
+        Object response = body.read(ObjectMapperRegistry.getReader(ConformanceUtil.expandModel(model)));
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Metrics.set(metrics);
+        PayloadValidator validator = new PayloadValidator(conformanceModel, new ValidationCache(10));
+
+        ValidationResult result = validator.validate(body);
+        assertNotNull(result.getMatchedModel());
+        Map<String, Long> errorTypeCounts = metrics.getErrorTypeCounts();
+        validator.validate(body);
+        validator.validate(body);
+        String payloadModel = result.getMatchedModel().getSimpleName();
+        assertEquals(Collections.singletonMap(payloadModel, 1L), counts(metrics.getModelLatencies()));
+        assertEquals(Collections.singletonMap(payloadModel, 2L), counts(metrics.getCacheHitLatencies()));
+        assertEquals(errorTypeCounts, metrics.getErrorTypeCounts());
+
+        metrics.reset();
+        List<ConformanceError> errors = validator.validateResponse(REQUEST_URL, body, response, LIST_PRODUCTS, 200);
+        assertTrue(errors.size() > 0);
+        validator.validateResponse(REQUEST_URL, body, response, LIST_PRODUCTS, 200);
+        assertEquals(Collections.singletonMap(model.getSimpleName(), 1L), counts(metrics.getModelLatencies()));
+        assertEquals(Collections.singletonMap(model.getSimpleName(), 1L), counts(metrics.getCacheHitLatencies()));
+        assertEquals(1, metrics.getStageLatency(ValidationMetrics.Stage.LINK_CHECK).getCount());
+        assertEquals((long) errors.size(), (long) metrics.getErrorTypeCounts().values().stream()
+            .mapToLong(Long::longValue).sum());
+    }
+
+    private static Map<String, Long> counts(Map<String, LatencyHistogram> latencies) {
+        Map<String, Long> counts = new HashMap<>();
+        latencies.forEach((model, histogram) -> counts.put(model, histogram.getCount()));
+        return counts;
+    }
+}
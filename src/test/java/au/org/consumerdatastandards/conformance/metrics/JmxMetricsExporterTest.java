@@ -0,0 +1,74 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import org.junit.Test;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JmxMetricsExporterTest {
+
+    private final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+
+    @Test
+    public void beansAreRegisteredUntilClosed() throws JMException {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.recordStage(ValidationMetrics.Stage.BIND, 2000);
+        metrics.recordValidation(String.class, 5000);
+        metrics.recordCacheHit(String.class, 100);
+        metrics.recordCandidatesTried(3);
+
+        JmxMetricsExporter exporter = new JmxMetricsExporter(metrics, mBeanServer);
+        for (ValidationMetrics.Stage stage : ValidationMetrics.Stage.values()) {
+            assertTrue(stage.name(), mBeanServer.isRegistered(stageName(stage)));
+        }
+        ObjectName validationName = new ObjectName(JmxMetricsExporter.DOMAIN + ":type=Validation");
+        assertTrue(mBeanServer.isRegistered(validationName));
+
+        JmxMetricsExporter.LatencyMXBean bind = JMX.newMXBeanProxy(mBeanServer,
+            stageName(ValidationMetrics.Stage.BIND), JmxMetricsExporter.LatencyMXBean.class);
+        assertEquals(1, bind.getCount());
+        assertEquals(2000, bind.getMax());
+        assertEquals(2000, bind.getP99());
+        JmxMetricsExporter.ValidationMXBean validation = JMX.newMXBeanProxy(mBeanServer, validationName,
+            JmxMetricsExporter.ValidationMXBean.class);
+        assertEquals(Collections.singletonMap("String", 1L), validation.getModelCounts());
+        assertEquals(Collections.singletonMap("String", 1L), validation.getModelCacheHits());
+        assertEquals(3, validation.getCandidatesTriedMax());
+        validation.reset();
+        assertEquals(Collections.emptyMap(), validation.getModelCounts());
+        assertEquals(0, bind.getCount());
+
+        exporter.close();
+        for (ValidationMetrics.Stage stage : ValidationMetrics.Stage.values()) {
+            assertFalse(stage.name(), mBeanServer.isRegistered(stageName(stage)));
+        }
+        assertFalse(mBeanServer.isRegistered(validationName));
+        new JmxMetricsExporter(metrics, mBeanServer).close();
+    }
+
+    @Test
+    public void exportingTwiceToOneServerFails() throws JMException {
+        try (JmxMetricsExporter exporter = new JmxMetricsExporter(new InMemoryMetrics(), mBeanServer)) {
+            try {
+                new JmxMetricsExporter(new InMemoryMetrics(), mBeanServer);
+                fail("exported twice");
+            } catch (InstanceAlreadyExistsException e) {
+                // expected
+            }
+        }
+    }
+
+    private static ObjectName stageName(ValidationMetrics.Stage stage) throws JMException {
+        return new ObjectName(JmxMetricsExporter.DOMAIN + ":type=Stage,name=" + stage.name());
+    }
+}
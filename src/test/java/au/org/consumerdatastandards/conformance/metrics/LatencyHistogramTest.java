@@ -0,0 +1,95 @@
+package au.org.consumerdatastandards.conformance.metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int value = 0; value < 128; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.highestValueAt(value));
+        }
+        int lastIndex = LatencyHistogram.indexOf(Long.MAX_VALUE);
+        for (int index = 0; index < lastIndex; index++) {
+            long highestValue = LatencyHistogram.highestValueAt(index);
+            assertEquals("index " + index, index, LatencyHistogram.indexOf(highestValue));
+            assertEquals("index " + index, index + 1, LatencyHistogram.indexOf(highestValue + 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueAt(lastIndex));
+    }
+
+    @Test
+    public void bucketBoundariesDoubleInWidth() {
+        assertEquals(127, LatencyHistogram.indexOf(127));
+        assertEquals(128, LatencyHistogram.indexOf(128));
+        assertEquals(128, LatencyHistogram.indexOf(129));
+        assertEquals(129, LatencyHistogram.indexOf(130));
+        assertEquals(191, LatencyHistogram.indexOf(255));
+        assertEquals(192, LatencyHistogram.indexOf(256));
+        assertEquals(192, LatencyHistogram.indexOf(259));
+        assertEquals(193, LatencyHistogram.indexOf(260));
+        assertEquals(129, LatencyHistogram.highestValueAt(128));
+        assertEquals(259, LatencyHistogram.highestValueAt(192));
+    }
+
+    @Test
+    public void relativeErrorIsBelowOnePointSixPercent() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> 1 + random.nextInt(63);
+            long highestValue = LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(value));
+            assertTrue("value " + value, highestValue >= value);
+            assertTrue("value " + value, highestValue - value <= value * 0.016);
+        }
+    }
+
+    @Test
+    public void percentilesAreRoundedUpToTheirBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean(), 0);
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5000.5, histogram.getMean(), 0);
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(5000)),
+            histogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(9900)),
+            histogram.getValueAtPercentile(99));
+        assertTrue(histogram.getValueAtPercentile(99) <= 9900 * 1.016);
+        // rounded up to the bucket, but never above the largest value recorded
+        assertEquals(10_000, histogram.getValueAtPercentile(99.99));
+        assertEquals(10_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void negativeValuesAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        histogram.record(3);
+        assertEquals(3, histogram.getValueAtPercentile(50));
+    }
+}
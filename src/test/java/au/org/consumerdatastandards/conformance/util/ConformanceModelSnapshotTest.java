@@ -0,0 +1,99 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.Payload;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.ValidationResult;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+import au.org.consumerdatastandards.support.EndpointResponse;
+import au.org.consumerdatastandards.support.ResponseCode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class ConformanceModelSnapshotTest {
+
+    private static final String REQUEST_URL = "http://localhost/cds-au/v1/banking/products";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void loadedModelValidatesLikeAFreshOne() throws Exception {
+        ConformanceModel fresh = ConformanceModelRegistry.getConformanceModel();
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("model.snapshot");
+        ConformanceModelSnapshot.write(fresh, snapshotFile);
+        ConformanceModel loaded = ConformanceModelSnapshot.read(snapshotFile);
+        assertNotNull(loaded);
+
+        // restored annotations are equal to, and hash like, the ones read from the model classes
+        assertEquals(fresh.getResponseMap(), loaded.getResponseMap());
+        assertEquals(fresh.getResponseMap().hashCode(), loaded.getResponseMap().hashCode());
+        assertEquals(fresh.getPropertyIndex(), loaded.getPropertyIndex());
+        assertEquals(fresh.getPayloadModels(), loaded.getPayloadModels());
+        for (Class<?> model : fresh.getPayloadModels()) {
+            Payload expected = fresh.getPlayload(model);
+            Payload actual = loaded.getPlayload(model);
+            assertEquals(model.getName(), expected.getEndpoint(), actual.getEndpoint());
+            assertEquals(model.getName(), expected.getPropertyNames(), actual.getPropertyNames());
+            assertEquals(model.getName(), expected.getRequiredPropertyNames(), actual.getRequiredPropertyNames());
+        }
+
+        PayloadValidator freshValidator = new PayloadValidator(fresh);
+        PayloadValidator loadedValidator = new PayloadValidator(loaded);
+        List<byte[]> payloads = new ArrayList<>();
+        for (String payload : Arrays.asList("{}", "[]", "{\"data\":{}}", "{\"data\":{\"products\":[{}]}}",
+            "{\"productId\":\"p1\",\"amount\":\"1.5\",\"count\":-1,\"fees\":[{\"name\":\"X\"}]}", "{\"a\":")) {
+            payloads.add(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        for (Map.Entry<String, Map<ResponseCode, EndpointResponse>> entry : fresh.getResponseMap().entrySet()) {
+            Class<?> model = PayloadGenerator.getResponseModel(fresh, entry.getKey());
+            if (model == null) continue;
+            for (int seed = 0; seed < 4; seed++) {
+                PayloadGenerator payloadGenerator = new PayloadGenerator().seed(seed).pagination(REQUEST_URL, seed);
+                if (seed % 2 == 1) {
+                    // responses are checked for their links and meta, so those are kept
+                    payloadGenerator.mutations(0.2, PayloadGenerator.Mutation.PATTERN_NOT_MATCHED,
+                        PayloadGenerator.Mutation.NUMBER_OUT_OF_RANGE, PayloadGenerator.Mutation.BROKEN_PAGINATION);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                payloadGenerator.generate(model, out);
+                byte[] payload = out.toByteArray();
+                payloads.add(payload);
+
+                Object response = ObjectMapperRegistry.getReader(ConformanceUtil.expandModel(model))
+                    .readValue(payload);
+                assertEquals(entry.getKey(),
+                    describe(freshValidator.validateResponse(REQUEST_URL, response, entry.getKey(), 200)),
+                    describe(loadedValidator.validateResponse(REQUEST_URL, response, entry.getKey(), 200)));
+            }
+        }
+        for (byte[] payload : payloads) {
+            String description = new String(payload, StandardCharsets.UTF_8);
+            ValidationResult expected = freshValidator.validate(payload);
+            ValidationResult actual = loadedValidator.validate(payload);
+            assertEquals(description, expected.getMatchedModel(), actual.getMatchedModel());
+            assertEquals(description, describe(expected.getErrors()), describe(actual.getErrors()));
+        }
+    }
+
+    private static List<String> describe(List<ConformanceError> errors) {
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : errors) {
+            descriptions.add(error.getErrorType() + "|" + error.getDescription());
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,118 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.support.data.CustomDataType;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CustomDataTypeMatchersTest {
+
+    private static final List<String> SAMPLES = Arrays.asList(
+        "", " ", "0", "1", "01", "123456", "-1", "+1", "1.0", "1.00", "-1.00", "--1.00", "1.", ".00", "-.00",
+        "1.0000000000000000", "1.00000000000000000", "12.345", "1.00 ", " 1.00", "1.00\n", "1,00", "1e10",
+        "\u0661.\u0660\u0660",
+        "true", "false", "True", "FALSE", "truefalse", "true ", "yes",
+        "2019-05-01T10:00:00Z", "2019-05-01T10:00:00.123Z", "2019-05-01T10:00:00+10:00", "2019-05-01T10:00:00-05:30",
+        "2019-05-01T10:00:00", "2019-05-01 10:00:00Z", "2019-05-01T10:00:00.Z", "2019-05-01T10:00:00+1000",
+        "2019-5-01T10:00:00Z", "2019-05-01T10:00:00.123456789+00:00", "2019-05-01T10:00:00ZZ", "2019-05-01",
+        "plain ascii", "tab\tand\nnewline", "\u007F", "\u0080", "caf\u00e9", "\u4e2d\u6587", "emoji \ud83d\ude00",
+        "http://example.com", "https://example.com/path?query=1&b=2#fragment", "https://example.com:8080/a/b",
+        "https://example.com:/a", "https://exa_mple.com/", "https://-example-.com/", "http://example.com/a b",
+        "http://example.com/%zz", "http://example.com/%2F", "http://example.com/#a#b", "http://example.com#",
+        "http://[::1]/", "http://example.com/[x]", "mailto:someone@example.com", "urn:isbn:0451450523",
+        "relative/path", "/absolute/path", "?query", "#fragment", "://missing-scheme", "1http://example.com",
+        "http://", "http:///path", "http://user@example.com/", "http://example.com/\u00e9", "http://example.com/a|b",
+        "http://example.com:80a/", "HTTP://EXAMPLE.COM/", "git+ssh://host.example/repo.git"
+    );
+
+    private static final String ALPHABET = "0123456789-+.:/?#%@_~[]|aefhlrstxTZ \u00e9\u0080";
+
+    @Test
+    public void scannersAgreeWithTheirPatterns() {
+        List<String> samples = getSamples();
+        for (Map.Entry<String, Predicate<String>> entry : CustomDataTypeMatchers.getScanners().entrySet()) {
+            Pattern pattern = Pattern.compile(entry.getKey());
+            for (String sample : samples) {
+                assertEquals(entry.getKey() + " on '" + sample + "'",
+                    pattern.matcher(sample).matches(), entry.getValue().test(sample));
+            }
+        }
+    }
+
+    @Test
+    public void commonTypesAreMatchedByScanners() {
+        List<String> names = Arrays.asList("AmountString", "RateString", "DateTimeString", "ASCIIString",
+            "NaturalNumber", "Boolean");
+        List<String> found = new ArrayList<>();
+        for (CustomDataType customDataType : CustomDataType.values()) {
+            if (names.contains(customDataType.getName())) {
+                found.add(customDataType.getName());
+                assertTrue(customDataType.getName() + " pattern " + customDataType.getPattern() + " has no scanner",
+                    CustomDataTypeMatchers.getScanners().containsKey(customDataType.getPattern()));
+            }
+        }
+        assertTrue("Missing some of " + names + " in " + found, found.containsAll(names));
+    }
+
+    @Test
+    public void uriCheckAgreesWithUriParser() {
+        for (String sample : getSamples()) {
+            assertEquals("'" + sample + "'", parsesAsUri(sample), CustomDataTypeMatchers.isUri(sample));
+        }
+    }
+
+    private static List<String> getSamples() {
+        List<String> samples = new ArrayList<>(SAMPLES);
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int j = 0; j < length; j++) {
+                sb.append(randomChar(random));
+            }
+            samples.add(sb.toString());
+        }
+        for (String sample : SAMPLES) {
+            for (int i = 0; i < 200; i++) {
+                StringBuilder sb = new StringBuilder(sample);
+                int position = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+                switch (random.nextInt(3)) {
+                    case 0:
+                        sb.insert(position, randomChar(random));
+                        break;
+                    case 1:
+                        if (sb.length() > 0) sb.deleteCharAt(position);
+                        break;
+                    default:
+                        if (sb.length() > 0) sb.setCharAt(position, randomChar(random));
+                }
+                samples.add(sb.toString());
+            }
+        }
+        return samples;
+    }
+
+    private static char randomChar(Random random) {
+        return ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+    }
+
+    private static boolean parsesAsUri(String value) {
+        try {
+            new URI(value);
+            return true;
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+}
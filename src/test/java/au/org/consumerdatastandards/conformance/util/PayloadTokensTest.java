@@ -0,0 +1,158 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.support.data.CDSDataType;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+import au.org.consumerdatastandards.support.data.DataDefinition;
+import au.org.consumerdatastandards.support.data.Property;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PayloadTokensTest {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @DataDefinition
+    public static class Flag {
+
+        @Property(required = true)
+        public String rate;
+
+        @Property(required = true)
+        public Boolean flag;
+    }
+
+    @DataDefinition
+    public static class Rates {
+
+        @Property(required = true)
+        @CDSDataType(CustomDataType.Rate)
+        public String rate;
+
+        @Property
+        @CDSDataType(CustomDataType.Amount)
+        public String amount;
+
+        @Property
+        public BigDecimal value;
+
+        @Property
+        public Double ratio;
+
+        @Property
+        public Rates[] nested;
+    }
+
+    @DataDefinition
+    public static class Numbers {
+
+        @Property
+        public Integer count;
+
+        @Property
+        public Long total;
+
+        @Property
+        public BigInteger big;
+
+        @Property
+        public Float ratio;
+
+        @Property
+        public Object any;
+
+        @Property
+        public String text;
+    }
+
+    @Test
+    public void replayedFloatsConvertLikeThePayload() throws IOException {
+        for (String payload : Arrays.asList(
+            "{\"count\":1.5,\"total\":-2.9,\"big\":3.99,\"ratio\":0.1,\"any\":0.0000001,\"text\":1e5}",
+            "{\"count\":1e5,\"total\":1E+2,\"big\":1e20,\"ratio\":1e-50,\"any\":1e5,\"text\":1.50}",
+            "{\"count\":-0.0,\"total\":9.2e18,\"big\":-1.5e3,\"ratio\":3.4e39,\"any\":-0.0}",
+            "{\"count\":3e9}",
+            "{\"total\":1e19}",
+            "{\"count\":2147483647.9,\"any\":[1.5,{\"a\":2.5e0}]}")) {
+            JsonSource jsonSource = JsonSource.of(payload.getBytes(StandardCharsets.UTF_8));
+            String direct;
+            try {
+                direct = describe(jsonSource.<Numbers>read(ObjectMapperRegistry.getMatchingReader(Numbers.class)));
+            } catch (IOException e) {
+                direct = e.getClass().getName();
+            }
+            String replayed;
+            try {
+                replayed = describe(PayloadTokens.of(jsonSource, JSON_FACTORY)
+                    .<Numbers>read(ObjectMapperRegistry.getMatchingReader(Numbers.class)));
+            } catch (IOException e) {
+                replayed = e.getClass().getName();
+            }
+            assertEquals(payload, direct, replayed);
+        }
+    }
+
+    @Test
+    public void replayedTokensBindLikeThePayload() throws IOException {
+        for (String payload : Arrays.asList(
+            "{\"rate\":0.0000001,\"amount\":1e5}",
+            "{\"rate\":\"0.0000001\",\"amount\":\"1e5\"}",
+            "{\"rate\":1E+2,\"amount\":100.10,\"value\":0.0000001,\"ratio\":1e5}",
+            "{\"rate\":-0.0,\"amount\":12345678901234567890.123456789,\"value\":1e-400}",
+            "{\"rate\":0.05,\"nested\":[{\"rate\":0.0000001,\"amount\":1e5},{\"rate\":1.0E-10}]}",
+            "{\"rate\":3,\"amount\":-1}")) {
+            JsonSource jsonSource = JsonSource.of(payload.getBytes(StandardCharsets.UTF_8));
+            Rates direct = jsonSource.read(ObjectMapperRegistry.getMatchingReader(Rates.class));
+
+            // the first candidate reads past the numbers before failing, so Rates is bound from the replay
+            PayloadTokens tokens = PayloadTokens.of(jsonSource, JSON_FACTORY);
+            try {
+                tokens.read(ObjectMapperRegistry.getMatchingReader(Flag.class));
+                fail(payload + " bound to " + Flag.class.getSimpleName());
+            } catch (IOException e) {
+                // expected
+            }
+            Rates replayed = tokens.read(ObjectMapperRegistry.getMatchingReader(Rates.class));
+
+            assertEquals(payload, describe(direct), describe(replayed));
+            assertEquals(payload, check(direct), check(replayed));
+        }
+    }
+
+    private static List<String> check(Rates rates) {
+        List<ConformanceError> errors = new ArrayList<>();
+        ConformanceUtil.checkAgainstModel(rates, Rates.class, errors);
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : errors) {
+            descriptions.add(error.getErrorType() + "|" + error.getDescription());
+        }
+        return descriptions;
+    }
+
+    private static String describe(Numbers numbers) {
+        return numbers.count + "|" + numbers.total + "|" + numbers.big + "|" + numbers.ratio + "|" + numbers.any
+            + "|" + (numbers.any == null ? null : numbers.any.getClass().getSimpleName()) + "|" + numbers.text;
+    }
+
+    private static String describe(Rates rates) {
+        StringBuilder sb = new StringBuilder().append(rates.rate).append('|').append(rates.amount)
+            .append('|').append(rates.value).append('|').append(rates.ratio);
+        if (rates.nested != null) {
+            for (Rates nested : rates.nested) {
+                sb.append('[').append(describe(nested)).append(']');
+            }
+        }
+        return sb.toString();
+    }
+}
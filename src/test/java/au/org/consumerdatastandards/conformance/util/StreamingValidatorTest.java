@@ -0,0 +1,216 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.PayloadValidator;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+import au.org.consumerdatastandards.support.data.CDSDataType;
+import au.org.consumerdatastandards.support.data.Condition;
+import au.org.consumerdatastandards.support.data.CustomDataType;
+import au.org.consumerdatastandards.support.data.DataDefinition;
+import au.org.consumerdatastandards.support.data.Property;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingValidatorTest {
+
+    private final ConformanceModel conformanceModel = ConformanceModelRegistry.getConformanceModel();
+
+    private final PayloadValidator payloadValidator = new PayloadValidator();
+
+    @DataDefinition
+    public static class Untyped {
+
+        @Property(required = true)
+        @CDSDataType(CustomDataType.DateTime)
+        public Object timestamp;
+
+        @Property
+        public Map<String, Integer> counts;
+
+        @Property
+        public Map<String, Integer>[] countsList;
+
+        @Property
+        public Integer[][] matrix;
+    }
+
+    @DataDefinition
+    public static class Scalars {
+
+        @Property
+        @CDSDataType(CustomDataType.NaturalNumber)
+        public Integer count;
+
+        @Property
+        @CDSDataType(CustomDataType.NaturalNumber)
+        public Long total;
+
+        @Property
+        @CDSDataType(CustomDataType.NaturalNumber)
+        public Short small;
+
+        @Property
+        @CDSDataType(CustomDataType.Boolean)
+        public Boolean flag;
+
+        @Property(requiredIf = @Condition(propertyName = "flag", values = "true"))
+        public String reason;
+
+        @Property
+        @CDSDataType(CustomDataType.Rate)
+        public Double ratio;
+
+        @Property
+        @CDSDataType(CustomDataType.Amount)
+        public BigDecimal amount;
+
+        @Property
+        public Integer[] counts;
+    }
+
+    @Test
+    public void streamingMatchesBindingOnGeneratedPayloads() throws IOException {
+        int mutated = 0;
+        for (String operationId : conformanceModel.getResponseMap().keySet()) {
+            Class<?> model = PayloadGenerator.getResponseModel(conformanceModel, operationId);
+            if (model == null) continue;
+            for (int seed = 0; seed < 20; seed++) {
+                PayloadGenerator payloadGenerator = new PayloadGenerator().seed(seed).defaultCollectionSize(seed % 4);
+                if (seed % 2 == 1) {
+                    payloadGenerator.mutations(0.2, PayloadGenerator.Mutation.values());
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                payloadGenerator.generate(model, out);
+                byte[] payload = out.toByteArray();
+                String description = operationId + " with seed " + seed;
+
+                List<ConformanceError> expected = bindAndCheck(payload, model);
+                mutated += expected.isEmpty() ? 0 : 1;
+                List<ConformanceError> streamed = payloadValidator.validatePayloadStreaming(
+                    new ByteArrayInputStream(payload), model);
+                assertEquals(description, describe(expected), describe(streamed));
+                assertEquals(description, describe(payloadValidator.validatePayload(payload)),
+                    describe(payloadValidator.validatePayloadStreaming(payload)));
+            }
+        }
+        assertTrue("no mutated payload had errors", mutated > 0);
+    }
+
+    @Test
+    public void untypedPropertiesAreBoundAndChecked() throws IOException {
+        for (String payload : Arrays.asList(
+            "{\"timestamp\":\"2020-01-01T00:00:00Z\",\"counts\":{\"a\":1},\"countsList\":[{\"b\":2}],\"matrix\":[[1]]}",
+            "{\"timestamp\":\"yesterday\"}",
+            "{\"timestamp\":12}",
+            "{\"timestamp\":{\"date\":\"2020-01-01\"}}",
+            "{\"timestamp\":null}",
+            "{\"counts\":{\"a\":1}}",
+            "{\"timestamp\":\"2020-01-01T00:00:00Z\",\"counts\":{\"a\":\"x\"}}",
+            "{\"timestamp\":\"2020-01-01T00:00:00Z\",\"counts\":[1]}",
+            "{\"timestamp\":\"2020-01-01T00:00:00Z\",\"countsList\":[{\"b\":\"x\"}]}",
+            "{\"timestamp\":\"2020-01-01T00:00:00Z\",\"matrix\":[[1],[\"x\"]]}",
+            "{\"timestamp\":\"2020-01-01T00:00:00Z\",\"matrix\":[{\"a\":1}]}")) {
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            List<ConformanceError> expected = bindAndCheck(bytes, Untyped.class);
+            List<ConformanceError> streamed = payloadValidator.validatePayloadStreaming(
+                new ByteArrayInputStream(bytes), Untyped.class);
+            assertEquals(payload, describe(expected), describe(streamed));
+        }
+        List<ConformanceError> errors = new ArrayList<>();
+        assertFalse(StreamingValidator.validate(JsonSource.of("{\"counts\":{\"a\":[]}}".getBytes(
+            StandardCharsets.UTF_8)), Untyped.class, errors));
+        assertEquals(Collections.singletonList(ConformanceError.Type.PATTERN_NOT_MATCHED.name()),
+            types(payloadValidator.validatePayloadStreaming(new ByteArrayInputStream(
+                "{\"timestamp\":\"yesterday\"}".getBytes(StandardCharsets.UTF_8)), Untyped.class)));
+    }
+
+    @Test
+    public void scalarsAreCoercedLikeBinding() throws IOException {
+        for (String payload : Arrays.asList(
+            "{\"count\":1.5,\"total\":2.9,\"small\":3.1}",
+            "{\"count\":-1.5,\"total\":-2.9,\"small\":-3.1}",
+            "{\"count\":1e3,\"total\":12345678901,\"counts\":[1.5,-2.5,3]}",
+            "{\"count\":12345678901}",
+            "{\"counts\":[1,\"x\"]}",
+            "{\"counts\":[1,true]}",
+            "{\"small\":70000}",
+            "{\"count\":\"12\",\"total\":\"-3\",\"small\":\"4\"}",
+            "{\"count\":\"1.5\"}",
+            "{\"count\":\"\"}",
+            "{\"count\":true}",
+            "{\"count\":-0}",
+            "{\"flag\":1}",
+            "{\"flag\":0}",
+            "{\"flag\":1,\"reason\":\"x\"}",
+            "{\"flag\":\"true\"}",
+            "{\"flag\":\"yes\"}",
+            "{\"flag\":1.5}",
+            "{\"ratio\":1e5,\"amount\":1e5}",
+            "{\"ratio\":5,\"amount\":5}",
+            "{\"ratio\":0.05,\"amount\":0.0000001}",
+            "{\"ratio\":\"0.05\",\"amount\":\"1.50\"}",
+            "{\"ratio\":-0.0,\"amount\":-0.00}")) {
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            List<ConformanceError> expected = bindAndCheck(bytes, Scalars.class);
+            List<ConformanceError> streamed = payloadValidator.validatePayloadStreaming(
+                new ByteArrayInputStream(bytes), Scalars.class);
+            assertEquals(payload, describe(expected), describe(streamed));
+        }
+        assertEquals(Collections.emptyList(), payloadValidator.validatePayloadStreaming(new ByteArrayInputStream(
+            "{\"count\":1.5}".getBytes(StandardCharsets.UTF_8)), Scalars.class));
+        assertEquals(Collections.singletonList(ConformanceError.Type.MISSING_VALUE.name()),
+            types(payloadValidator.validatePayloadStreaming(new ByteArrayInputStream(
+                "{\"flag\":1}".getBytes(StandardCharsets.UTF_8)), Scalars.class)));
+    }
+
+    private static List<ConformanceError> bindAndCheck(byte[] payload, Class<?> model) {
+        Object data;
+        try {
+            data = ObjectMapperRegistry.getMatchingReader(ConformanceUtil.expandModel(model)).readValue(payload);
+        } catch (IOException e) {
+            return Collections.singletonList(new ConformanceError()
+                .errorType(ConformanceError.Type.NO_MATCHING_MODEL)
+                .errorMessage("Payload does not match model " + model.getSimpleName()));
+        }
+        List<ConformanceError> errors = new ArrayList<>();
+        ConformanceUtil.checkAgainstModel(data, model, errors);
+        return errors;
+    }
+
+    private static List<String> types(List<ConformanceError> errors) {
+        List<String> types = new ArrayList<>();
+        for (ConformanceError error : errors) {
+            types.add(String.valueOf(error.getErrorType()));
+        }
+        return types;
+    }
+
+    // the data json differs by design, the streaming validator renders the json path of the offending object
+    private static List<String> describe(List<ConformanceError> errors) {
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : errors) {
+            descriptions.add(error.getErrorType() + "|" + error.getErrorMessage()
+                + "|" + (error.getErrorField() == null ? null : error.getErrorField().getName())
+                + "|" + String.valueOf(error.getErrorFieldValue())
+                + "|" + (error.getCdsDataType() == null ? null : error.getCdsDataType().value()));
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+}
@@ -0,0 +1,122 @@
+package au.org.consumerdatastandards.conformance.util;
+
+import au.org.consumerdatastandards.conformance.ConformanceError;
+import au.org.consumerdatastandards.conformance.ConformanceModel;
+import au.org.consumerdatastandards.conformance.generator.PayloadGenerator;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationPlanTest {
+
+    private static final String LIST_PRODUCTS = "listProducts";
+
+    private final ConformanceModel conformanceModel = ConformanceModelRegistry.getConformanceModel();
+
+    @After
+    public void restoreDefaults() {
+        ValidationPlan.setParallelValidation(0, Runtime.getRuntime().availableProcessors());
+        ValidationPlan.setGeneratedValidators(false);
+    }
+
+    @Test
+    public void generatedValidatorsMatchPlans() throws IOException {
+        List<Object> payloads = new ArrayList<>();
+        List<Class<?>> models = new ArrayList<>();
+        for (Class<?> model : conformanceModel.getPayloadModels()) {
+            if (model.isArray()) continue;
+            for (int seed = 0; seed < 6; seed++) {
+                PayloadGenerator payloadGenerator = new PayloadGenerator().seed(seed).defaultCollectionSize(seed % 3);
+                if (seed % 2 == 1) {
+                    payloadGenerator.mutations(0.3, PayloadGenerator.Mutation.values());
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                payloadGenerator.generate(model, out);
+                payloads.add(ObjectMapperRegistry.getReader(ConformanceUtil.expandModel(model))
+                    .readValue(out.toByteArray()));
+                models.add(model);
+            }
+        }
+        List<List<String>> planned = new ArrayList<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            planned.add(check(payloads.get(i), models.get(i)));
+        }
+
+        ValidationPlan.setGeneratedValidators(true);
+        int errorCount = 0;
+        for (int i = 0; i < payloads.size(); i++) {
+            Object payload = payloads.get(i);
+            assertEquals(models.get(i).getName(), planned.get(i), check(payload, models.get(i)));
+            assertTrue(ValidationPlan.of(models.get(i), payload.getClass()).isGenerated());
+            errorCount += planned.get(i).size();
+        }
+        assertTrue("no payload had errors", errorCount > 0);
+    }
+
+    @Test
+    public void parallelValidationMatchesSerialValidation() throws IOException {
+        Class<?> model = PayloadGenerator.getResponseModel(conformanceModel, LIST_PRODUCTS);
+        Object response = generate(model);
+        List<String> serial = check(response, model);
+        assertTrue("the products have no errors", serial.size() > 10);
+
+        for (int parallelism : new int[] {1, 2, 4}) {
+            ValidationPlan.setParallelValidation(32, parallelism);
+            assertEquals("parallelism " + parallelism, serial, check(response, model));
+        }
+    }
+
+    @Test
+    public void reconfiguringDoesNotFailRunningValidations() throws Exception {
+        Class<?> model = PayloadGenerator.getResponseModel(conformanceModel, LIST_PRODUCTS);
+        Object response = generate(model);
+        List<String> serial = check(response, model);
+
+        ValidationPlan.setParallelValidation(32, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                results.add(executor.submit(() -> check(response, model)));
+            }
+            for (int i = 0; !results.get(results.size() - 1).isDone(); i++) {
+                ValidationPlan.setParallelValidation(32, 2 + i % 3);
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(serial, result.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Object generate(Class<?> model) throws IOException {
+        PayloadGenerator payloadGenerator = new PayloadGenerator().seed(7).collectionSize("products", 2000)
+            .mutations(0.05, PayloadGenerator.Mutation.PATTERN_NOT_MATCHED,
+                PayloadGenerator.Mutation.NUMBER_OUT_OF_RANGE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payloadGenerator.generate(model, out);
+        return ObjectMapperRegistry.getReader(ConformanceUtil.expandModel(model)).readValue(out.toByteArray());
+    }
+
+    private static List<String> check(Object data, Class<?> model) {
+        List<ConformanceError> errors = new ArrayList<>();
+        ConformanceUtil.checkAgainstModel(data, model, errors);
+        List<String> descriptions = new ArrayList<>();
+        for (ConformanceError error : errors) {
+            descriptions.add(error.getErrorType() + "|" + error.getDescription() + "|" + error.getDataJson());
+        }
+        return descriptions;
+    }
+}